@@ -0,0 +1,123 @@
+package com.skypro.simplebanking.benchmark;
+
+import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.engine.BalanceEngine;
+import com.skypro.simplebanking.engine.WalRecord;
+import com.skypro.simplebanking.engine.WriteAheadLog;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.service.AccountService;
+import com.skypro.simplebanking.service.TransferService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Deposits, withdrawals and transfers through {@link AccountService} and {@link TransferService}
+ * backed by the in-process {@link BalanceEngine}, so the numbers cover the service logic, the shard
+ * hand-off and the write-ahead log without a database. Run with {@code -t} above 1 to see how the
+ * log's group commit behaves under concurrency.
+ *
+ * <p>Only engine mode ({@code app.engine.enabled=true}) is measured. The services come from {@link
+ * EngineBenchmarkConfiguration}, which has no database, so the row-locking path, the ledger and the
+ * caches are not covered here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountServiceBenchmark {
+  private static final int SHARDS = 8;
+  private static final long INITIAL_BALANCE = 1_000_000_000L;
+
+  @Param({"10000"})
+  public int users;
+
+  @Param({"false", "true"})
+  public boolean fsync;
+
+  private Path walDirectory;
+  private AnnotationConfigApplicationContext context;
+  private AccountService accountService;
+  private TransferService transferService;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    walDirectory = Files.createTempDirectory("benchmark-wal");
+    WriteAheadLog wal = new WriteAheadLog(walDirectory, fsync);
+    BalanceEngine engine = new BalanceEngine(SHARDS, users * AccountCurrency.values().length, wal);
+    for (long userId = 1; userId <= users; userId++) {
+      for (AccountCurrency currency : AccountCurrency.values()) {
+        engine.load(accountId(userId, currency), userId, currency, INITIAL_BALANCE);
+      }
+    }
+    List<WalRecord> records = wal.readAll();
+    wal.start();
+    engine.recover(records, new long[SHARDS]);
+
+    context = EngineBenchmarkConfiguration.start(engine);
+    accountService = context.getBean(AccountService.class);
+    transferService = context.getBean(TransferService.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    // Closing the context closes the engine and its write-ahead log.
+    context.close();
+    try (Stream<Path> files = Files.walk(walDirectory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public Object deposit() {
+    long userId = randomUser();
+    return accountService.depositToAccount(userId, accountId(userId, AccountCurrency.USD), 1L);
+  }
+
+  @Benchmark
+  public Object withdraw() {
+    long userId = randomUser();
+    return accountService.withdrawFromAccount(userId, accountId(userId, AccountCurrency.USD), 1L);
+  }
+
+  @Benchmark
+  public void transfer() {
+    long fromUserId = randomUser();
+    long toUserId = randomUser();
+    TransferRequest transferRequest = new TransferRequest();
+    transferRequest.setFromAccountId(accountId(fromUserId, AccountCurrency.EUR));
+    transferRequest.setToUserId(toUserId);
+    transferRequest.setToAccountId(accountId(toUserId, AccountCurrency.EUR));
+    transferRequest.setAmount(1L);
+    transferService.transfer(fromUserId, transferRequest);
+  }
+
+  private long randomUser() {
+    return ThreadLocalRandom.current().nextLong(1, users + 1L);
+  }
+
+  private static long accountId(long userId, AccountCurrency currency) {
+    return userId * AccountCurrency.values().length + currency.ordinal();
+  }
+}
@@ -0,0 +1,65 @@
+package com.skypro.simplebanking.benchmark;
+
+import com.skypro.simplebanking.configuration.AdminSecurityFilter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/** The {@code X-SECURITY-ADMIN-KEY} check every request goes through, with each kind of header. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdminSecurityFilterBenchmark {
+  private static final String ADMIN_TOKEN = "SUPER_SECRET_KEY_FROM_ADMIN";
+
+  @Param({"missing", "wrong", "valid"})
+  public String header;
+
+  private AdminSecurityFilter filter;
+  private MockHttpServletRequest request;
+  private MockHttpServletResponse response;
+
+  @Setup
+  public void setUp() {
+    filter = new AdminSecurityFilter(ADMIN_TOKEN);
+    request = new MockHttpServletRequest("GET", "/admin/cache-stats");
+    if (header.equals("wrong")) {
+      request.addHeader("X-SECURITY-ADMIN-KEY", "SUPER_SECRET_KEY_FROM_ADMIM");
+    } else if (header.equals("valid")) {
+      request.addHeader("X-SECURITY-ADMIN-KEY", ADMIN_TOKEN);
+    }
+    response = new MockHttpServletResponse();
+  }
+
+  @TearDown
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Benchmark
+  public Object filter() throws ServletException, IOException {
+    // OncePerRequestFilter clears its "already filtered" marker on the way out, so the same
+    // request can go through again; only the chain has to be fresh.
+    filter.doFilter(request, response, new MockFilterChain());
+    return SecurityContextHolder.getContext().getAuthentication();
+  }
+}
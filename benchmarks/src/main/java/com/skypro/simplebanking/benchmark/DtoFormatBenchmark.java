@@ -0,0 +1,112 @@
+package com.skypro.simplebanking.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * JSON against the CBOR and Smile encodings negotiated by {@code BinaryFormatsConfiguration}, for
+ * the bodies of {@code /account/{id}}, {@code /user/me} and {@code /transfer}: the server writes
+ * the two DTOs and reads the transfer request. Payload sizes are reported by {@link
+ * #payloadSizes} as its secondary results, so they land in the JMH results next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoFormatBenchmark {
+  @Param({"JSON", "CBOR", "SMILE"})
+  public String format;
+
+  @Param({"3", "30"})
+  public int accounts;
+
+  private ObjectMapper objectMapper;
+  private ObjectReader transferRequestReader;
+  private AccountDTO account;
+  private UserDTO user;
+  private byte[] transferRequestBody;
+
+  @Setup
+  public void setUp() throws IOException {
+    objectMapper = objectMapperBuilder(format).build();
+    transferRequestReader = objectMapper.readerFor(TransferRequest.class);
+    account = new AccountDTO(42L, 1_000L, AccountCurrency.USD);
+    user = UserDTO.from(UserFixtures.user(1L, accounts));
+    TransferRequest transferRequest = new TransferRequest();
+    transferRequest.setFromAccountId(42L);
+    transferRequest.setToUserId(7L);
+    transferRequest.setToAccountId(43L);
+    transferRequest.setAmount(250L);
+    transferRequestBody = objectMapper.writeValueAsBytes(transferRequest);
+  }
+
+  @Benchmark
+  public byte[] writeAccountDto() throws IOException {
+    return objectMapper.writeValueAsBytes(account);
+  }
+
+  @Benchmark
+  public byte[] writeUserDto() throws IOException {
+    return objectMapper.writeValueAsBytes(user);
+  }
+
+  @Benchmark
+  public TransferRequest readTransferRequest() throws IOException {
+    return transferRequestReader.readValue(transferRequestBody);
+  }
+
+  /**
+   * Writes each body once and records its size. With a single shot in a single iteration, every
+   * EVENTS counter is exactly one payload's byte count rather than a sum over invocations.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1, batchSize = 1)
+  public void payloadSizes(PayloadBytes bytes) throws IOException {
+    bytes.accountBytes = objectMapper.writeValueAsBytes(account).length;
+    bytes.userBytes = objectMapper.writeValueAsBytes(user).length;
+    bytes.transferBytes = transferRequestBody.length;
+  }
+
+  /** Payload sizes reported as secondary results of {@link #payloadSizes}. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class PayloadBytes {
+    public long accountBytes;
+    public long userBytes;
+    public long transferBytes;
+  }
+
+  private static Jackson2ObjectMapperBuilder objectMapperBuilder(String format) {
+    switch (format) {
+      case "CBOR":
+        return Jackson2ObjectMapperBuilder.cbor();
+      case "SMILE":
+        return Jackson2ObjectMapperBuilder.smile();
+      default:
+        return Jackson2ObjectMapperBuilder.json();
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.skypro.simplebanking.benchmark;
+
+import com.skypro.simplebanking.dto.ListUserDTO;
+import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.entity.User;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** {@link UserDTO#from} and {@link ListUserDTO#from} for users with growing account counts. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+  @Param({"3", "30", "300"})
+  public int accounts;
+
+  private User user;
+
+  @Setup
+  public void setUp() {
+    user = UserFixtures.user(1L, accounts);
+  }
+
+  @Benchmark
+  public UserDTO userDto() {
+    return UserDTO.from(user);
+  }
+
+  @Benchmark
+  public ListUserDTO listUserDto() {
+    return ListUserDTO.from(user);
+  }
+}
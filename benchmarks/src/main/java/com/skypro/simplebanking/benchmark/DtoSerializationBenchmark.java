@@ -0,0 +1,62 @@
+package com.skypro.simplebanking.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypro.simplebanking.dto.ListUserDTO;
+import com.skypro.simplebanking.dto.UserDTO;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Jackson serialization of the DTOs returned by {@code /user/me} and {@code /user/list}, using an
+ * {@link ObjectMapper} configured the way Spring Boot configures the application's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoSerializationBenchmark {
+  private static final int LISTED_USERS = 100;
+
+  @Param({"3", "30", "300"})
+  public int accounts;
+
+  private ObjectMapper objectMapper;
+  private UserDTO user;
+  private List<ListUserDTO> userList;
+
+  @Setup
+  public void setUp() {
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    user = UserDTO.from(UserFixtures.user(1L, accounts));
+    userList =
+        UserFixtures.users(LISTED_USERS, accounts).stream()
+            .map(ListUserDTO::from)
+            .collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public byte[] userDto() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(user);
+  }
+
+  @Benchmark
+  public byte[] userList() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(userList);
+  }
+}
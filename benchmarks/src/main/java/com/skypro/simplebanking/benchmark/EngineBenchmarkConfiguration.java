@@ -0,0 +1,100 @@
+package com.skypro.simplebanking.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypro.simplebanking.engine.BalanceEngine;
+import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.service.AccountService;
+import com.skypro.simplebanking.service.IdempotencyService;
+import com.skypro.simplebanking.service.LedgerService;
+import com.skypro.simplebanking.service.TransferService;
+import com.skypro.simplebanking.service.UserAccountCache;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Wires {@link AccountService} and {@link TransferService} the way the application does, from its
+ * own {@code application.properties}, with the balance engine enabled and no database. The
+ * database-side beans are stand-ins that throw on first use, so a code path that leaves engine mode
+ * fails the benchmark instead of skewing it.
+ */
+@Configuration
+@PropertySource("classpath:application.properties")
+@Import({
+  AccountService.class,
+  TransferService.class,
+  LedgerService.class,
+  UserAccountCache.class,
+  IdempotencyService.class
+})
+class EngineBenchmarkConfiguration {
+
+  /** Starts a context around {@code engine}; closing the context closes the engine. */
+  static AnnotationConfigApplicationContext start(BalanceEngine engine) {
+    AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+    context
+        .getEnvironment()
+        .getPropertySources()
+        .addFirst(new MapPropertySource("benchmark", Map.of("app.engine.enabled", "true")));
+    context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+    context.registerBean(BalanceEngine.class, () -> engine);
+    context.register(EngineBenchmarkConfiguration.class);
+    context.refresh();
+    return context;
+  }
+
+  @Bean
+  AccountRepository accountRepository() {
+    return unavailable(AccountRepository.class);
+  }
+
+  @Bean
+  PlatformTransactionManager transactionManager() {
+    return unavailable(PlatformTransactionManager.class);
+  }
+
+  @Bean
+  TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+    return new TransactionTemplate(transactionManager);
+  }
+
+  @Bean
+  JdbcTemplate jdbcTemplate() {
+    return new JdbcTemplate(unavailable(DataSource.class));
+  }
+
+  @Bean
+  ObjectMapper objectMapper() {
+    return new ObjectMapper();
+  }
+
+  private static <T> T unavailable(Class<T> type) {
+    return type.cast(
+        Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "toString":
+                  return "unavailable " + type.getSimpleName();
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "equals":
+                  return proxy == args[0];
+                default:
+                  throw new UnsupportedOperationException(
+                      type.getSimpleName() + " is not available: only engine mode is measured");
+              }
+            }));
+  }
+}
@@ -0,0 +1,46 @@
+package com.skypro.simplebanking.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * What one Basic-auth password check costs at each BCrypt strength; the application uses the
+ * default of 10.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+  private static final String PASSWORD = "correct horse battery staple";
+
+  @Param({"4", "8", "10", "12"})
+  public int strength;
+
+  private BCryptPasswordEncoder passwordEncoder;
+  private String encodedPassword;
+
+  @Setup
+  public void setUp() {
+    passwordEncoder = new BCryptPasswordEncoder(strength);
+    encodedPassword = passwordEncoder.encode(PASSWORD);
+  }
+
+  @Benchmark
+  public boolean matches() {
+    return passwordEncoder.matches(PASSWORD, encodedPassword);
+  }
+}
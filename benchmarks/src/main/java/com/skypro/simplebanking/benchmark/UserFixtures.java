@@ -0,0 +1,39 @@
+package com.skypro.simplebanking.benchmark;
+
+import com.skypro.simplebanking.entity.Account;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.entity.User;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Detached entities shaped like the ones Hibernate hands to the DTO mappers. */
+final class UserFixtures {
+  private UserFixtures() {}
+
+  static User user(long id, int accountCount) {
+    User user = new User();
+    user.setId(id);
+    user.setUsername("user-" + id);
+    user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5Lh1ZYU3yjT0dJzUZ1Vh1XK");
+    List<Account> accounts = new ArrayList<>(accountCount);
+    AccountCurrency[] currencies = AccountCurrency.values();
+    for (int i = 0; i < accountCount; i++) {
+      Account account = new Account();
+      account.setId(id * accountCount + i);
+      account.setUser(user);
+      account.setAccountCurrency(currencies[i % currencies.length]);
+      account.setAmount(1_000L + i);
+      accounts.add(account);
+    }
+    user.setAccounts(accounts);
+    return user;
+  }
+
+  static List<User> users(int userCount, int accountCount) {
+    List<User> users = new ArrayList<>(userCount);
+    for (long id = 1; id <= userCount; id++) {
+      users.add(user(id, accountCount));
+    }
+    return users;
+  }
+}
@@ -0,0 +1,20 @@
+package com.skypro.simplebanking.reactive;
+
+import com.skypro.simplebanking.controller.BankingExceptionHandlers;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+
+/**
+ * WebFlux and R2DBC deployment of the banking API. It shares the DTOs, exceptions and {@link
+ * BankingExceptionHandlers} of the servlet application and works on the same schema, but none of
+ * its request handling holds a thread or a connection while it waits.
+ */
+@SpringBootApplication
+@Import(BankingExceptionHandlers.class)
+public class ReactiveBankingApplication {
+
+  public static void main(String[] args) {
+    SpringApplication.run(ReactiveBankingApplication.class, args);
+  }
+}
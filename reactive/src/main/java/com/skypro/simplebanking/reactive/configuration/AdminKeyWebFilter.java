@@ -0,0 +1,36 @@
+package com.skypro.simplebanking.reactive.configuration;
+
+import com.skypro.simplebanking.dto.BankingUserDetails;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/** Reactive counterpart of {@code AdminSecurityFilter}. */
+public class AdminKeyWebFilter implements WebFilter {
+  private final String adminToken;
+
+  public AdminKeyWebFilter(String adminToken) {
+    this.adminToken = adminToken;
+  }
+
+  @Override
+  @NonNull
+  public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+    String key = exchange.getRequest().getHeaders().getFirst("X-SECURITY-ADMIN-KEY");
+    if (!StringUtils.hasText(key) || !key.contentEquals(adminToken)) {
+      return chain.filter(exchange);
+    }
+    BankingUserDetails userDetails = new BankingUserDetails(-1, "admin", "****", true);
+    UsernamePasswordAuthenticationToken authentication =
+        UsernamePasswordAuthenticationToken.authenticated(
+            userDetails, "admin", userDetails.getAuthorities());
+    return chain
+        .filter(exchange)
+        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+  }
+}
@@ -0,0 +1,68 @@
+package com.skypro.simplebanking.reactive.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.reactive.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.savedrequest.NoOpServerRequestCache;
+
+/**
+ * Same rules as the servlet {@code SecurityConfiguration}. Basic credentials are checked by
+ * Spring Security's reactive authentication manager, which runs BCrypt on a worker scheduler
+ * rather than on the event loop.
+ */
+@Configuration
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfiguration {
+  @Bean
+  public PasswordEncoder passwordEncoder() {
+    return new BCryptPasswordEncoder();
+  }
+
+  @Bean
+  public SecurityWebFilterChain securityWebFilterChain(
+      ServerHttpSecurity httpSecurity,
+      @Value("${app.security.admin-token}") String adminToken) {
+    return httpSecurity
+        .csrf()
+        .disable()
+        .logout()
+        .disable()
+        .formLogin()
+        .disable()
+        .requestCache()
+        .requestCache(NoOpServerRequestCache.getInstance())
+        .and()
+        .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+        .httpBasic()
+        .and()
+        .authorizeExchange()
+        .matchers(EndpointRequest.to(HealthEndpoint.class, PrometheusScrapeEndpoint.class))
+        .permitAll()
+        .matchers(EndpointRequest.toAnyEndpoint())
+        .hasRole("ADMIN")
+        .pathMatchers(HttpMethod.POST, "/user", "/user/")
+        .hasRole("ADMIN")
+        .pathMatchers("/user/**")
+        .hasRole("USER")
+        .pathMatchers("/account/**")
+        .hasRole("USER")
+        .pathMatchers("/transfer/**")
+        .hasRole("USER")
+        .anyExchange()
+        .authenticated()
+        .and()
+        .addFilterAt(new AdminKeyWebFilter(adminToken), SecurityWebFiltersOrder.AUTHENTICATION)
+        .build();
+  }
+}
@@ -0,0 +1,49 @@
+package com.skypro.simplebanking.reactive.controller;
+
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.BalanceChangeRequest;
+import com.skypro.simplebanking.dto.BankingUserDetails;
+import com.skypro.simplebanking.reactive.service.ReactiveAccountService;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/account")
+public class ReactiveAccountController {
+  private final ReactiveAccountService accountService;
+
+  public ReactiveAccountController(ReactiveAccountService accountService) {
+    this.accountService = accountService;
+  }
+
+  @GetMapping("/{id}")
+  public Mono<AccountDTO> getUserAccount(
+      @AuthenticationPrincipal BankingUserDetails bankingUserDetails,
+      @PathVariable("id") Long accountId) {
+    return accountService.getAccount(bankingUserDetails.getId(), accountId);
+  }
+
+  @PostMapping("/deposit/{id}")
+  public Mono<AccountDTO> depositToAccount(
+      @AuthenticationPrincipal BankingUserDetails bankingUserDetails,
+      @PathVariable("id") Long accountId,
+      @RequestBody BalanceChangeRequest balanceChangeRequest) {
+    return accountService.depositToAccount(
+        bankingUserDetails.getId(), accountId, balanceChangeRequest.getAmount());
+  }
+
+  @PostMapping("/withdraw/{id}")
+  public Mono<AccountDTO> withdrawFromAccount(
+      @AuthenticationPrincipal BankingUserDetails bankingUserDetails,
+      @PathVariable("id") Long accountId,
+      @RequestBody BalanceChangeRequest balanceChangeRequest) {
+    return accountService.withdrawFromAccount(
+        bankingUserDetails.getId(), accountId, balanceChangeRequest.getAmount());
+  }
+}
@@ -0,0 +1,28 @@
+package com.skypro.simplebanking.reactive.controller;
+
+import com.skypro.simplebanking.dto.BankingUserDetails;
+import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.reactive.service.ReactiveTransferService;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/transfer")
+public class ReactiveTransferController {
+  private final ReactiveTransferService transferService;
+
+  public ReactiveTransferController(ReactiveTransferService transferService) {
+    this.transferService = transferService;
+  }
+
+  @PostMapping
+  public Mono<Void> transfer(
+      @AuthenticationPrincipal BankingUserDetails bankingUserDetails,
+      @RequestBody TransferRequest transferRequest) {
+    return transferService.transfer(bankingUserDetails.getId(), transferRequest);
+  }
+}
@@ -0,0 +1,52 @@
+package com.skypro.simplebanking.reactive.controller;
+
+import com.skypro.simplebanking.dto.BankingUserDetails;
+import com.skypro.simplebanking.dto.CreateUserRequest;
+import com.skypro.simplebanking.dto.ListUserDTO;
+import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.dto.UserPageDTO;
+import com.skypro.simplebanking.reactive.service.ReactiveUserService;
+import javax.validation.Valid;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/user")
+public class ReactiveUserController {
+  private final ReactiveUserService userService;
+
+  public ReactiveUserController(ReactiveUserService userService) {
+    this.userService = userService;
+  }
+
+  @PostMapping
+  public Mono<UserDTO> createUser(@RequestBody @Valid CreateUserRequest userRequest) {
+    return userService.createUser(userRequest.getUsername(), userRequest.getPassword());
+  }
+
+  /** A JSON array by default; requested as {@code application/x-ndjson} it streams per user. */
+  @GetMapping("/list")
+  public Flux<ListUserDTO> getAllUsers() {
+    return userService.listUsers();
+  }
+
+  @GetMapping(value = "/list", params = "limit")
+  public Mono<UserPageDTO> getUsersPage(
+      @RequestParam(value = "after", defaultValue = "0") long afterId,
+      @RequestParam("limit") int limit) {
+    return userService.listUsers(afterId, limit);
+  }
+
+  @GetMapping("/me")
+  public Mono<UserDTO> getMyProfile(
+      @AuthenticationPrincipal BankingUserDetails bankingUserDetails) {
+    return userService.getUser(bankingUserDetails.getId());
+  }
+}
@@ -0,0 +1,69 @@
+package com.skypro.simplebanking.reactive.entity;
+
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/** Row of {@code accounts}; the currency is stored as the {@link AccountCurrency} name. */
+@Table("accounts")
+public class AccountRecord {
+  @Id
+  private Long id;
+  private Long userId;
+  private String accountCurrency;
+  private Long amount;
+  private int slotCount;
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public Long getUserId() {
+    return userId;
+  }
+
+  public void setUserId(Long userId) {
+    this.userId = userId;
+  }
+
+  public String getAccountCurrency() {
+    return accountCurrency;
+  }
+
+  public void setAccountCurrency(String accountCurrency) {
+    this.accountCurrency = accountCurrency;
+  }
+
+  public Long getAmount() {
+    return amount;
+  }
+
+  public void setAmount(Long amount) {
+    this.amount = amount;
+  }
+
+  public int getSlotCount() {
+    return slotCount;
+  }
+
+  public void setSlotCount(int slotCount) {
+    this.slotCount = slotCount;
+  }
+
+  public boolean isHot() {
+    return slotCount > 0;
+  }
+
+  public AccountCurrency currency() {
+    return AccountCurrency.valueOf(accountCurrency);
+  }
+
+  public AccountDTO toDTO() {
+    return new AccountDTO(id, amount, currency());
+  }
+}
@@ -0,0 +1,89 @@
+package com.skypro.simplebanking.reactive.repository;
+
+import com.skypro.simplebanking.reactive.entity.AccountRecord;
+import java.util.Collection;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/** Reactive counterpart of {@code AccountRepository}, issuing the same statements. */
+@Repository
+public interface ReactiveAccountRepository extends R2dbcRepository<AccountRecord, Long> {
+  /** What the slot rows of account {@code a} hold; added to {@code a.amount} for the total. */
+  String SLOT_AMOUNT =
+      "(CASE WHEN a.slot_count = 0 THEN 0 ELSE"
+          + " (SELECT coalesce(sum(s.amount), 0) FROM account_slots s WHERE s.account_id = a.id)"
+          + " END)";
+
+  /** See {@link ReactiveUserRepository#nextId()}. */
+  @Query("SELECT nextval('account_sequence')")
+  Mono<Long> nextId();
+
+  @Modifying
+  @Query(
+      "INSERT INTO accounts (id, user_id, account_currency, amount, slot_count)"
+          + " VALUES (:id, :userId, :accountCurrency, :amount, 0)")
+  Mono<Integer> insert(
+      @Param("id") long id,
+      @Param("userId") long userId,
+      @Param("accountCurrency") String accountCurrency,
+      @Param("amount") long amount);
+
+  /** Loads an account with its total balance, slot rows included, in {@code amount}. */
+  @Query(
+      "SELECT a.id, a.user_id, a.account_currency, a.amount + " + SLOT_AMOUNT + " AS amount,"
+          + " a.slot_count FROM accounts a WHERE a.user_id = :userId AND a.id = :accountId")
+  Mono<AccountRecord> findWithTotal(
+      @Param("userId") long userId, @Param("accountId") long accountId);
+
+  @Query("SELECT * FROM accounts WHERE id IN (:ids) ORDER BY id FOR UPDATE")
+  Flux<AccountRecord> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+  @Modifying
+  @Query("UPDATE accounts SET amount = :amount WHERE id = :accountId")
+  Mono<Integer> updateAmount(@Param("accountId") long accountId, @Param("amount") long amount);
+
+  @Modifying
+  @Query("UPDATE accounts SET amount = amount + :amount WHERE id = :accountId")
+  Mono<Integer> addToRow(@Param("accountId") long accountId, @Param("amount") long amount);
+
+  /** Adds to the row of a regular account; empty for hot accounts, which take deposits in slots. */
+  @Query(
+      "UPDATE accounts SET amount = amount + :amount"
+          + " WHERE id = :accountId AND user_id = :userId AND slot_count = 0 RETURNING *")
+  Mono<AccountRecord> depositAtomically(
+      @Param("userId") long userId,
+      @Param("accountId") long accountId,
+      @Param("amount") long amount);
+
+  @Query(
+      "UPDATE accounts SET amount = amount - :amount"
+          + " WHERE id = :accountId AND user_id = :userId AND amount >= :amount RETURNING *")
+  Mono<AccountRecord> withdrawAtomically(
+      @Param("userId") long userId,
+      @Param("accountId") long accountId,
+      @Param("amount") long amount);
+
+  @Modifying
+  @Query(
+      "UPDATE account_slots s SET amount = s.amount + :amount FROM accounts a"
+          + " WHERE a.id = :accountId AND a.user_id = :userId AND a.slot_count > 0"
+          + " AND s.account_id = a.id AND s.slot = mod(txid_current(), a.slot_count)")
+  Mono<Integer> depositToSlot(
+      @Param("userId") long userId,
+      @Param("accountId") long accountId,
+      @Param("amount") long amount);
+
+  @Query(
+      "WITH held AS (SELECT slot, amount FROM account_slots"
+          + " WHERE account_id = :accountId ORDER BY slot FOR UPDATE),"
+          + " swept AS (UPDATE account_slots s SET amount = 0 FROM held"
+          + " WHERE s.account_id = :accountId AND s.slot = held.slot AND held.amount <> 0"
+          + " RETURNING held.amount)"
+          + " SELECT CAST(coalesce(sum(amount), 0) AS bigint) FROM swept")
+  Mono<Long> sweepSlots(@Param("accountId") long accountId);
+}
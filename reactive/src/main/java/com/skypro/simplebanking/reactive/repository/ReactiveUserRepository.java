@@ -0,0 +1,47 @@
+package com.skypro.simplebanking.reactive.repository;
+
+import com.skypro.simplebanking.reactive.entity.UserRecord;
+import java.util.Collection;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/** Reactive counterpart of {@code UserRepository}. */
+@Repository
+public interface ReactiveUserRepository extends R2dbcRepository<UserRecord, Long> {
+  String USER_ACCOUNT_ROW =
+      "SELECT u.id AS user_id, u.username, a.id AS account_id, a.account_currency,"
+          + " a.amount + " + ReactiveAccountRepository.SLOT_AMOUNT + " AS amount"
+          + " FROM users u LEFT JOIN accounts a ON a.user_id = u.id";
+
+  Mono<UserRecord> findByUsername(String username);
+
+  /**
+   * Takes one value of the sequence Hibernate allocates user ids from. Hibernate's pooled
+   * optimizer only hands out ids up to values it fetched itself, so using a fetched value directly
+   * never collides with it.
+   */
+  @Query("SELECT nextval('user_sequence')")
+  Mono<Long> nextId();
+
+  @Modifying
+  @Query("INSERT INTO users (id, username, password) VALUES (:id, :username, :password)")
+  Mono<Integer> insert(
+      @Param("id") long id, @Param("username") String username, @Param("password") String password);
+
+  @Query("SELECT id FROM users WHERE id > :afterId ORDER BY id LIMIT :limit")
+  Flux<Long> findIdsAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+  @Query(USER_ACCOUNT_ROW + " WHERE u.id = :userId ORDER BY a.id")
+  Flux<UserAccountRecord> findUserAccountRows(@Param("userId") long userId);
+
+  @Query(USER_ACCOUNT_ROW + " WHERE u.id IN (:userIds) ORDER BY u.id, a.id")
+  Flux<UserAccountRecord> findUserAccountRows(@Param("userIds") Collection<Long> userIds);
+
+  @Query(USER_ACCOUNT_ROW + " ORDER BY u.id, a.id")
+  Flux<UserAccountRecord> findAllUserAccountRows();
+}
@@ -0,0 +1,35 @@
+package com.skypro.simplebanking.reactive.repository;
+
+import com.skypro.simplebanking.dto.UserAccountRow;
+import com.skypro.simplebanking.entity.AccountCurrency;
+
+/** One user joined with one of their accounts, or with none when the user has no accounts. */
+public class UserAccountRecord {
+  private final Long userId;
+  private final String username;
+  private final Long accountId;
+  private final String accountCurrency;
+  private final Long amount;
+
+  public UserAccountRecord(
+      Long userId, String username, Long accountId, String accountCurrency, Long amount) {
+    this.userId = userId;
+    this.username = username;
+    this.accountId = accountId;
+    this.accountCurrency = accountCurrency;
+    this.amount = amount;
+  }
+
+  public Long getUserId() {
+    return userId;
+  }
+
+  public UserAccountRow toRow() {
+    return new UserAccountRow(
+        userId,
+        username,
+        accountId,
+        accountCurrency == null ? null : AccountCurrency.valueOf(accountCurrency),
+        amount);
+  }
+}
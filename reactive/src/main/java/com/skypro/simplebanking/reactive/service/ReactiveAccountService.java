@@ -0,0 +1,182 @@
+package com.skypro.simplebanking.reactive.service;
+
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.exception.AccountNotFoundException;
+import com.skypro.simplebanking.exception.InsufficientFundsException;
+import com.skypro.simplebanking.exception.InvalidAmountException;
+import com.skypro.simplebanking.exception.WrongCurrencyException;
+import com.skypro.simplebanking.reactive.entity.AccountRecord;
+import com.skypro.simplebanking.reactive.repository.ReactiveAccountRepository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class ReactiveAccountService {
+  private final ReactiveAccountRepository accountRepository;
+  private final ReactiveLedgerService ledgerService;
+
+  public ReactiveAccountService(
+      ReactiveAccountRepository accountRepository, ReactiveLedgerService ledgerService) {
+    this.accountRepository = accountRepository;
+    this.ledgerService = ledgerService;
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public Flux<AccountDTO> createDefaultAccounts(long userId) {
+    return Flux.fromArray(AccountCurrency.values())
+        .concatMap(
+            currency ->
+                accountRepository
+                    .nextId()
+                    .flatMap(
+                        id ->
+                            accountRepository
+                                .insert(id, userId, currency.name(), 1L)
+                                .thenReturn(new AccountDTO(id, 1L, currency))));
+  }
+
+  public Mono<AccountDTO> getAccount(long userId, long accountId) {
+    return accountRepository
+        .findWithTotal(userId, accountId)
+        .map(AccountRecord::toDTO)
+        .switchIfEmpty(Mono.error(AccountNotFoundException::new));
+  }
+
+  /**
+   * Locks the accounts taking part in a transfer in id order. Unlike the JPA application, hot
+   * accounts that are only credited are locked as well, and are credited on their row.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public Mono<Map<Long, AccountRecord>> lockAccounts(Collection<Long> accountIds) {
+    return accountRepository
+        .findAllByIdInForUpdate(new TreeSet<>(accountIds))
+        .collectMap(AccountRecord::getId);
+  }
+
+  public Mono<Void> applyTransfer(
+      long userId, TransferRequest transferRequest, Map<Long, AccountRecord> lockedAccounts) {
+    AccountRecord source = lockedAccounts.get(transferRequest.getFromAccountId());
+    AccountRecord destination = lockedAccounts.get(transferRequest.getToAccountId());
+    if (source == null || destination == null) {
+      return Mono.error(new AccountNotFoundException());
+    }
+    if (!source.getAccountCurrency().equals(destination.getAccountCurrency())) {
+      return Mono.error(new WrongCurrencyException());
+    }
+    long amount = transferRequest.getAmount();
+    if (amount < 0) {
+      return Mono.error(new InvalidAmountException());
+    }
+    if (source.getUserId() != userId
+        || destination.getUserId() != transferRequest.getToUserId()) {
+      return Mono.error(new AccountNotFoundException());
+    }
+    Mono<Long> available =
+        source.getAmount() < amount && source.isHot()
+            ? accountRepository.sweepSlots(source.getId()).map(swept -> source.getAmount() + swept)
+            : Mono.just(source.getAmount());
+    return available.flatMap(
+        sourceAmount -> {
+          if (sourceAmount < amount) {
+            return Mono.error(
+                new InsufficientFundsException(
+                    "Cannot withdraw " + amount + " " + source.currency().name()));
+          }
+          source.setAmount(sourceAmount - amount);
+          return accountRepository
+              .updateAmount(source.getId(), source.getAmount())
+              .then(
+                  Mono.defer(
+                      () -> {
+                        // The row is locked either way, so a hot destination is credited there too.
+                        destination.setAmount(destination.getAmount() + amount);
+                        return accountRepository.updateAmount(
+                            destination.getId(), destination.getAmount());
+                      }))
+              .then(ledgerService.recordTransfer(source, destination, amount));
+        });
+  }
+
+  @Transactional
+  public Mono<AccountDTO> depositToAccount(long userId, long accountId, long amount) {
+    if (amount < 0) {
+      return Mono.error(new InvalidAmountException());
+    }
+    return accountRepository
+        .depositAtomically(userId, accountId, amount)
+        .flatMap(
+            deposited ->
+                ledgerService
+                    .recordDeposit(accountId, deposited.currency(), amount, deposited.getAmount())
+                    .thenReturn(deposited.toDTO()))
+        .switchIfEmpty(Mono.defer(() -> depositToSlot(userId, accountId, amount)));
+  }
+
+  @Transactional
+  public Mono<AccountDTO> withdrawFromAccount(long userId, long accountId, long amount) {
+    if (amount < 0) {
+      return Mono.error(new InvalidAmountException());
+    }
+    return accountRepository
+        .withdrawAtomically(userId, accountId, amount)
+        .switchIfEmpty(Mono.defer(() -> sweepAndWithdraw(userId, accountId, amount)))
+        .flatMap(
+            withdrawn ->
+                withdrawn.isHot()
+                    ? accountRepository.findWithTotal(userId, accountId)
+                    : Mono.just(withdrawn))
+        .flatMap(
+            balance ->
+                ledgerService
+                    .recordWithdrawal(accountId, balance.currency(), amount, balance.getAmount())
+                    .thenReturn(balance.toDTO()));
+  }
+
+  /** Hot accounts take deposits in a slot row picked per transaction instead of their row. */
+  private Mono<AccountDTO> depositToSlot(long userId, long accountId, long amount) {
+    return accountRepository
+        .depositToSlot(userId, accountId, amount)
+        .filter(updated -> updated > 0)
+        .flatMap(updated -> accountRepository.findWithTotal(userId, accountId))
+        .switchIfEmpty(Mono.error(AccountNotFoundException::new))
+        .flatMap(
+            total ->
+                ledgerService
+                    .recordDeposit(accountId, total.currency(), amount, total.getAmount())
+                    .thenReturn(total.toDTO()));
+  }
+
+  /**
+   * The account row alone could not cover a withdrawal; a hot account sweeps its slots first. The
+   * row is locked before the slots, in the same order as transfers take them.
+   */
+  private Mono<AccountRecord> sweepAndWithdraw(long userId, long accountId, long amount) {
+    return accountRepository
+        .findAllByIdInForUpdate(List.of(accountId))
+        .then(accountRepository.findWithTotal(userId, accountId))
+        .switchIfEmpty(Mono.error(AccountNotFoundException::new))
+        .flatMap(
+            account -> {
+              InsufficientFundsException insufficientFunds =
+                  new InsufficientFundsException(
+                      "Cannot withdraw " + amount + " " + account.currency().name());
+              if (!account.isHot() || account.getAmount() < amount) {
+                return Mono.error(insufficientFunds);
+              }
+              return accountRepository
+                  .sweepSlots(accountId)
+                  .flatMap(swept -> accountRepository.addToRow(accountId, swept))
+                  .then(accountRepository.withdrawAtomically(userId, accountId, amount))
+                  .switchIfEmpty(Mono.error(insufficientFunds));
+            });
+  }
+}
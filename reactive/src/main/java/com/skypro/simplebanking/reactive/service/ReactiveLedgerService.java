@@ -0,0 +1,157 @@
+package com.skypro.simplebanking.reactive.service;
+
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.entity.LedgerEntryType;
+import com.skypro.simplebanking.reactive.entity.AccountRecord;
+import com.skypro.simplebanking.service.LedgerIdGenerator;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Journals balance changes into {@code ledger_entries} like {@code LedgerService}. The entries of
+ * one change go out as a single batched statement on the connection of the surrounding reactive
+ * transaction. Entries are built on subscription, so they see the balances of updates that ran
+ * before them in the same pipeline.
+ */
+@Service
+public class ReactiveLedgerService {
+  private static final String INSERT_ENTRY =
+      "INSERT INTO ledger_entries"
+          + " (id, account_id, entry_type, amount, currency, balance_after, transfer_id, created_at)"
+          + " VALUES ($1, $2, $3, $4, $5, $6, $7, $8)";
+
+  private final DatabaseClient databaseClient;
+  private final LedgerIdGenerator idGenerator;
+
+  public ReactiveLedgerService(
+      DatabaseClient databaseClient, @Value("${app.ledger.node-id}") int nodeId) {
+    this.databaseClient = databaseClient;
+    this.idGenerator = new LedgerIdGenerator(nodeId);
+  }
+
+  public Mono<Void> recordDeposit(
+      long accountId, AccountCurrency currency, long amount, Long balanceAfter) {
+    return Mono.defer(
+        () ->
+            write(
+                List.of(
+                    new Entry(
+                        idGenerator.nextId(),
+                        accountId,
+                        LedgerEntryType.DEPOSIT,
+                        amount,
+                        currency,
+                        balanceAfter,
+                        null))));
+  }
+
+  public Mono<Void> recordWithdrawal(
+      long accountId, AccountCurrency currency, long amount, Long balanceAfter) {
+    return Mono.defer(
+        () ->
+            write(
+                List.of(
+                    new Entry(
+                        idGenerator.nextId(),
+                        accountId,
+                        LedgerEntryType.WITHDRAWAL,
+                        -amount,
+                        currency,
+                        balanceAfter,
+                        null))));
+  }
+
+  /** Records both sides of a transfer; hot accounts get no resulting balance, as in the JPA app. */
+  public Mono<Void> recordTransfer(AccountRecord source, AccountRecord destination, long amount) {
+    return Mono.defer(
+        () -> {
+          long debitId = idGenerator.nextId();
+          return write(
+              List.of(
+                  new Entry(
+                      debitId,
+                      source.getId(),
+                      LedgerEntryType.TRANSFER_DEBIT,
+                      -amount,
+                      source.currency(),
+                      source.isHot() ? null : source.getAmount(),
+                      debitId),
+                  new Entry(
+                      idGenerator.nextId(),
+                      destination.getId(),
+                      LedgerEntryType.TRANSFER_CREDIT,
+                      amount,
+                      destination.currency(),
+                      destination.isHot() ? null : destination.getAmount(),
+                      debitId)));
+        });
+  }
+
+  private Mono<Void> write(List<Entry> entries) {
+    LocalDateTime createdAt = LocalDateTime.now();
+    return databaseClient
+        .inConnectionMany(
+            connection -> {
+              Statement statement = connection.createStatement(INSERT_ENTRY);
+              for (int i = 0; i < entries.size(); i++) {
+                if (i > 0) {
+                  statement.add();
+                }
+                Entry entry = entries.get(i);
+                statement
+                    .bind(0, entry.id)
+                    .bind(1, entry.accountId)
+                    .bind(2, entry.entryType.name())
+                    .bind(3, entry.amount)
+                    .bind(4, entry.currency.name())
+                    .bind(7, createdAt);
+                if (entry.balanceAfter == null) {
+                  statement.bindNull(5, Long.class);
+                } else {
+                  statement.bind(5, entry.balanceAfter);
+                }
+                if (entry.transferId == null) {
+                  statement.bindNull(6, Long.class);
+                } else {
+                  statement.bind(6, entry.transferId);
+                }
+              }
+              return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+            })
+        .then();
+  }
+
+  private static final class Entry {
+    private final long id;
+    private final long accountId;
+    private final LedgerEntryType entryType;
+    private final long amount;
+    private final AccountCurrency currency;
+    private final Long balanceAfter;
+    private final Long transferId;
+
+    private Entry(
+        long id,
+        long accountId,
+        LedgerEntryType entryType,
+        long amount,
+        AccountCurrency currency,
+        Long balanceAfter,
+        Long transferId) {
+      this.id = id;
+      this.accountId = accountId;
+      this.entryType = entryType;
+      this.amount = amount;
+      this.currency = currency;
+      this.balanceAfter = balanceAfter;
+      this.transferId = transferId;
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.skypro.simplebanking.reactive.service;
+
+import com.skypro.simplebanking.dto.TransferRequest;
+import java.util.List;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+@Service
+public class ReactiveTransferService {
+  private final ReactiveAccountService accountService;
+
+  public ReactiveTransferService(ReactiveAccountService accountService) {
+    this.accountService = accountService;
+  }
+
+  /** Runs in one reactive transaction; its connection is held only while statements execute. */
+  @Transactional
+  public Mono<Void> transfer(long id, TransferRequest transferRequest) {
+    return accountService
+        .lockAccounts(
+            List.of(transferRequest.getFromAccountId(), transferRequest.getToAccountId()))
+        .flatMap(accounts -> accountService.applyTransfer(id, transferRequest, accounts));
+  }
+}
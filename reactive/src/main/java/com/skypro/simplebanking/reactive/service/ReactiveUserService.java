@@ -0,0 +1,123 @@
+package com.skypro.simplebanking.reactive.service;
+
+import com.skypro.simplebanking.dto.BankingUserDetails;
+import com.skypro.simplebanking.dto.ListUserDTO;
+import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.dto.UserPageDTO;
+import com.skypro.simplebanking.exception.UserAlreadyExistsException;
+import com.skypro.simplebanking.reactive.repository.ReactiveUserRepository;
+import com.skypro.simplebanking.reactive.repository.UserAccountRecord;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@Service
+public class ReactiveUserService implements ReactiveUserDetailsService {
+  private final ReactiveUserRepository userRepository;
+  private final ReactiveAccountService accountService;
+  private final PasswordEncoder passwordEncoder;
+  private final TransactionalOperator transactionalOperator;
+  private final int maxPageSize;
+
+  public ReactiveUserService(
+      ReactiveUserRepository userRepository,
+      ReactiveAccountService accountService,
+      PasswordEncoder passwordEncoder,
+      TransactionalOperator transactionalOperator,
+      @Value("${app.user.list.max-page-size}") int maxPageSize) {
+    this.userRepository = userRepository;
+    this.accountService = accountService;
+    this.passwordEncoder = passwordEncoder;
+    this.transactionalOperator = transactionalOperator;
+    this.maxPageSize = maxPageSize;
+  }
+
+  @Override
+  public Mono<UserDetails> findByUsername(String username) {
+    return userRepository
+        .findByUsername(username)
+        .map(
+            user ->
+                new BankingUserDetails(
+                    user.getId(), user.getUsername(), user.getPassword(), false));
+  }
+
+  /**
+   * Hashes the password on a worker thread before the transaction starts, so neither an event
+   * loop thread nor a connection waits for BCrypt.
+   */
+  public Mono<UserDTO> createUser(String username, String password) {
+    return userRepository
+        .findByUsername(username)
+        .flatMap(existing -> Mono.<String>error(new UserAlreadyExistsException()))
+        .switchIfEmpty(
+            Mono.fromCallable(() -> passwordEncoder.encode(password))
+                .subscribeOn(Schedulers.boundedElastic()))
+        .flatMap(
+            passwordHash -> transactionalOperator.transactional(insert(username, passwordHash)));
+  }
+
+  public Mono<UserDTO> getUser(long id) {
+    return userRepository
+        .findUserAccountRows(id)
+        .map(UserAccountRecord::toRow)
+        .collectList()
+        .flatMap(
+            rows ->
+                rows.isEmpty()
+                    ? Mono.error(new NoSuchElementException())
+                    : Mono.just(UserDTO.fromRows(rows)));
+  }
+
+  /** Emits users as their rows arrive; served as NDJSON the list is never held in memory. */
+  public Flux<ListUserDTO> listUsers() {
+    return toUsers(userRepository.findAllUserAccountRows());
+  }
+
+  public Mono<UserPageDTO> listUsers(long afterId, int limit) {
+    int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+    return userRepository
+        .findIdsAfter(afterId, pageSize + 1)
+        .collectList()
+        .flatMap(
+            userIds -> {
+              List<Long> pageIds = userIds.subList(0, Math.min(pageSize, userIds.size()));
+              Long nextCursor = userIds.size() > pageSize ? pageIds.get(pageIds.size() - 1) : null;
+              Mono<List<ListUserDTO>> page =
+                  pageIds.isEmpty()
+                      ? Mono.just(List.of())
+                      : toUsers(userRepository.findUserAccountRows(pageIds)).collectList();
+              return page.map(users -> new UserPageDTO(users, nextCursor));
+            });
+  }
+
+  private Mono<UserDTO> insert(String username, String passwordHash) {
+    return userRepository
+        .nextId()
+        .flatMap(
+            id ->
+                userRepository
+                    .insert(id, username, passwordHash)
+                    .thenMany(accountService.createDefaultAccounts(id))
+                    .collectList()
+                    .map(accounts -> new UserDTO(id, username, accounts)));
+  }
+
+  private static Flux<ListUserDTO> toUsers(Flux<UserAccountRecord> records) {
+    return records
+        .bufferUntilChanged(UserAccountRecord::getUserId)
+        .map(
+            rows ->
+                ListUserDTO.fromUserRows(
+                    rows.stream().map(UserAccountRecord::toRow).collect(Collectors.toList())));
+  }
+}
@@ -0,0 +1,126 @@
+package com.skypro.simplebanking.reactive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.skypro.simplebanking.dto.BalanceChangeRequest;
+import com.skypro.simplebanking.dto.CreateUserRequest;
+import com.skypro.simplebanking.dto.TransferRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@Testcontainers
+class ReactiveBankingApplicationTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://" + postgres.getHost() + ":"
+                + postgres.getFirstMappedPort() + "/" + postgres.getDatabaseName());
+        registry.add("spring.r2dbc.username", postgres::getUsername);
+        registry.add("spring.r2dbc.password", postgres::getPassword);
+        registry.add("spring.sql.init.mode", () -> "always");
+        // The JPA application's Flyway migration, shipped in the simple-banking jar.
+        registry.add("spring.sql.init.schema-locations",
+                () -> "classpath:db/migration/V1__baseline_schema.sql");
+    }
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Value("${app.security.admin-token}")
+    private String adminToken;
+
+    @Test
+    void testDepositAndTransferBetweenUsers() {
+        JsonNode alice = createUser("alice");
+        JsonNode bob = createUser("bob");
+        long aliceUsdAccount = alice.get("accounts").get(0).get("id").asLong();
+        long bobUsdAccount = bob.get("accounts").get(0).get("id").asLong();
+
+        BalanceChangeRequest deposit = new BalanceChangeRequest();
+        deposit.setAmount(100);
+        webTestClient.post()
+                .uri("/account/deposit/{id}", aliceUsdAccount)
+                .headers(headers -> headers.setBasicAuth("alice", "secret"))
+                .bodyValue(deposit)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.amount").isEqualTo(101);
+
+        TransferRequest transfer = new TransferRequest();
+        transfer.setFromAccountId(aliceUsdAccount);
+        transfer.setToUserId(bob.get("id").asLong());
+        transfer.setToAccountId(bobUsdAccount);
+        transfer.setAmount(50);
+        webTestClient.post()
+                .uri("/transfer")
+                .headers(headers -> headers.setBasicAuth("alice", "secret"))
+                .bodyValue(transfer)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get()
+                .uri("/account/{id}", bobUsdAccount)
+                .headers(headers -> headers.setBasicAuth("bob", "secret"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.amount").isEqualTo(51);
+
+        BalanceChangeRequest withdrawal = new BalanceChangeRequest();
+        withdrawal.setAmount(1000);
+        webTestClient.post()
+                .uri("/account/withdraw/{id}", aliceUsdAccount)
+                .headers(headers -> headers.setBasicAuth("alice", "secret"))
+                .bodyValue(withdrawal)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient.get()
+                .uri("/user/me")
+                .headers(headers -> headers.setBasicAuth("alice", "secret"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.accounts[0].amount").isEqualTo(51);
+    }
+
+    @Test
+    void testCreateUserRequiresAdminKey() {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUsername("mallory");
+        request.setPassword("secret");
+        webTestClient.post()
+                .uri("/user")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    private JsonNode createUser(String username) {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUsername(username);
+        request.setPassword("secret");
+        return webTestClient.post()
+                .uri("/user")
+                .header("X-SECURITY-ADMIN-KEY", adminToken)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(JsonNode.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
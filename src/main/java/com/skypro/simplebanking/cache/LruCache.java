@@ -0,0 +1,106 @@
+package com.skypro.simplebanking.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Small bounded in-process cache: least recently used entries are evicted once {@code maxSize}
+ * is reached and every entry expires {@code ttl} after it was written.
+ */
+public class LruCache<K, V> {
+  private final int maxSize;
+  private final long ttlNanos;
+  private final LinkedHashMap<K, Entry<V>> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public LruCache(int maxSize, Duration ttl) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize should be more than 0");
+    }
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  public Optional<V> get(K key) {
+    long now = System.nanoTime();
+    synchronized (entries) {
+      Entry<V> entry = entries.get(key);
+      if (entry == null) {
+        misses.increment();
+        return Optional.empty();
+      }
+      if (entry.isExpired(now)) {
+        entries.remove(key);
+        evictions.increment();
+        misses.increment();
+        return Optional.empty();
+      }
+      hits.increment();
+      return Optional.of(entry.value);
+    }
+  }
+
+  public void put(K key, V value) {
+    Entry<V> entry = new Entry<>(value, System.nanoTime() + ttlNanos);
+    synchronized (entries) {
+      entries.put(key, entry);
+      if (entries.size() > maxSize) {
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        eldest.next();
+        eldest.remove();
+        evictions.increment();
+      }
+    }
+  }
+
+  public void invalidate(K key) {
+    synchronized (entries) {
+      entries.remove(key);
+    }
+  }
+
+  public void invalidateAll() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  private static final class Entry<V> {
+    private final V value;
+    private final long expiresAtNanos;
+
+    private Entry(V value, long expiresAtNanos) {
+      this.value = value;
+      this.expiresAtNanos = expiresAtNanos;
+    }
+
+    private boolean isExpired(long now) {
+      return now - expiresAtNanos >= 0;
+    }
+  }
+}
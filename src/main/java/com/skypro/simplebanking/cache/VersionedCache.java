@@ -0,0 +1,77 @@
+package com.skypro.simplebanking.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * {@link LruCache} that is safe to fill from a database read racing with a write. Every key hashes
+ * to a stripe with a version; {@link #invalidate} bumps it, and a value loaded while the version
+ * moved is returned to the caller but not cached. Without this a reader could load a balance just
+ * before a write commits and cache it just after the write invalidated the key.
+ */
+public class VersionedCache<K, V> {
+  private static final int STRIPES = 64;
+
+  private final LruCache<K, V> cache;
+  private final long[] versions = new long[STRIPES];
+
+  public VersionedCache(int maxSize, Duration ttl) {
+    this.cache = new LruCache<>(maxSize, ttl);
+  }
+
+  public Optional<V> get(K key) {
+    return cache.get(key);
+  }
+
+  public V get(K key, Supplier<V> loader) {
+    Optional<V> cached = cache.get(key);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+    int stripe = stripeOf(key);
+    long version = version(stripe);
+    V value = loader.get();
+    synchronized (versions) {
+      if (versions[stripe] == version) {
+        cache.put(key, value);
+      }
+    }
+    return value;
+  }
+
+  public void invalidate(K key) {
+    int stripe = stripeOf(key);
+    synchronized (versions) {
+      versions[stripe]++;
+      cache.invalidate(key);
+    }
+  }
+
+  public int size() {
+    return cache.size();
+  }
+
+  public long getHits() {
+    return cache.getHits();
+  }
+
+  public long getMisses() {
+    return cache.getMisses();
+  }
+
+  public long getEvictions() {
+    return cache.getEvictions();
+  }
+
+  private long version(int stripe) {
+    synchronized (versions) {
+      return versions[stripe];
+    }
+  }
+
+  private static int stripeOf(Object key) {
+    int hash = key.hashCode();
+    return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+  }
+}
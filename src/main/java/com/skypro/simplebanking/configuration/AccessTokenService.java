@@ -0,0 +1,104 @@
+package com.skypro.simplebanking.configuration;
+
+import com.skypro.simplebanking.dto.AccessTokenDTO;
+import com.skypro.simplebanking.dto.BankingUserDetails;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Issues and verifies self-contained access tokens of the form {@code payload.signature}, where
+ * the payload is {@code id:admin:expiresAt:username} and the signature is its HMAC-SHA256.
+ */
+@Component
+public class AccessTokenService {
+  private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private final SecretKeySpec signingKey;
+  private final Duration ttl;
+  private final Clock clock;
+  private final ThreadLocal<Mac> macs;
+
+  public AccessTokenService(
+      @Value("${app.security.token-secret}") String secret,
+      @Value("${app.security.token-ttl}") Duration ttl) {
+    this.signingKey =
+        new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SIGNATURE_ALGORITHM);
+    this.ttl = ttl;
+    this.clock = Clock.systemUTC();
+    this.macs = ThreadLocal.withInitial(this::createMac);
+  }
+
+  public AccessTokenDTO issue(BankingUserDetails userDetails) {
+    Instant expiresAt = clock.instant().plus(ttl);
+    String payload =
+        userDetails.getId()
+            + ":"
+            + userDetails.isAdmin()
+            + ":"
+            + expiresAt.getEpochSecond()
+            + ":"
+            + userDetails.getUsername();
+    byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+    String token =
+        ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    return new AccessTokenDTO(token, expiresAt);
+  }
+
+  public Optional<BankingUserDetails> verify(String token) {
+    int separator = token.indexOf('.');
+    if (separator <= 0) {
+      return Optional.empty();
+    }
+    byte[] payloadBytes;
+    byte[] signature;
+    try {
+      payloadBytes = DECODER.decode(token.substring(0, separator));
+      signature = DECODER.decode(token.substring(separator + 1));
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+    if (!MessageDigest.isEqual(signature, sign(payloadBytes))) {
+      return Optional.empty();
+    }
+    String[] claims = new String(payloadBytes, StandardCharsets.UTF_8).split(":", 4);
+    if (claims.length != 4) {
+      return Optional.empty();
+    }
+    try {
+      if (clock.instant().getEpochSecond() >= Long.parseLong(claims[2])) {
+        return Optional.empty();
+      }
+      return Optional.of(
+          new BankingUserDetails(
+              Long.parseLong(claims[0]), claims[3], "****", Boolean.parseBoolean(claims[1])));
+    } catch (NumberFormatException e) {
+      return Optional.empty();
+    }
+  }
+
+  private byte[] sign(byte[] payload) {
+    return macs.get().doFinal(payload);
+  }
+
+  private Mac createMac() {
+    try {
+      Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+      mac.init(signingKey);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.skypro.simplebanking.configuration;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * CBOR ({@code application/cbor}) and Smile ({@code application/x-jackson-smile}) request and
+ * response bodies for high-volume internal clients, negotiated through {@code Content-Type} and
+ * {@code Accept}. The mappers come from Spring Boot's builder, so they follow the same {@code
+ * spring.jackson.*} settings as JSON. Boot puts these beans where its default binary converters
+ * would go, after the JSON one, so JSON stays the default for wildcard or missing {@code Accept}.
+ */
+@Configuration
+public class BinaryFormatsConfiguration {
+  public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+      Jackson2ObjectMapperBuilder objectMapperBuilder) {
+    return new MappingJackson2CborHttpMessageConverter(
+        objectMapperBuilder.factory(new CBORFactory()).build());
+  }
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+      Jackson2ObjectMapperBuilder objectMapperBuilder) {
+    return new MappingJackson2SmileHttpMessageConverter(
+        objectMapperBuilder.factory(new SmileFactory()).build());
+  }
+}
@@ -0,0 +1,42 @@
+package com.skypro.simplebanking.configuration;
+
+import java.util.Optional;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CachingAuthenticationProvider extends DaoAuthenticationProvider {
+  private final VerifiedCredentialCache credentialCache;
+
+  public CachingAuthenticationProvider(
+      UserDetailsService userDetailsService,
+      PasswordEncoder passwordEncoder,
+      VerifiedCredentialCache credentialCache) {
+    this.credentialCache = credentialCache;
+    setUserDetailsService(userDetailsService);
+    setPasswordEncoder(passwordEncoder);
+  }
+
+  @Override
+  public Authentication authenticate(Authentication authentication)
+      throws AuthenticationException {
+    String username = authentication.getName();
+    Object credentials = authentication.getCredentials();
+    if (credentials == null) {
+      return super.authenticate(authentication);
+    }
+    String presentedPassword = credentials.toString();
+    Optional<UserDetails> verifiedUser = credentialCache.lookup(username, presentedPassword);
+    if (verifiedUser.isPresent()) {
+      return createSuccessAuthentication(verifiedUser.get(), authentication, verifiedUser.get());
+    }
+    Authentication result = super.authenticate(authentication);
+    credentialCache.store(username, presentedPassword, (UserDetails) result.getPrincipal());
+    return result;
+  }
+}
@@ -0,0 +1,19 @@
+package com.skypro.simplebanking.configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Service-level metrics on top of what Actuator records on its own: HTTP requests, Spring Data
+ * repository invocations, HikariCP and Hibernate statistics.
+ */
+@Configuration
+public class MetricsConfiguration {
+  /** Makes {@link io.micrometer.core.annotation.Timed} work on service methods. */
+  @Bean
+  public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+    return new TimedAspect(meterRegistry);
+  }
+}
@@ -1,5 +1,9 @@
 package com.skypro.simplebanking.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -15,13 +19,15 @@ import org.springframework.security.web.authentication.AnonymousAuthenticationFi
 @EnableWebSecurity
 public class SecurityConfiguration {
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 
     @Bean
     public SecurityFilterChain httpSecurity(
-            HttpSecurity httpSecurity, AdminSecurityFilter adminSecurityFilter) throws Exception {
+            HttpSecurity httpSecurity,
+            AdminSecurityFilter adminSecurityFilter,
+            AccessTokenFilter accessTokenFilter) throws Exception {
         return httpSecurity
                 .csrf()
                 .disable()
@@ -39,6 +45,11 @@ public class SecurityConfiguration {
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 .and()
                 .authorizeHttpRequests()
+                .requestMatchers(
+                        EndpointRequest.to(HealthEndpoint.class, PrometheusScrapeEndpoint.class))
+                .permitAll()
+                .requestMatchers(EndpointRequest.toAnyEndpoint())
+                .hasRole("ADMIN")
                 .antMatchers(HttpMethod.POST, "/user/")
                 .hasRole("ADMIN")
                 .antMatchers("/user/*")
@@ -47,10 +58,15 @@ public class SecurityConfiguration {
                 .hasRole("USER")
                 .antMatchers("/transfer/**")
                 .hasRole("USER")
+                .antMatchers(HttpMethod.POST, "/token")
+                .hasRole("USER")
+                .antMatchers("/admin/**")
+                .hasRole("ADMIN")
                 .anyRequest()
                 .authenticated()
                 .and()
                 .addFilterBefore(adminSecurityFilter, AnonymousAuthenticationFilter.class)
+                .addFilterBefore(accessTokenFilter, AnonymousAuthenticationFilter.class)
                 .build();
     }
 }
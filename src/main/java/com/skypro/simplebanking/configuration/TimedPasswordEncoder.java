@@ -0,0 +1,45 @@
+package com.skypro.simplebanking.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Times every BCrypt hash and verification. Verification runs for each Basic-authenticated
+ * request that misses {@link VerifiedCredentialCache}, so this is where CPU saturation shows first.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+  private final PasswordEncoder delegate;
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+
+  public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.encodeTimer =
+        Timer.builder("banking.password.encode")
+            .description("Time spent hashing passwords")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    this.matchesTimer =
+        Timer.builder("banking.password.verify")
+            .description("Time spent verifying passwords during authentication")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return encodeTimer.record(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    Boolean matches = matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword));
+    return Boolean.TRUE.equals(matches);
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+}
@@ -0,0 +1,92 @@
+package com.skypro.simplebanking.configuration;
+
+import com.skypro.simplebanking.cache.LruCache;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers credentials that already passed BCrypt verification. Only an HMAC of the presented
+ * password is kept, keyed with a random per-process secret, so the plaintext never stays in heap.
+ */
+@Component
+public class VerifiedCredentialCache {
+  private static final String DIGEST_ALGORITHM = "HmacSHA256";
+
+  private final LruCache<String, VerifiedCredential> credentials;
+  private final SecretKeySpec digestKey;
+  private final ThreadLocal<Mac> macs;
+
+  public VerifiedCredentialCache(
+      @Value("${app.security.credential-cache.max-size}") int maxSize,
+      @Value("${app.security.credential-cache.ttl}") Duration ttl) {
+    this.credentials = new LruCache<>(maxSize, ttl);
+    byte[] key = new byte[32];
+    new SecureRandom().nextBytes(key);
+    this.digestKey = new SecretKeySpec(key, DIGEST_ALGORITHM);
+    this.macs = ThreadLocal.withInitial(this::createMac);
+  }
+
+  public Optional<UserDetails> lookup(String username, String presentedPassword) {
+    return credentials
+        .get(username)
+        .filter(credential -> MessageDigest.isEqual(credential.digest, digest(presentedPassword)))
+        .map(credential -> credential.userDetails);
+  }
+
+  public void store(String username, String presentedPassword, UserDetails userDetails) {
+    credentials.put(username, new VerifiedCredential(digest(presentedPassword), userDetails));
+  }
+
+  public void invalidate(String username) {
+    credentials.invalidate(username);
+  }
+
+  public int size() {
+    return credentials.size();
+  }
+
+  public long getHits() {
+    return credentials.getHits();
+  }
+
+  public long getMisses() {
+    return credentials.getMisses();
+  }
+
+  public long getEvictions() {
+    return credentials.getEvictions();
+  }
+
+  private byte[] digest(String presentedPassword) {
+    return macs.get().doFinal(presentedPassword.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private Mac createMac() {
+    try {
+      Mac mac = Mac.getInstance(DIGEST_ALGORITHM);
+      mac.init(digestKey);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class VerifiedCredential {
+    private final byte[] digest;
+    private final UserDetails userDetails;
+
+    private VerifiedCredential(byte[] digest, UserDetails userDetails) {
+      this.digest = digest;
+      this.userDetails = userDetails;
+    }
+  }
+}
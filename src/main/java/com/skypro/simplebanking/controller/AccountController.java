@@ -1,9 +1,14 @@
 package com.skypro.simplebanking.controller;
 
 import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.AccountStatementDTO;
 import com.skypro.simplebanking.dto.BalanceChangeRequest;
 import com.skypro.simplebanking.dto.BankingUserDetails;
 import com.skypro.simplebanking.service.AccountService;
+import com.skypro.simplebanking.service.IdempotencyService;
+import com.skypro.simplebanking.service.StatementService;
+import java.time.Instant;
+import java.util.List;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
@@ -11,9 +16,15 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/account")
 public class AccountController {
   private final AccountService accountService;
+  private final IdempotencyService idempotencyService;
+  private final StatementService statementService;
 
-  public AccountController(AccountService accountService) {
+  public AccountController(AccountService accountService,
+                           IdempotencyService idempotencyService,
+                           StatementService statementService) {
     this.accountService = accountService;
+    this.idempotencyService = idempotencyService;
+    this.statementService = statementService;
   }
 
   @GetMapping("/{id}")
@@ -22,19 +33,70 @@ public class AccountController {
     return accountService.getAccount(bankingUserDetails.getId(), accountId);
   }
 
+  @GetMapping(value = "/{id}", params = "at")
+  public AccountDTO getUserAccountBalanceAt(Authentication authentication,
+                                            @PathVariable("id") Long accountId,
+                                            @RequestParam("at") Instant at) {
+    BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
+    return statementService.getBalanceAt(bankingUserDetails.getId(), accountId, at);
+  }
+
+  @GetMapping("/{id}/statement")
+  public AccountStatementDTO getStatement(Authentication authentication,
+                                          @PathVariable("id") Long accountId,
+                                          @RequestParam(value = "from", required = false) Instant from,
+                                          @RequestParam(value = "to", required = false) Instant to,
+                                          @RequestParam(value = "after", required = false) String cursor,
+                                          @RequestParam(value = "limit", defaultValue = "100") int limit) {
+    BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
+    return statementService.getStatement(
+        bankingUserDetails.getId(),
+        accountId,
+        from == null ? Instant.EPOCH : from,
+        to == null ? Instant.now() : to,
+        cursor,
+        limit);
+  }
+
   @PostMapping("/deposit/{id}")
   public AccountDTO depositToAccount(Authentication authentication,
                                      @PathVariable("id") Long accountId,
-                                     @RequestBody BalanceChangeRequest balanceChangeRequest){
+                                     @RequestBody BalanceChangeRequest balanceChangeRequest,
+                                     @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false)
+                                         String idempotencyKey){
     BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
-    return accountService.depositToAccount(bankingUserDetails.getId(),accountId, balanceChangeRequest.getAmount());
+    if (idempotencyKey == null) {
+      return accountService.depositToAccount(bankingUserDetails.getId(),accountId, balanceChangeRequest.getAmount());
+    }
+    return idempotencyService.execute(
+        bankingUserDetails.getId(),
+        "deposit",
+        idempotencyKey,
+        List.of(accountId, balanceChangeRequest),
+        AccountDTO.class,
+        () ->
+            accountService.depositToAccount(
+                bankingUserDetails.getId(), accountId, balanceChangeRequest.getAmount()));
   }
 
   @PostMapping("/withdraw/{id}")
   public AccountDTO withdrawFromAccount(Authentication authentication,
                                      @PathVariable("id") Long accountId,
-                                     @RequestBody BalanceChangeRequest balanceChangeRequest){
+                                     @RequestBody BalanceChangeRequest balanceChangeRequest,
+                                     @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false)
+                                         String idempotencyKey){
     BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
-    return accountService.withdrawFromAccount(bankingUserDetails.getId(),accountId, balanceChangeRequest.getAmount());
+    if (idempotencyKey == null) {
+      return accountService.withdrawFromAccount(bankingUserDetails.getId(),accountId, balanceChangeRequest.getAmount());
+    }
+    return idempotencyService.execute(
+        bankingUserDetails.getId(),
+        "withdraw",
+        idempotencyKey,
+        List.of(accountId, balanceChangeRequest),
+        AccountDTO.class,
+        () ->
+            accountService.withdrawFromAccount(
+                bankingUserDetails.getId(), accountId, balanceChangeRequest.getAmount()));
   }
 }
@@ -0,0 +1,113 @@
+package com.skypro.simplebanking.controller;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypro.simplebanking.configuration.VerifiedCredentialCache;
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.CacheStatsDTO;
+import com.skypro.simplebanking.dto.CreateUserRequest;
+import com.skypro.simplebanking.dto.UserProvisioningResultDTO;
+import com.skypro.simplebanking.service.AccountService;
+import com.skypro.simplebanking.service.ExportService;
+import com.skypro.simplebanking.service.UserAccountCache;
+import com.skypro.simplebanking.service.UserProvisioningService;
+import com.skypro.simplebanking.sharding.ShardDirectory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+  private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+  private final ExportService exportService;
+  private final AccountService accountService;
+  private final UserAccountCache userAccountCache;
+  private final VerifiedCredentialCache verifiedCredentialCache;
+  private final UserProvisioningService userProvisioningService;
+  private final ShardDirectory shardDirectory;
+  private final ObjectMapper objectMapper;
+
+  public AdminController(
+      ExportService exportService,
+      AccountService accountService,
+      UserAccountCache userAccountCache,
+      VerifiedCredentialCache verifiedCredentialCache,
+      UserProvisioningService userProvisioningService,
+      ObjectProvider<ShardDirectory> shardDirectory,
+      ObjectMapper objectMapper) {
+    this.exportService = exportService;
+    this.accountService = accountService;
+    this.userAccountCache = userAccountCache;
+    this.verifiedCredentialCache = verifiedCredentialCache;
+    this.userProvisioningService = userProvisioningService;
+    this.shardDirectory = shardDirectory.getIfAvailable();
+    this.objectMapper = objectMapper;
+  }
+
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportUserAccounts(
+      @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+    if (!gzip) {
+      return ResponseEntity.ok().body(exportService::exportUserAccounts);
+    }
+    return ResponseEntity.ok()
+        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+        .body(
+            outputStream -> {
+              // Closing on failure too releases the deflater's native memory right away.
+              try (GZIPOutputStream gzipOutputStream =
+                  new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE)) {
+                exportService.exportUserAccounts(gzipOutputStream);
+              }
+            });
+  }
+
+  /** Accepts either a JSON array or NDJSON; the body is read incrementally, chunk by chunk. */
+  @PostMapping(
+      value = "/users",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<UserProvisioningResultDTO> provisionUsers(InputStream body) throws IOException {
+    try (MappingIterator<CreateUserRequest> requests =
+        objectMapper.readerFor(CreateUserRequest.class).readValues(body)) {
+      return userProvisioningService.provisionUsers(requests);
+    }
+  }
+
+  @GetMapping("/cache-stats")
+  public List<CacheStatsDTO> getCacheStats() {
+    List<CacheStatsDTO> stats = new ArrayList<>(userAccountCache.getStats());
+    stats.add(
+        new CacheStatsDTO(
+            "verifiedCredentials",
+            verifiedCredentialCache.size(),
+            verifiedCredentialCache.getHits(),
+            verifiedCredentialCache.getMisses(),
+            verifiedCredentialCache.getEvictions()));
+    return stats;
+  }
+
+  @PostMapping("/accounts/{accountId}/slots")
+  public AccountDTO setAccountSlots(
+      @PathVariable("accountId") long accountId, @RequestParam("count") int slotCount) {
+    if (shardDirectory == null) {
+      return accountService.setSlotCount(accountId, slotCount);
+    }
+    return shardDirectory.onShardOfAccount(
+        accountId, () -> accountService.setSlotCount(accountId, slotCount));
+  }
+}
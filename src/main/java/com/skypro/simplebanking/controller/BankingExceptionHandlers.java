@@ -1,34 +1,86 @@
 package com.skypro.simplebanking.controller;
 
 import com.skypro.simplebanking.exception.*;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 @ControllerAdvice
 public class BankingExceptionHandlers {
+  private final MeterRegistry meterRegistry;
+
+  public BankingExceptionHandlers(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
   @ExceptionHandler(value = {AccountNotFoundException.class})
   public ResponseEntity<?> handleAccountNotFound() {
+    count(AccountNotFoundException.class);
     return ResponseEntity.notFound().build();
   }
 
   @ExceptionHandler(value = {InsufficientFundsException.class})
   public ResponseEntity<?> handleInsufficientFunds(InsufficientFundsException exception) {
+    count(InsufficientFundsException.class);
     return ResponseEntity.badRequest().body(exception.getMessage());
   }
 
   @ExceptionHandler(value = {UserAlreadyExistsException.class})
   public ResponseEntity<?> handleUserAlreadyExists() {
+    count(UserAlreadyExistsException.class);
     return ResponseEntity.badRequest().build();
   }
 
   @ExceptionHandler(value = {InvalidAmountException.class})
   public ResponseEntity<?> handleInvalidAmount() {
+    count(InvalidAmountException.class);
     return ResponseEntity.badRequest().body("Amount should be more than 0");
   }
 
   @ExceptionHandler(value = {WrongCurrencyException.class})
   public ResponseEntity<?> handleWrongCurrency() {
+    count(WrongCurrencyException.class);
     return ResponseEntity.badRequest().body("Account currencies should be same");
   }
+
+  @ExceptionHandler(value = {AtomicBatchNotSupportedException.class})
+  public ResponseEntity<?> handleAtomicBatchNotSupported() {
+    count(AtomicBatchNotSupportedException.class);
+    return ResponseEntity.badRequest()
+        .body(
+            "Atomic batches are not available with the balance engine or across shards");
+  }
+
+  @ExceptionHandler(value = {InvalidStatementRequestException.class})
+  public ResponseEntity<?> handleInvalidStatementRequest() {
+    count(InvalidStatementRequestException.class);
+    return ResponseEntity.badRequest()
+        .body("Statement range should end after it starts, and the cursor should be unchanged");
+  }
+
+  @ExceptionHandler(value = {StatementsNotSupportedException.class})
+  public ResponseEntity<?> handleStatementsNotSupported() {
+    count(StatementsNotSupportedException.class);
+    return ResponseEntity.badRequest()
+        .body("Statements and historical balances are not available with the balance engine");
+  }
+
+  @ExceptionHandler(value = {InvalidSlotCountException.class})
+  public ResponseEntity<?> handleInvalidSlotCount() {
+    count(InvalidSlotCountException.class);
+    return ResponseEntity.badRequest()
+        .body("Slot count should be between 0 and 256, and 0 while the balance engine is enabled");
+  }
+
+  @ExceptionHandler(value = {IdempotencyKeyReusedException.class})
+  public ResponseEntity<?> handleIdempotencyKeyReused() {
+    count(IdempotencyKeyReusedException.class);
+    return ResponseEntity.unprocessableEntity()
+        .body("Idempotency key was already used with a different request");
+  }
+
+  private void count(Class<? extends RuntimeException> exceptionType) {
+    meterRegistry.counter("banking.errors", "exception", exceptionType.getSimpleName()).increment();
+  }
 }
@@ -0,0 +1,25 @@
+package com.skypro.simplebanking.controller;
+
+import com.skypro.simplebanking.configuration.AccessTokenService;
+import com.skypro.simplebanking.dto.AccessTokenDTO;
+import com.skypro.simplebanking.dto.BankingUserDetails;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/token")
+public class TokenController {
+  private final AccessTokenService accessTokenService;
+
+  public TokenController(AccessTokenService accessTokenService) {
+    this.accessTokenService = accessTokenService;
+  }
+
+  @PostMapping
+  public AccessTokenDTO issueToken(Authentication authentication) {
+    BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
+    return accessTokenService.issue(bankingUserDetails);
+  }
+}
@@ -1,27 +1,82 @@
 package com.skypro.simplebanking.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypro.simplebanking.configuration.BinaryFormatsConfiguration;
 import com.skypro.simplebanking.dto.BankingUserDetails;
 import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.dto.TransferResultDTO;
+import com.skypro.simplebanking.service.IdempotencyService;
 import com.skypro.simplebanking.service.TransferService;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/transfer")
 public class TransferController {
   private final TransferService transferService;
+  private final IdempotencyService idempotencyService;
+  private final ObjectMapper objectMapper;
 
-  public TransferController(TransferService transferService) {
+  public TransferController(
+      TransferService transferService,
+      IdempotencyService idempotencyService,
+      ObjectMapper objectMapper) {
     this.transferService = transferService;
+    this.idempotencyService = idempotencyService;
+    this.objectMapper = objectMapper;
   }
 
   @PostMapping
   public void transfer(
-      Authentication authentication, @RequestBody TransferRequest transferRequest) {
+      Authentication authentication,
+      @RequestBody TransferRequest transferRequest,
+      @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false)
+          String idempotencyKey) {
     BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
-    transferService.transfer(bankingUserDetails.getId(), transferRequest);
+    if (idempotencyKey == null) {
+      transferService.transfer(bankingUserDetails.getId(), transferRequest);
+      return;
+    }
+    transferService.transfer(
+        bankingUserDetails.getId(),
+        transferRequest,
+        idempotencyService.key(
+            bankingUserDetails.getId(), "transfer", idempotencyKey, transferRequest));
+  }
+
+  @PostMapping(
+      value = "/batch",
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        BinaryFormatsConfiguration.APPLICATION_SMILE_VALUE
+      })
+  public List<TransferResultDTO> transferBatch(
+      Authentication authentication,
+      @RequestBody List<TransferRequest> transferRequests,
+      @RequestParam(value = "atomic", defaultValue = "false") boolean atomic) {
+    BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
+    return transferService.transferBatch(bankingUserDetails.getId(), transferRequests, atomic);
+  }
+
+  @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public List<TransferResultDTO> transferBatchNdjson(
+      Authentication authentication,
+      InputStream body,
+      @RequestParam(value = "atomic", defaultValue = "false") boolean atomic)
+      throws IOException {
+    BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
+    List<TransferRequest> transferRequests =
+        objectMapper.readerFor(TransferRequest.class).<TransferRequest>readValues(body).readAll();
+    return transferService.transferBatch(bankingUserDetails.getId(), transferRequests, atomic);
   }
 }
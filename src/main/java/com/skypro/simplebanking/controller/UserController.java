@@ -1,24 +1,32 @@
 package com.skypro.simplebanking.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.skypro.simplebanking.dto.BankingUserDetails;
 import com.skypro.simplebanking.dto.CreateUserRequest;
 import com.skypro.simplebanking.dto.ListUserDTO;
 import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.dto.UserPageDTO;
 import javax.validation.Valid;
 
 import com.skypro.simplebanking.service.UserService;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/user")
 public class UserController {
   private final UserService userService;
+  private final ObjectMapper objectMapper;
 
-  public UserController(UserService userService) {
+  public UserController(UserService userService, ObjectMapper objectMapper) {
     this.userService = userService;
+    this.objectMapper = objectMapper;
   }
 
   @PostMapping
@@ -29,6 +37,24 @@ public class UserController {
   public List<ListUserDTO> getAllUsers(){
     return userService.listUsers();
   }
+  @GetMapping(value = "/list", params = "limit")
+  public UserPageDTO getUsersPage(@RequestParam(value = "after", defaultValue = "0") long afterId,
+                                  @RequestParam("limit") int limit){
+    return userService.listUsers(afterId, limit);
+  }
+  @GetMapping(value = "/list", params = "stream=true", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public StreamingResponseBody streamAllUsers(){
+    return outputStream ->
+        userService.streamUsers(
+            user -> {
+              try {
+                outputStream.write(objectMapper.writeValueAsBytes(user));
+                outputStream.write('\n');
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+  }
   @GetMapping("/me")
   public UserDTO getMyProfile(Authentication authentication){
     BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
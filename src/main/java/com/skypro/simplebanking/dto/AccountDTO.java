@@ -27,6 +27,7 @@ public class AccountDTO {
   }
 
   public static AccountDTO from(Account account) {
-    return new AccountDTO(account.getId(), account.getAmount(), account.getAccountCurrency());
+    return new AccountDTO(
+        account.getId(), account.getTotalAmount(), account.getAccountCurrency());
   }
 }
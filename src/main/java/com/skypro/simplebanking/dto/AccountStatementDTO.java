@@ -0,0 +1,49 @@
+package com.skypro.simplebanking.dto;
+
+import com.skypro.simplebanking.entity.AccountCurrency;
+import java.util.List;
+
+/**
+ * One page of an account's movements, oldest first. {@code openingBalance} is the balance before
+ * the first entry of the page; pass {@code nextCursor} as {@code after} to get the next page.
+ */
+public class AccountStatementDTO {
+  private final long accountId;
+  private final AccountCurrency currency;
+  private final long openingBalance;
+  private final List<StatementEntryDTO> entries;
+  private final String nextCursor;
+
+  public AccountStatementDTO(
+      long accountId,
+      AccountCurrency currency,
+      long openingBalance,
+      List<StatementEntryDTO> entries,
+      String nextCursor) {
+    this.accountId = accountId;
+    this.currency = currency;
+    this.openingBalance = openingBalance;
+    this.entries = entries;
+    this.nextCursor = nextCursor;
+  }
+
+  public long getAccountId() {
+    return accountId;
+  }
+
+  public AccountCurrency getCurrency() {
+    return currency;
+  }
+
+  public long getOpeningBalance() {
+    return openingBalance;
+  }
+
+  public List<StatementEntryDTO> getEntries() {
+    return entries;
+  }
+
+  public String getNextCursor() {
+    return nextCursor;
+  }
+}
@@ -0,0 +1,42 @@
+package com.skypro.simplebanking.dto;
+
+public class CacheStatsDTO {
+  private final String name;
+  private final int size;
+  private final long hits;
+  private final long misses;
+  private final long evictions;
+
+  public CacheStatsDTO(String name, int size, long hits, long misses, long evictions) {
+    this.name = name;
+    this.size = size;
+    this.hits = hits;
+    this.misses = misses;
+    this.evictions = evictions;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  public long getEvictions() {
+    return evictions;
+  }
+
+  public double getHitRate() {
+    long lookups = hits + misses;
+    return lookups == 0 ? 0.0 : (double) hits / lookups;
+  }
+}
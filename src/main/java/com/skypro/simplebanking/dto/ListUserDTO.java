@@ -1,6 +1,7 @@
 package com.skypro.simplebanking.dto;
 
 import com.skypro.simplebanking.entity.User;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -34,4 +35,27 @@ public class ListUserDTO {
         user.getUsername(),
         user.getAccounts().stream().map(ListAccountDTO::from).collect(Collectors.toList()));
   }
+
+  public static List<ListUserDTO> fromRows(List<UserAccountRow> rows) {
+    List<ListUserDTO> users = new ArrayList<>();
+    int from = 0;
+    for (int i = 1; i <= rows.size(); i++) {
+      if (i == rows.size() || rows.get(i).getUserId() != rows.get(from).getUserId()) {
+        users.add(fromUserRows(rows.subList(from, i)));
+        from = i;
+      }
+    }
+    return users;
+  }
+
+  public static ListUserDTO fromUserRows(List<UserAccountRow> rows) {
+    UserAccountRow first = rows.get(0);
+    return new ListUserDTO(
+        first.getUserId(),
+        first.getUsername(),
+        rows.stream()
+            .filter(UserAccountRow::hasAccount)
+            .map(row -> new ListAccountDTO(row.getAccountId(), row.getCurrency()))
+            .collect(Collectors.toList()));
+  }
 }
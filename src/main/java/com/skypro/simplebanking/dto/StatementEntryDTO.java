@@ -0,0 +1,60 @@
+package com.skypro.simplebanking.dto;
+
+import com.skypro.simplebanking.entity.LedgerEntryType;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public class StatementEntryDTO {
+  private final long id;
+  private final LedgerEntryType type;
+  private final long amount;
+  private final long balanceAfter;
+  private final Long transferId;
+  private final BigDecimal fxRate;
+  private final Instant createdAt;
+
+  public StatementEntryDTO(
+      long id,
+      LedgerEntryType type,
+      long amount,
+      long balanceAfter,
+      Long transferId,
+      BigDecimal fxRate,
+      Instant createdAt) {
+    this.id = id;
+    this.type = type;
+    this.amount = amount;
+    this.balanceAfter = balanceAfter;
+    this.transferId = transferId;
+    this.fxRate = fxRate;
+    this.createdAt = createdAt;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public LedgerEntryType getType() {
+    return type;
+  }
+
+  public long getAmount() {
+    return amount;
+  }
+
+  public long getBalanceAfter() {
+    return balanceAfter;
+  }
+
+  public Long getTransferId() {
+    return transferId;
+  }
+
+  public BigDecimal getFxRate() {
+    return fxRate;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+}
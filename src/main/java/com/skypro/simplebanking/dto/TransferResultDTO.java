@@ -0,0 +1,19 @@
+package com.skypro.simplebanking.dto;
+
+public class TransferResultDTO {
+  private final int index;
+  private final TransferStatus status;
+
+  public TransferResultDTO(int index, TransferStatus status) {
+    this.index = index;
+    this.status = status;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public TransferStatus getStatus() {
+    return status;
+  }
+}
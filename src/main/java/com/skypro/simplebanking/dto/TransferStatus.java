@@ -0,0 +1,10 @@
+package com.skypro.simplebanking.dto;
+
+public enum TransferStatus {
+  OK,
+  INSUFFICIENT_FUNDS,
+  WRONG_CURRENCY,
+  NOT_FOUND,
+  INVALID_AMOUNT,
+  ROLLED_BACK
+}
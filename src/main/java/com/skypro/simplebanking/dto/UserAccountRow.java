@@ -0,0 +1,44 @@
+package com.skypro.simplebanking.dto;
+
+import com.skypro.simplebanking.entity.AccountCurrency;
+
+public class UserAccountRow {
+  private final long userId;
+  private final String username;
+  private final Long accountId;
+  private final AccountCurrency currency;
+  private final Long amount;
+
+  public UserAccountRow(
+      Long userId, String username, Long accountId, AccountCurrency currency, Long amount) {
+    this.userId = userId;
+    this.username = username;
+    this.accountId = accountId;
+    this.currency = currency;
+    this.amount = amount;
+  }
+
+  public long getUserId() {
+    return userId;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public Long getAccountId() {
+    return accountId;
+  }
+
+  public AccountCurrency getCurrency() {
+    return currency;
+  }
+
+  public Long getAmount() {
+    return amount;
+  }
+
+  public boolean hasAccount() {
+    return accountId != null;
+  }
+}
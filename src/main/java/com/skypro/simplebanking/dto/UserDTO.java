@@ -33,4 +33,15 @@ public class UserDTO {
         user.getUsername(),
         user.getAccounts().stream().map(AccountDTO::from).collect(Collectors.toList()));
   }
+
+  public static UserDTO fromRows(List<UserAccountRow> rows) {
+    UserAccountRow first = rows.get(0);
+    return new UserDTO(
+        first.getUserId(),
+        first.getUsername(),
+        rows.stream()
+            .filter(UserAccountRow::hasAccount)
+            .map(row -> new AccountDTO(row.getAccountId(), row.getAmount(), row.getCurrency()))
+            .collect(Collectors.toList()));
+  }
 }
@@ -0,0 +1,21 @@
+package com.skypro.simplebanking.dto;
+
+import java.util.List;
+
+public class UserPageDTO {
+  private final List<ListUserDTO> users;
+  private final Long nextCursor;
+
+  public UserPageDTO(List<ListUserDTO> users, Long nextCursor) {
+    this.users = users;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<ListUserDTO> getUsers() {
+    return users;
+  }
+
+  public Long getNextCursor() {
+    return nextCursor;
+  }
+}
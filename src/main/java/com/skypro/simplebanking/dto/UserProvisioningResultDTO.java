@@ -0,0 +1,32 @@
+package com.skypro.simplebanking.dto;
+
+public class UserProvisioningResultDTO {
+  private final int index;
+  private final String username;
+  private final UserProvisioningStatus status;
+  private final Long userId;
+
+  public UserProvisioningResultDTO(
+      int index, String username, UserProvisioningStatus status, Long userId) {
+    this.index = index;
+    this.username = username;
+    this.status = status;
+    this.userId = userId;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public UserProvisioningStatus getStatus() {
+    return status;
+  }
+
+  public Long getUserId() {
+    return userId;
+  }
+}
@@ -0,0 +1,9 @@
+package com.skypro.simplebanking.dto;
+
+public enum UserProvisioningStatus {
+  CREATED,
+  USERNAME_TAKEN,
+  DUPLICATE_IN_REQUEST,
+  INVALID,
+  FAILED
+}
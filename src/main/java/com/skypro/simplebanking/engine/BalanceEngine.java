@@ -0,0 +1,401 @@
+package com.skypro.simplebanking.engine;
+
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.exception.AccountNotFoundException;
+import com.skypro.simplebanking.exception.InsufficientFundsException;
+import com.skypro.simplebanking.exception.InvalidAmountException;
+import com.skypro.simplebanking.exception.WrongCurrencyException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Keeps account balances in memory, partitioned into shards by account id. Every shard is owned by
+ * one writer thread, so balance checks and updates need no locks, and every change is appended to
+ * the {@link WriteAheadLog} before the caller is answered.
+ *
+ * <p>Transfers between two accounts of the same shard are one task and one {@link
+ * WalRecord.Type#LOCAL_TRANSFER} record. Transfers across shards use a two-step protocol:
+ *
+ * <ol>
+ *   <li>the source shard checks funds, debits and logs {@link WalRecord.Type#TRANSFER_DEBIT};
+ *   <li>once that record is durable, the destination shard credits and logs {@link
+ *       WalRecord.Type#TRANSFER_CREDIT} carrying the debit LSN as its transaction id;
+ *   <li>the caller is answered when the credit is durable.
+ * </ol>
+ *
+ * A credit is never logged before its debit, and recovery re-applies the credit of every debit
+ * that has none, so a crash between the two steps cannot create or lose money. Until the credit is
+ * applied the amount is simply in flight; readers may briefly see the debit without the credit.
+ *
+ * <p>Changes are applied in memory as soon as they are logged, so that the next task on the shard
+ * checks funds against them, and reverted if their record never becomes durable. The log rejects
+ * everything after a failed write, so no change that outlives the revert can depend on a reverted
+ * one. A credit that fails after its debit became durable stays in flight and is redone by the
+ * next recovery.
+ *
+ * <p>Ownership and currency never change after an account is created, so they are validated
+ * against an immutable directory on the calling thread rather than on the shard.
+ */
+public class BalanceEngine implements AutoCloseable {
+  private final BalanceShard[] shards;
+  private final WriteAheadLog wal;
+  private final Map<Long, AccountInfo> directory = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListSet<Long> inFlightDebits = new ConcurrentSkipListSet<>();
+
+  public BalanceEngine(int shardCount, int expectedAccounts, WriteAheadLog wal) {
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("shardCount must be positive");
+    }
+    this.shards = new BalanceShard[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] = new BalanceShard(i, expectedAccounts / shardCount + 1);
+    }
+    this.wal = wal;
+  }
+
+  public int getShardCount() {
+    return shards.length;
+  }
+
+  /** Loads an account from the last checkpoint. Only valid before {@link #recover}. */
+  public void load(long accountId, long userId, AccountCurrency currency, long amount) {
+    directory.put(accountId, new AccountInfo(userId, currency));
+    shardOf(accountId).set(accountId, amount);
+  }
+
+  /** Makes an account created after startup known to the engine. */
+  public void register(long accountId, long userId, AccountCurrency currency, long amount) {
+    directory.put(accountId, new AccountInfo(userId, currency));
+    BalanceShard shard = shardOf(accountId);
+    await(
+        shard.submit(
+            () -> {
+              if (!shard.contains(accountId)) {
+                shard.set(accountId, amount);
+              }
+              return null;
+            }));
+  }
+
+  /**
+   * Replays the log on top of the loaded checkpoint. {@code checkpointLsns[shard]} is the highest
+   * LSN already reflected in that shard's checkpointed balances; older records are skipped.
+   */
+  public void recover(List<WalRecord> records, long[] checkpointLsns) {
+    Map<Long, WalRecord> openDebits = new LinkedHashMap<>();
+    for (WalRecord record : records) {
+      BalanceShard shard = shards[record.getShard()];
+      boolean replay = record.getLsn() > checkpointLsns[record.getShard()];
+      switch (record.getType()) {
+        case BALANCE_CHANGE:
+          if (replay) {
+            shard.add(record.getAccountId(), record.getAmount(), record.getLsn());
+          }
+          break;
+        case LOCAL_TRANSFER:
+          if (replay) {
+            shard.add(record.getAccountId(), -record.getAmount(), record.getLsn());
+            shard.add(record.getCounterpartAccountId(), record.getAmount(), record.getLsn());
+          }
+          break;
+        case TRANSFER_DEBIT:
+          if (replay) {
+            shard.add(record.getAccountId(), -record.getAmount(), record.getLsn());
+          }
+          openDebits.put(record.getLsn(), record);
+          break;
+        case TRANSFER_CREDIT:
+          if (replay) {
+            shard.add(record.getAccountId(), record.getAmount(), record.getLsn());
+          }
+          openDebits.remove(record.getTxId());
+          break;
+        default:
+          throw new IllegalStateException("Unknown record type " + record.getType());
+      }
+    }
+    for (int i = 0; i < shards.length; i++) {
+      long shardLsn = checkpointLsns[i];
+      BalanceShard shard = shards[i];
+      await(
+          shard.submit(
+              () -> {
+                shard.raiseAppliedLsn(shardLsn);
+                return null;
+              }));
+    }
+    List<CompletableFuture<Void>> redone = new ArrayList<>();
+    for (WalRecord debit : openDebits.values()) {
+      inFlightDebits.add(debit.getLsn());
+      redone.add(credit(debit.getCounterpartAccountId(), debit.getAmount(), debit.getLsn()));
+    }
+    redone.forEach(BalanceEngine::await);
+  }
+
+  public long balance(long userId, long accountId) {
+    requireOwned(userId, accountId);
+    BalanceShard shard = shardOf(accountId);
+    return await(shard.submit(() -> shard.balance(accountId)));
+  }
+
+  public AccountCurrency currency(long accountId) {
+    AccountInfo info = directory.get(accountId);
+    if (info == null) {
+      throw new AccountNotFoundException();
+    }
+    return info.currency;
+  }
+
+  public long deposit(long userId, long accountId, long amount) {
+    if (amount < 0) {
+      throw new InvalidAmountException();
+    }
+    requireOwned(userId, accountId);
+    return change(accountId, amount);
+  }
+
+  public long withdraw(long userId, long accountId, long amount) {
+    if (amount < 0) {
+      throw new InvalidAmountException();
+    }
+    AccountInfo info = requireOwned(userId, accountId);
+    BalanceShard shard = shardOf(accountId);
+    return await(
+        shard
+            .submit(
+                () -> {
+                  if (shard.balance(accountId) < amount) {
+                    throw new InsufficientFundsException(
+                        "Cannot withdraw " + amount + " " + info.currency.name());
+                  }
+                  return apply(shard, accountId, -amount);
+                })
+            .thenCompose(applied -> applied));
+  }
+
+  public void transfer(
+      long userId, long fromAccountId, long toUserId, long toAccountId, long amount) {
+    AccountInfo source = directory.get(fromAccountId);
+    AccountInfo destination = directory.get(toAccountId);
+    if (source == null || destination == null) {
+      throw new AccountNotFoundException();
+    }
+    if (source.currency != destination.currency) {
+      throw new WrongCurrencyException();
+    }
+    if (amount < 0) {
+      throw new InvalidAmountException();
+    }
+    if (source.userId != userId || destination.userId != toUserId) {
+      throw new AccountNotFoundException();
+    }
+    BalanceShard sourceShard = shardOf(fromAccountId);
+    BalanceShard destinationShard = shardOf(toAccountId);
+    if (sourceShard == destinationShard) {
+      await(
+          sourceShard
+              .submit(
+                  () -> {
+                    requireFunds(sourceShard, fromAccountId, amount, source.currency);
+                    WalRecord record =
+                        new WalRecord(
+                            WalRecord.Type.LOCAL_TRANSFER,
+                            sourceShard.getIndex(),
+                            fromAccountId,
+                            amount,
+                            toAccountId,
+                            0L);
+                    CompletableFuture<Void> durable = wal.append(record);
+                    sourceShard.add(fromAccountId, -amount, record.getLsn());
+                    sourceShard.add(toAccountId, amount, record.getLsn());
+                    return revertOnFailure(
+                        durable,
+                        sourceShard,
+                        () -> {
+                          sourceShard.add(fromAccountId, amount, record.getLsn());
+                          sourceShard.add(toAccountId, -amount, record.getLsn());
+                        });
+                  })
+              .thenCompose(durable -> durable));
+      return;
+    }
+    await(
+        sourceShard
+            .submit(
+                () -> {
+                  requireFunds(sourceShard, fromAccountId, amount, source.currency);
+                  WalRecord debit =
+                      new WalRecord(
+                          WalRecord.Type.TRANSFER_DEBIT,
+                          sourceShard.getIndex(),
+                          fromAccountId,
+                          amount,
+                          toAccountId,
+                          0L);
+                  CompletableFuture<Void> durable = wal.append(debit);
+                  sourceShard.add(fromAccountId, -amount, debit.getLsn());
+                  inFlightDebits.add(debit.getLsn());
+                  return revertOnFailure(
+                          durable,
+                          sourceShard,
+                          () -> {
+                            sourceShard.add(fromAccountId, amount, debit.getLsn());
+                            inFlightDebits.remove(debit.getLsn());
+                          })
+                      .thenApply(ignored -> debit.getLsn());
+                })
+            .thenCompose(debitLsn -> debitLsn)
+            .thenCompose(debitLsn -> credit(toAccountId, amount, debitLsn)));
+  }
+
+  /** Takes a snapshot of every shard's changed balances, each on its own writer thread. */
+  public List<ShardSnapshot> snapshot() {
+    List<CompletableFuture<ShardSnapshot>> futures = new ArrayList<>(shards.length);
+    for (BalanceShard shard : shards) {
+      futures.add(shard.submit(() -> shard.takeDirty(wal.getLastLsn())));
+    }
+    List<ShardSnapshot> snapshots = new ArrayList<>(shards.length);
+    futures.forEach(future -> snapshots.add(await(future)));
+    return snapshots;
+  }
+
+  public void restore(List<ShardSnapshot> snapshots) {
+    for (ShardSnapshot snapshot : snapshots) {
+      BalanceShard shard = shards[snapshot.getShard()];
+      await(
+          shard.submit(
+              () -> {
+                shard.restoreDirty(snapshot);
+                return null;
+              }));
+    }
+  }
+
+  /**
+   * Highest LSN below which the log is no longer needed: everything is reflected in {@code
+   * checkpointedLsn} and no cross-shard transfer started earlier is still waiting for its credit.
+   */
+  public long truncatableLsn(long checkpointedLsn) {
+    Long oldestInFlight = inFlightDebits.isEmpty() ? null : inFlightDebits.first();
+    return oldestInFlight == null
+        ? checkpointedLsn
+        : Math.min(checkpointedLsn, oldestInFlight - 1);
+  }
+
+  public WriteAheadLog getWriteAheadLog() {
+    return wal;
+  }
+
+  @Override
+  public void close() {
+    for (BalanceShard shard : shards) {
+      shard.shutdown();
+    }
+    wal.close();
+  }
+
+  private long change(long accountId, long delta) {
+    BalanceShard shard = shardOf(accountId);
+    return await(
+        shard.submit(() -> apply(shard, accountId, delta)).thenCompose(applied -> applied));
+  }
+
+  private CompletableFuture<Long> apply(BalanceShard shard, long accountId, long delta) {
+    WalRecord record =
+        new WalRecord(WalRecord.Type.BALANCE_CHANGE, shard.getIndex(), accountId, delta, 0L, 0L);
+    CompletableFuture<Void> durable = wal.append(record);
+    shard.add(accountId, delta, record.getLsn());
+    long balance = shard.balance(accountId);
+    return revertOnFailure(durable, shard, () -> shard.add(accountId, -delta, record.getLsn()))
+        .thenApply(ignored -> balance);
+  }
+
+  private CompletableFuture<Void> credit(long accountId, long amount, long debitLsn) {
+    BalanceShard shard = shardOf(accountId);
+    return shard
+        .submit(
+            () -> {
+              WalRecord record =
+                  new WalRecord(
+                      WalRecord.Type.TRANSFER_CREDIT,
+                      shard.getIndex(),
+                      accountId,
+                      amount,
+                      0L,
+                      debitLsn);
+              CompletableFuture<Void> durable = wal.append(record);
+              shard.add(accountId, amount, record.getLsn());
+              return revertOnFailure(
+                  durable, shard, () -> shard.add(accountId, -amount, record.getLsn()));
+            })
+        .thenCompose(durable -> durable)
+        // A failed credit keeps its debit in flight, so the log keeps it for the next recovery.
+        .thenRun(() -> inFlightDebits.remove(debitLsn));
+  }
+
+  /** Runs {@code revert} on the shard's writer thread if {@code durable} fails, then fails too. */
+  private static CompletableFuture<Void> revertOnFailure(
+      CompletableFuture<Void> durable, BalanceShard shard, Runnable revert) {
+    return durable.exceptionallyCompose(
+        error ->
+            shard.submit(
+                () -> {
+                  revert.run();
+                  throw new CompletionException(error);
+                }));
+  }
+
+  private static void requireFunds(
+      BalanceShard shard, long accountId, long amount, AccountCurrency currency) {
+    if (shard.balance(accountId) < amount) {
+      throw new InsufficientFundsException("Cannot withdraw " + amount + " " + currency.name());
+    }
+  }
+
+  private AccountInfo requireOwned(long userId, long accountId) {
+    AccountInfo info = directory.get(accountId);
+    if (info == null || info.userId != userId) {
+      throw new AccountNotFoundException();
+    }
+    return info;
+  }
+
+  private BalanceShard shardOf(long accountId) {
+    return shards[(int) Math.floorMod(accountId, (long) shards.length)];
+  }
+
+  private static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the balance engine", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      while (cause instanceof CompletionException && cause.getCause() != null) {
+        cause = cause.getCause();
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  private static final class AccountInfo {
+    private final long userId;
+    private final AccountCurrency currency;
+
+    private AccountInfo(long userId, AccountCurrency currency) {
+      this.userId = userId;
+      this.currency = currency;
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package com.skypro.simplebanking.engine;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Periodically writes the balances the engine changed to {@code accounts} together with each
+ * shard's LSN, then drops log segments that are no longer needed for recovery.
+ */
+public class BalanceEngineCheckpointer implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(BalanceEngineCheckpointer.class);
+
+  private final BalanceEngine engine;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ScheduledExecutorService scheduler;
+
+  public BalanceEngineCheckpointer(
+      BalanceEngine engine,
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      Duration interval) {
+    this.engine = engine;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "balance-engine-checkpoint");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.scheduler.scheduleWithFixedDelay(
+        this::checkpointQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  public synchronized void checkpoint() throws InterruptedException {
+    List<ShardSnapshot> snapshots = engine.snapshot();
+    WriteAheadLog wal = engine.getWriteAheadLog();
+    long checkpointedLsn = Long.MAX_VALUE;
+    long newestLsn = 0L;
+    for (ShardSnapshot snapshot : snapshots) {
+      checkpointedLsn = Math.min(checkpointedLsn, snapshot.getLsn());
+      newestLsn = Math.max(newestLsn, snapshot.getLsn());
+    }
+    try {
+      // A balance must not reach the table before the record that produced it is on disk,
+      // otherwise recovery could apply an un-logged credit twice.
+      wal.awaitDurable(newestLsn);
+      transactionTemplate.executeWithoutResult(status -> write(snapshots));
+    } catch (InterruptedException | RuntimeException e) {
+      engine.restore(snapshots);
+      throw e;
+    }
+    wal.rotate().join();
+    wal.deleteSegmentsUpTo(engine.truncatableLsn(checkpointedLsn));
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(30, TimeUnit.SECONDS);
+      checkpoint();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void checkpointQuietly() {
+    try {
+      checkpoint();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      log.warn("Balance engine checkpoint failed, will retry", e);
+    }
+  }
+
+  private void write(List<ShardSnapshot> snapshots) {
+    for (ShardSnapshot snapshot : snapshots) {
+      long[] accountIds = snapshot.getAccountIds();
+      long[] amounts = snapshot.getAmounts();
+      jdbcTemplate.batchUpdate(
+          "UPDATE accounts SET amount = ? WHERE id = ?",
+          new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+              ps.setLong(1, amounts[i]);
+              ps.setLong(2, accountIds[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+              return accountIds.length;
+            }
+          });
+    }
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO engine_checkpoints (shard, lsn) VALUES (?, ?)"
+            + " ON CONFLICT (shard) DO UPDATE SET lsn = EXCLUDED.lsn",
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement ps, int i) throws SQLException {
+            ps.setInt(1, snapshots.get(i).getShard());
+            ps.setLong(2, snapshots.get(i).getLsn());
+          }
+
+          @Override
+          public int getBatchSize() {
+            return snapshots.size();
+          }
+        });
+  }
+}
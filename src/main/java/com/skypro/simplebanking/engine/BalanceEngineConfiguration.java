@@ -0,0 +1,86 @@
+package com.skypro.simplebanking.engine;
+
+import com.skypro.simplebanking.entity.AccountCurrency;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Wires the in-memory {@link BalanceEngine} when {@code app.engine.enabled=true}. On startup the
+ * engine is loaded from the {@code accounts} table and the shard checkpoints, then the write-ahead
+ * log is replayed on top.
+ *
+ * <p>Engine writes are journaled in the write-ahead log only: they add no {@code ledger_entries}
+ * rows, and the {@code accounts} table trails them by up to a checkpoint interval. Balance reads
+ * therefore go through the engine, and statements and historical balances are refused.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.engine.enabled", havingValue = "true")
+public class BalanceEngineConfiguration {
+
+  @Bean(destroyMethod = "close")
+  @DependsOn("entityManagerFactory")
+  public BalanceEngine balanceEngine(
+      JdbcTemplate jdbcTemplate,
+      @Value("${app.engine.shards}") int shards,
+      @Value("${app.engine.wal.directory}") Path walDirectory,
+      @Value("${app.engine.wal.fsync}") boolean fsync) {
+    Integer hotAccounts =
+        jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM accounts WHERE slot_count > 0", Integer.class);
+    if (hotAccounts != null && hotAccounts > 0) {
+      throw new IllegalStateException(
+          "Set the slot count of hot accounts to 0 before enabling the balance engine");
+    }
+    long[] checkpointLsns = new long[shards];
+    jdbcTemplate.query(
+        "SELECT shard, lsn FROM engine_checkpoints",
+        row -> {
+          int shard = row.getInt("shard");
+          if (shard >= shards) {
+            throw new IllegalStateException(
+                "Checkpoint exists for shard " + shard + " but app.engine.shards=" + shards);
+          }
+          checkpointLsns[shard] = row.getLong("lsn");
+        });
+    Integer accounts = jdbcTemplate.queryForObject("SELECT count(*) FROM accounts", Integer.class);
+    WriteAheadLog wal = new WriteAheadLog(walDirectory, fsync);
+    BalanceEngine engine = new BalanceEngine(shards, accounts == null ? 0 : accounts, wal);
+    jdbcTemplate.query(
+        "SELECT id, user_id, account_currency, amount FROM accounts",
+        row -> {
+          engine.load(
+              row.getLong("id"),
+              row.getLong("user_id"),
+              AccountCurrency.valueOf(row.getString("account_currency")),
+              row.getLong("amount"));
+        });
+    List<WalRecord> records = wal.readAll();
+    for (WalRecord record : records) {
+      if (record.getShard() >= shards) {
+        throw new IllegalStateException(
+            "Write-ahead log was written with more than app.engine.shards=" + shards + " shards");
+      }
+    }
+    wal.start();
+    engine.recover(records, checkpointLsns);
+    return engine;
+  }
+
+  @Bean(destroyMethod = "close")
+  public BalanceEngineCheckpointer balanceEngineCheckpointer(
+      BalanceEngine balanceEngine,
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      @Value("${app.engine.checkpoint-interval}") Duration checkpointInterval) {
+    return new BalanceEngineCheckpointer(
+        balanceEngine, jdbcTemplate, transactionTemplate, checkpointInterval);
+  }
+}
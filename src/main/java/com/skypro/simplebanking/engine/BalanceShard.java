@@ -0,0 +1,97 @@
+package com.skypro.simplebanking.engine;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Balances of the accounts whose id maps to this shard. All state is confined to the shard's single
+ * writer thread; other threads only talk to it through {@link #submit}.
+ */
+class BalanceShard {
+  private final int index;
+  private final ExecutorService writer;
+  private final LongLongHashMap balances;
+  private final LongLongHashMap dirty;
+  private long appliedLsn;
+
+  BalanceShard(int index, int expectedAccounts) {
+    this.index = index;
+    this.writer =
+        Executors.newSingleThreadExecutor(
+            task -> {
+              Thread thread = new Thread(task, "balance-engine-shard-" + index);
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.balances = new LongLongHashMap(expectedAccounts);
+    this.dirty = new LongLongHashMap(expectedAccounts);
+  }
+
+  int getIndex() {
+    return index;
+  }
+
+  <T> CompletableFuture<T> submit(Supplier<T> task) {
+    return CompletableFuture.supplyAsync(task, writer);
+  }
+
+  boolean contains(long accountId) {
+    return balances.containsKey(accountId);
+  }
+
+  long balance(long accountId) {
+    return balances.get(accountId, 0L);
+  }
+
+  void set(long accountId, long amount) {
+    balances.put(accountId, amount);
+  }
+
+  void add(long accountId, long delta, long lsn) {
+    balances.put(accountId, balances.get(accountId, 0L) + delta);
+    dirty.put(accountId, 1L);
+    appliedLsn = Math.max(appliedLsn, lsn);
+  }
+
+  void raiseAppliedLsn(long lsn) {
+    appliedLsn = Math.max(appliedLsn, lsn);
+  }
+
+  /**
+   * Copies and clears the balances changed since the previous snapshot. Records of this shard are
+   * only ever logged from this thread, so every one up to {@code loggedLsn} is already applied.
+   */
+  ShardSnapshot takeDirty(long loggedLsn) {
+    raiseAppliedLsn(loggedLsn);
+    long[] accountIds = new long[dirty.size()];
+    long[] amounts = new long[dirty.size()];
+    int[] position = {0};
+    dirty.forEach(
+        (accountId, ignored) -> {
+          accountIds[position[0]] = accountId;
+          amounts[position[0]] = balances.get(accountId, 0L);
+          position[0]++;
+        });
+    dirty.clear();
+    return new ShardSnapshot(index, appliedLsn, accountIds, amounts);
+  }
+
+  /** Puts back a snapshot that could not be checkpointed so the next attempt retries it. */
+  void restoreDirty(ShardSnapshot snapshot) {
+    for (long accountId : snapshot.getAccountIds()) {
+      dirty.put(accountId, 1L);
+    }
+  }
+
+  void shutdown() {
+    writer.shutdown();
+    try {
+      writer.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.skypro.simplebanking.engine;
+
+import java.util.Arrays;
+
+/** Open-addressing {@code long -> long} map, so shard state holds no boxed values. */
+class LongLongHashMap {
+  private static final long EMPTY = 0L;
+
+  private long[] keys;
+  private long[] values;
+  private boolean hasZeroKey;
+  private long zeroValue;
+  private int size;
+
+  LongLongHashMap(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+    this.keys = new long[capacity];
+    this.values = new long[capacity];
+  }
+
+  boolean containsKey(long key) {
+    if (key == EMPTY) {
+      return hasZeroKey;
+    }
+    return keys[indexOf(keys, key)] == key;
+  }
+
+  long get(long key, long defaultValue) {
+    if (key == EMPTY) {
+      return hasZeroKey ? zeroValue : defaultValue;
+    }
+    int index = indexOf(keys, key);
+    return keys[index] == key ? values[index] : defaultValue;
+  }
+
+  void put(long key, long value) {
+    if (key == EMPTY) {
+      if (!hasZeroKey) {
+        size++;
+      }
+      hasZeroKey = true;
+      zeroValue = value;
+      return;
+    }
+    int index = indexOf(keys, key);
+    if (keys[index] != key) {
+      keys[index] = key;
+      size++;
+    }
+    values[index] = value;
+    if (size * 2 > keys.length) {
+      resize();
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  void clear() {
+    Arrays.fill(keys, EMPTY);
+    hasZeroKey = false;
+    size = 0;
+  }
+
+  void forEach(Entry consumer) {
+    if (hasZeroKey) {
+      consumer.accept(EMPTY, zeroValue);
+    }
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != EMPTY) {
+        consumer.accept(keys[i], values[i]);
+      }
+    }
+  }
+
+  private void resize() {
+    long[] oldKeys = keys;
+    long[] oldValues = values;
+    keys = new long[oldKeys.length * 2];
+    values = new long[oldValues.length * 2];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int index = indexOf(keys, oldKeys[i]);
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+      }
+    }
+  }
+
+  private static int indexOf(long[] keys, long key) {
+    int mask = keys.length - 1;
+    int index = (int) (mix(key) & mask);
+    while (keys[index] != EMPTY && keys[index] != key) {
+      index = (index + 1) & mask;
+    }
+    return index;
+  }
+
+  private static long mix(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return h ^ (h >>> 32);
+  }
+
+  interface Entry {
+    void accept(long key, long value);
+  }
+}
@@ -0,0 +1,35 @@
+package com.skypro.simplebanking.engine;
+
+/**
+ * Balances a shard changed since its previous snapshot, together with the highest LSN already
+ * reflected in them.
+ */
+public final class ShardSnapshot {
+  private final int shard;
+  private final long lsn;
+  private final long[] accountIds;
+  private final long[] amounts;
+
+  ShardSnapshot(int shard, long lsn, long[] accountIds, long[] amounts) {
+    this.shard = shard;
+    this.lsn = lsn;
+    this.accountIds = accountIds;
+    this.amounts = amounts;
+  }
+
+  public int getShard() {
+    return shard;
+  }
+
+  public long getLsn() {
+    return lsn;
+  }
+
+  public long[] getAccountIds() {
+    return accountIds;
+  }
+
+  public long[] getAmounts() {
+    return amounts;
+  }
+}
@@ -0,0 +1,119 @@
+package com.skypro.simplebanking.engine;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * One balance change in the write-ahead log. Amounts are signed deltas; a cross-shard transfer is
+ * written as a {@link Type#TRANSFER_DEBIT} on the source shard followed by a {@link
+ * Type#TRANSFER_CREDIT} on the destination shard whose {@code txId} is the debit's LSN.
+ */
+public final class WalRecord {
+  static final int SIZE = 8 + 1 + 4 + 8 + 8 + 8 + 8 + 4;
+
+  public enum Type {
+    BALANCE_CHANGE,
+    LOCAL_TRANSFER,
+    TRANSFER_DEBIT,
+    TRANSFER_CREDIT
+  }
+
+  private long lsn;
+  private final Type type;
+  private final int shard;
+  private final long accountId;
+  private final long amount;
+  private final long counterpartAccountId;
+  private final long txId;
+
+  WalRecord(
+      Type type, int shard, long accountId, long amount, long counterpartAccountId, long txId) {
+    this(0L, type, shard, accountId, amount, counterpartAccountId, txId);
+  }
+
+  private WalRecord(
+      long lsn,
+      Type type,
+      int shard,
+      long accountId,
+      long amount,
+      long counterpartAccountId,
+      long txId) {
+    this.lsn = lsn;
+    this.type = type;
+    this.shard = shard;
+    this.accountId = accountId;
+    this.amount = amount;
+    this.counterpartAccountId = counterpartAccountId;
+    this.txId = txId;
+  }
+
+  public long getLsn() {
+    return lsn;
+  }
+
+  void assignLsn(long lsn) {
+    this.lsn = lsn;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public int getShard() {
+    return shard;
+  }
+
+  public long getAccountId() {
+    return accountId;
+  }
+
+  public long getAmount() {
+    return amount;
+  }
+
+  public long getCounterpartAccountId() {
+    return counterpartAccountId;
+  }
+
+  public long getTxId() {
+    return txId;
+  }
+
+  void writeTo(ByteBuffer buffer) {
+    int start = buffer.position();
+    buffer
+        .putLong(lsn)
+        .put((byte) type.ordinal())
+        .putInt(shard)
+        .putLong(accountId)
+        .putLong(amount)
+        .putLong(counterpartAccountId)
+        .putLong(txId);
+    CRC32 crc = new CRC32();
+    crc.update(buffer.array(), buffer.arrayOffset() + start, SIZE - 4);
+    buffer.putInt((int) crc.getValue());
+  }
+
+  /** Returns {@code null} when the buffer holds a torn or corrupted record. */
+  static WalRecord readFrom(ByteBuffer buffer) {
+    int start = buffer.position();
+    CRC32 crc = new CRC32();
+    crc.update(buffer.array(), buffer.arrayOffset() + start, SIZE - 4);
+    long lsn = buffer.getLong();
+    int typeOrdinal = buffer.get();
+    int shard = buffer.getInt();
+    long accountId = buffer.getLong();
+    long amount = buffer.getLong();
+    long counterpartAccountId = buffer.getLong();
+    long txId = buffer.getLong();
+    int checksum = buffer.getInt();
+    if (checksum != (int) crc.getValue()
+        || typeOrdinal < 0
+        || typeOrdinal >= Type.values().length) {
+      return null;
+    }
+    return new WalRecord(
+        lsn, Type.values()[typeOrdinal], shard, accountId, amount, counterpartAccountId, txId);
+  }
+}
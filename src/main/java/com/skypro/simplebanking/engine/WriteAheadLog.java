@@ -0,0 +1,365 @@
+package com.skypro.simplebanking.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of {@link WalRecord}s split into segments named after their first LSN.
+ *
+ * <p>LSNs are assigned in {@link #append} under the same lock that enqueues the record, so the
+ * single writer thread sees records in LSN order and "durable up to N" is always contiguous. The
+ * writer drains everything queued since its last fsync and forces it with one {@code force} call,
+ * which is what makes the log cheap under load: throughput grows with the batch size instead of
+ * being capped by fsync latency.
+ *
+ * <p>A failed write is fatal: the partly written batch is truncated, every queued and later record
+ * is rejected and nothing becomes durable any more, so no record after the failed one can be
+ * acknowledged. Restarting recovers from whatever was forced before the failure.
+ */
+public class WriteAheadLog implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+  private static final int MAX_BATCH = 8192;
+  private static final String SEGMENT_PREFIX = "wal-";
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  private final Path directory;
+  private final boolean fsync;
+  private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+  private final Object appendLock = new Object();
+  private final Object durableLock = new Object();
+  private final Thread writer;
+  private final List<Segment> sealedSegments = new ArrayList<>();
+
+  private long lastLsn;
+  private volatile long durableLsn;
+  private volatile boolean closed;
+  private volatile boolean stopped;
+  private volatile Throwable failure;
+  private Segment current;
+
+  public WriteAheadLog(Path directory, boolean fsync) {
+    this.directory = directory;
+    this.fsync = fsync;
+    this.writer = new Thread(this::writeLoop, "balance-engine-wal");
+    this.writer.setDaemon(true);
+  }
+
+  /**
+   * Reads every record in LSN order. A torn tail of the last segment belongs to a batch that was
+   * never forced, so nothing in it was acknowledged; it is truncated so that the next LSNs follow
+   * the last intact record. A torn record in a sealed segment means the disk lost forced data, and
+   * recovery refuses to continue.
+   */
+  public List<WalRecord> readAll() {
+    List<WalRecord> records = new ArrayList<>();
+    try {
+      Files.createDirectories(directory);
+      List<Path> segments = listSegments();
+      for (int i = 0; i < segments.size(); i++) {
+        Path path = segments.get(i);
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        int before = records.size();
+        while (buffer.remaining() >= WalRecord.SIZE) {
+          int position = buffer.position();
+          WalRecord record = WalRecord.readFrom(buffer);
+          if (record == null) {
+            buffer.position(position);
+            break;
+          }
+          records.add(record);
+        }
+        if (buffer.hasRemaining()) {
+          if (i < segments.size() - 1) {
+            throw new IllegalStateException(
+                "Write-ahead log segment " + path + " is corrupted at byte " + buffer.position());
+          }
+          log.warn(
+              "Truncating {} torn bytes at the end of write-ahead log segment {}",
+              buffer.remaining(),
+              path);
+          truncate(path, buffer.position());
+        }
+        if (records.size() == before) {
+          // Nothing intact was written before the crash; the next segment reuses its name.
+          Files.delete(path);
+          continue;
+        }
+        long lastInSegment = records.get(records.size() - 1).getLsn();
+        sealedSegments.add(new Segment(path, firstLsnOf(path), lastInSegment, null));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    lastLsn = records.isEmpty() ? 0L : records.get(records.size() - 1).getLsn();
+    durableLsn = lastLsn;
+    return records;
+  }
+
+  /** Opens a fresh segment after {@link #readAll()} and starts the writer thread. */
+  public void start() {
+    current = openSegment(lastLsn + 1);
+    writer.start();
+  }
+
+  /**
+   * Assigns the next LSN to {@code record} and queues it. The returned future completes once the
+   * record and everything before it has been written and forced to disk.
+   */
+  public CompletableFuture<Void> append(WalRecord record) {
+    Entry entry = new Entry(record);
+    synchronized (appendLock) {
+      if (closed) {
+        throw new IllegalStateException("Write-ahead log is closed");
+      }
+      if (failure != null) {
+        throw new IllegalStateException("Write-ahead log failed, restart to recover", failure);
+      }
+      record.assignLsn(++lastLsn);
+      queue.add(entry);
+    }
+    return entry.durable;
+  }
+
+  public long getLastLsn() {
+    synchronized (appendLock) {
+      return lastLsn;
+    }
+  }
+
+  public long getDurableLsn() {
+    return durableLsn;
+  }
+
+  /** Waits until {@code lsn} is durable; throws if the log failed or stopped before that. */
+  public void awaitDurable(long lsn) throws InterruptedException {
+    synchronized (durableLock) {
+      while (durableLsn < lsn && failure == null && !stopped) {
+        durableLock.wait();
+      }
+      if (durableLsn < lsn) {
+        throw new IllegalStateException("Record " + lsn + " never became durable", failure);
+      }
+    }
+  }
+
+  /** Seals the current segment so it becomes eligible for {@link #deleteSegmentsUpTo}. */
+  public CompletableFuture<Void> rotate() {
+    Entry entry = new Entry(null);
+    synchronized (appendLock) {
+      queue.add(entry);
+    }
+    return entry.durable;
+  }
+
+  /** Deletes sealed segments whose every record has an LSN of at most {@code lsn}. */
+  public void deleteSegmentsUpTo(long lsn) {
+    List<Segment> deletable;
+    synchronized (sealedSegments) {
+      deletable =
+          sealedSegments.stream().filter(s -> s.lastLsn <= lsn).collect(Collectors.toList());
+      sealedSegments.removeAll(deletable);
+    }
+    for (Segment segment : deletable) {
+      try {
+        Files.deleteIfExists(segment.path);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (appendLock) {
+      closed = true;
+      queue.add(new Entry(null));
+    }
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void writeLoop() {
+    try {
+      List<Entry> batch = new ArrayList<>(MAX_BATCH);
+      ByteBuffer buffer = ByteBuffer.allocate(MAX_BATCH * WalRecord.SIZE);
+      while (true) {
+        try {
+          batch.add(queue.take());
+        } catch (InterruptedException e) {
+          return;
+        }
+        queue.drainTo(batch, MAX_BATCH - 1);
+        Throwable previousFailure = failure;
+        if (previousFailure != null) {
+          batch.forEach(entry -> entry.durable.completeExceptionally(previousFailure));
+        } else {
+          try {
+            writeBatch(batch, buffer);
+          } catch (IOException | RuntimeException e) {
+            fail(e);
+            batch.forEach(entry -> entry.durable.completeExceptionally(e));
+          }
+        }
+        batch.clear();
+        if (closed && queue.isEmpty()) {
+          closeCurrent();
+          return;
+        }
+      }
+    } finally {
+      synchronized (durableLock) {
+        stopped = true;
+        durableLock.notifyAll();
+      }
+    }
+  }
+
+  private void fail(Throwable e) {
+    log.error("Write-ahead log write failed, rejecting all further records", e);
+    synchronized (durableLock) {
+      failure = e;
+      durableLock.notifyAll();
+    }
+  }
+
+  private void writeBatch(List<Entry> batch, ByteBuffer buffer) throws IOException {
+    buffer.clear();
+    long batchLastLsn = durableLsn;
+    List<Entry> rotations = new ArrayList<>();
+    for (Entry entry : batch) {
+      if (entry.record == null) {
+        rotations.add(entry);
+        continue;
+      }
+      entry.record.writeTo(buffer);
+      batchLastLsn = entry.record.getLsn();
+    }
+    buffer.flip();
+    long batchStart = current.channel.size();
+    try {
+      while (buffer.hasRemaining()) {
+        current.channel.write(buffer);
+      }
+      if (fsync) {
+        current.channel.force(false);
+      }
+    } catch (IOException | RuntimeException e) {
+      // Leave no torn record behind for recovery to trip over.
+      try {
+        current.channel.truncate(batchStart);
+      } catch (IOException truncateFailure) {
+        e.addSuppressed(truncateFailure);
+      }
+      throw e;
+    }
+    current.lastLsn = batchLastLsn;
+    synchronized (durableLock) {
+      durableLsn = batchLastLsn;
+      durableLock.notifyAll();
+    }
+    // Completed before rotating: a failure to open the next segment must not report these
+    // records, which are already on disk, as failed.
+    for (Entry entry : batch) {
+      if (entry.record != null) {
+        entry.durable.complete(null);
+      }
+    }
+    if (!rotations.isEmpty() && !closed && current.lastLsn >= current.firstLsn) {
+      Segment sealed = current;
+      current = openSegment(batchLastLsn + 1);
+      sealed.channel.close();
+      synchronized (sealedSegments) {
+        sealedSegments.add(sealed);
+      }
+    }
+    rotations.forEach(entry -> entry.durable.complete(null));
+  }
+
+  private Segment openSegment(long firstLsn) {
+    Path path =
+        directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+    try {
+      Files.createDirectories(directory);
+      FileChannel channel =
+          FileChannel.open(
+              path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+      return new Segment(path, firstLsn, firstLsn - 1, channel);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void closeCurrent() {
+    try {
+      if (failure == null) {
+        current.channel.force(true);
+      }
+      current.channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void truncate(Path path, long size) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.truncate(size);
+      channel.force(true);
+    }
+  }
+
+  private List<Path> listSegments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+          .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static long firstLsnOf(Path path) {
+    String name = path.getFileName().toString();
+    return Long.parseLong(
+        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  private static final class Entry {
+    private final WalRecord record;
+    private final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+    private Entry(WalRecord record) {
+      this.record = record;
+    }
+  }
+
+  private static final class Segment {
+    private final Path path;
+    private final long firstLsn;
+    private long lastLsn;
+    private final FileChannel channel;
+
+    private Segment(Path path, long firstLsn, long lastLsn, FileChannel channel) {
+      this.path = path;
+      this.firstLsn = firstLsn;
+      this.lastLsn = lastLsn;
+      this.channel = channel;
+    }
+  }
+}
@@ -1,22 +1,48 @@
 package com.skypro.simplebanking.entity;
 
 import javax.persistence.*;
+import org.hibernate.annotations.Formula;
 
 @Entity
 @Table(name = "accounts")
 public class Account {
   @Id
   @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account-sequence")
-  @SequenceGenerator(name = "account-sequence", sequenceName = "account_sequence")
+  @SequenceGenerator(
+      name = "account-sequence",
+      sequenceName = "account_sequence",
+      allocationSize = 50)
   private Long id;
 
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 3)
   private AccountCurrency accountCurrency;
+
+  @Column(nullable = false)
   private Long amount;
 
-  @ManyToOne(optional = false)
+  /** Number of {@link AccountSlot} rows the balance is striped across; 0 for a regular account. */
+  @Column(nullable = false)
+  private int slotCount;
+
+  /** Sum of the slot rows; the account's total balance is {@code amount + slotAmount}. */
+  @Formula(
+      "(case when slot_count = 0 then 0 else"
+          + " (select coalesce(sum(s.amount), 0) from account_slots s where s.account_id = id)"
+          + " end)")
+  private Long slotAmount;
+
+  /** Loaded without a row lock, so it may only be credited with an atomic update. */
+  @Transient
+  private boolean creditOnly;
+
+  @ManyToOne(optional = false, fetch = FetchType.LAZY)
   @JoinColumn(nullable = false, updatable = false, name = "user_id")
   private User user;
 
+  @Column(name = "user_id", insertable = false, updatable = false)
+  private Long userId;
+
   public Long getId() {
     return id;
   }
@@ -41,6 +67,30 @@ public class Account {
     this.amount = amount;
   }
 
+  public int getSlotCount() {
+    return slotCount;
+  }
+
+  public void setSlotCount(int slotCount) {
+    this.slotCount = slotCount;
+  }
+
+  public boolean isHot() {
+    return slotCount > 0;
+  }
+
+  public boolean isCreditOnly() {
+    return creditOnly;
+  }
+
+  public void setCreditOnly(boolean creditOnly) {
+    this.creditOnly = creditOnly;
+  }
+
+  public long getTotalAmount() {
+    return amount + (slotAmount == null ? 0L : slotAmount);
+  }
+
   public User getUser() {
     return user;
   }
@@ -48,4 +98,8 @@ public class Account {
   public void setUser(User user) {
     this.user = user;
   }
+
+  public Long getUserId() {
+    return userId;
+  }
 }
@@ -0,0 +1,68 @@
+package com.skypro.simplebanking.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.persistence.*;
+
+/**
+ * One stripe of a hot account's balance. Deposits and incoming transfers add to a slot picked by
+ * their transaction id instead of the {@code accounts} row, so concurrent writers contend on
+ * different rows.
+ */
+@Entity
+@Table(name = "account_slots")
+@IdClass(AccountSlot.Key.class)
+public class AccountSlot {
+  @Id
+  @Column(name = "account_id")
+  private Long accountId;
+
+  @Id
+  private Integer slot;
+
+  @Column(nullable = false)
+  private Long amount;
+
+  protected AccountSlot() {}
+
+  public Long getAccountId() {
+    return accountId;
+  }
+
+  public Integer getSlot() {
+    return slot;
+  }
+
+  public Long getAmount() {
+    return amount;
+  }
+
+  public static class Key implements Serializable {
+    private Long accountId;
+    private Integer slot;
+
+    public Key() {}
+
+    public Key(Long accountId, Integer slot) {
+      this.accountId = accountId;
+      this.slot = slot;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return Objects.equals(accountId, key.accountId) && Objects.equals(slot, key.slot);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(accountId, slot);
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.skypro.simplebanking.entity;
+
+import javax.persistence.*;
+
+/** Highest write-ahead log LSN of a balance engine shard already reflected in {@code accounts}. */
+@Entity
+@Table(name = "engine_checkpoints")
+public class EngineCheckpoint {
+  @Id
+  private Integer shard;
+
+  @Column(nullable = false)
+  private Long lsn;
+
+  public Integer getShard() {
+    return shard;
+  }
+
+  public void setShard(Integer shard) {
+    this.shard = shard;
+  }
+
+  public Long getLsn() {
+    return lsn;
+  }
+
+  public void setLsn(Long lsn) {
+    this.lsn = lsn;
+  }
+}
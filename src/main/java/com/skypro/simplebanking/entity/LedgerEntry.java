@@ -0,0 +1,95 @@
+package com.skypro.simplebanking.entity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import javax.persistence.*;
+
+/**
+ * Append-only record of one balance change. Rows are only ever inserted, in batches, by {@link
+ * com.skypro.simplebanking.service.LedgerService}; the two rows of a transfer share a {@code
+ * transferId}.
+ */
+@Entity
+@Table(
+    name = "ledger_entries",
+    indexes =
+        @Index(
+            name = "ledger_entries_account_created_id_idx",
+            columnList = "account_id, created_at, id"))
+public class LedgerEntry {
+  @Id
+  private Long id;
+
+  @Column(name = "account_id", nullable = false, updatable = false)
+  private Long accountId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "entry_type", nullable = false, updatable = false, length = 16)
+  private LedgerEntryType entryType;
+
+  @Column(nullable = false, updatable = false)
+  private Long amount;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, updatable = false, length = 3)
+  private AccountCurrency currency;
+
+  /** Empty for hot accounts, whose balance is spread over slot rows. */
+  @Column(name = "balance_after", updatable = false)
+  private Long balanceAfter;
+
+  @Column(name = "transfer_id", updatable = false)
+  private Long transferId;
+
+  /** Rate of a cross-currency transfer, in destination units per source unit. */
+  @Column(name = "fx_rate", updatable = false, precision = 20, scale = 10)
+  private BigDecimal fxRate;
+
+  @Column(name = "fx_rate_version", updatable = false)
+  private Long fxRateVersion;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private Instant createdAt;
+
+  protected LedgerEntry() {}
+
+  public Long getId() {
+    return id;
+  }
+
+  public Long getAccountId() {
+    return accountId;
+  }
+
+  public LedgerEntryType getEntryType() {
+    return entryType;
+  }
+
+  public Long getAmount() {
+    return amount;
+  }
+
+  public AccountCurrency getCurrency() {
+    return currency;
+  }
+
+  public Long getBalanceAfter() {
+    return balanceAfter;
+  }
+
+  public Long getTransferId() {
+    return transferId;
+  }
+
+  public BigDecimal getFxRate() {
+    return fxRate;
+  }
+
+  public Long getFxRateVersion() {
+    return fxRateVersion;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+}
@@ -0,0 +1,8 @@
+package com.skypro.simplebanking.entity;
+
+public enum LedgerEntryType {
+  DEPOSIT,
+  WITHDRAWAL,
+  TRANSFER_DEBIT,
+  TRANSFER_CREDIT
+}
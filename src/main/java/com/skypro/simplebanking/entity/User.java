@@ -6,13 +6,17 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(
+    name = "users",
+    uniqueConstraints = @UniqueConstraint(name = "users_username_key", columnNames = "username"))
 public class User {
   @Id
   @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user-generator")
-  @SequenceGenerator(name = "user-generator", sequenceName = "user_sequence")
+  @SequenceGenerator(name = "user-generator", sequenceName = "user_sequence", allocationSize = 50)
   private Long id;
+  @Column(nullable = false)
   private String username;
+  @Column(nullable = false)
   private String password;
   @OneToMany(cascade = CascadeType.ALL, mappedBy = "user")
   private Collection<Account> accounts;
@@ -0,0 +1,49 @@
+package com.skypro.simplebanking.fx;
+
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.exception.InvalidAmountException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/** The rate for one currency pair, as published in the {@link FxRateTable} of {@code version}. */
+public final class FxQuote {
+  private final AccountCurrency from;
+  private final AccountCurrency to;
+  private final BigDecimal rate;
+  private final long version;
+
+  FxQuote(AccountCurrency from, AccountCurrency to, BigDecimal rate, long version) {
+    this.from = from;
+    this.to = to;
+    this.rate = rate;
+    this.version = version;
+  }
+
+  public AccountCurrency getFrom() {
+    return from;
+  }
+
+  public AccountCurrency getTo() {
+    return to;
+  }
+
+  public BigDecimal getRate() {
+    return rate;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  /** Converts {@code amount} of {@link #getFrom()}, rounding the result down. */
+  public long convert(long amount) {
+    try {
+      return BigDecimal.valueOf(amount)
+          .multiply(rate)
+          .setScale(0, RoundingMode.DOWN)
+          .longValueExact();
+    } catch (ArithmeticException e) {
+      throw new InvalidAmountException();
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.skypro.simplebanking.fx;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Enables cross-currency transfers when {@code app.fx.enabled=true}, with rates read from the
+ * {@code fx_rates} table or from {@code app.fx.rates-file}. Only database-backed transfers convert;
+ * the balance engine and transfers between shards still require matching currencies.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.fx.enabled", havingValue = "true")
+public class FxRateConfiguration {
+
+  @Bean(destroyMethod = "close")
+  public FxRateService fxRateService(
+      JdbcTemplate jdbcTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${app.fx.source}") FxRateSourceType source,
+      @Value("${app.fx.rates-file}") String ratesFile,
+      @Value("${app.fx.refresh-interval}") Duration refreshInterval) {
+    Supplier<FxRateTable> loader =
+        source == FxRateSourceType.FILE
+            ? () -> loadFile(Path.of(ratesFile))
+            : () -> loadTable(jdbcTemplate);
+    FxRateService fxRateService = new FxRateService(loader, refreshInterval);
+    Gauge.builder("banking.fx.rates.version", fxRateService, s -> s.getTable().getVersion())
+        .description("Version of the FX rate table transfers convert with")
+        .register(meterRegistry);
+    return fxRateService;
+  }
+
+  private static FxRateTable loadFile(Path path) {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    String version = properties.getProperty("version");
+    if (version == null) {
+      throw new IllegalArgumentException("FX rates file " + path + " has no version");
+    }
+    Map<String, BigDecimal> rates = new HashMap<>();
+    for (String pair : properties.stringPropertyNames()) {
+      if (!pair.equals("version")) {
+        rates.put(pair, new BigDecimal(properties.getProperty(pair).trim()));
+      }
+    }
+    return new FxRateTable(Long.parseLong(version.trim()), rates);
+  }
+
+  private static FxRateTable loadTable(JdbcTemplate jdbcTemplate) {
+    Map<String, BigDecimal> rates = new HashMap<>();
+    long[] version = {0L};
+    jdbcTemplate.query(
+        "SELECT version, base_currency, quote_currency, rate FROM fx_rates"
+            + " WHERE version = (SELECT max(version) FROM fx_rates)",
+        row -> {
+          version[0] = row.getLong("version");
+          rates.put(
+              row.getString("base_currency") + "." + row.getString("quote_currency"),
+              row.getBigDecimal("rate"));
+        });
+    return new FxRateTable(version[0], rates);
+  }
+}
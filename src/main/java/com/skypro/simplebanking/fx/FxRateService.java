@@ -0,0 +1,91 @@
+package com.skypro.simplebanking.fx;
+
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.exception.WrongCurrencyException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves exchange rates to transfers from the current {@link FxRateTable}. Lookups only read an
+ * {@link AtomicReference}, so converting adds neither a lock nor a database round trip to a
+ * transfer. Tables are reloaded in the background and installed only if their version is newer,
+ * so a stale file or a lagging read never rolls rates back.
+ */
+public class FxRateService implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(FxRateService.class);
+
+  private final Supplier<FxRateTable> loader;
+  private final AtomicReference<FxRateTable> table = new AtomicReference<>(FxRateTable.empty());
+  private final ScheduledExecutorService scheduler;
+
+  public FxRateService(Supplier<FxRateTable> loader, Duration refreshInterval) {
+    this.loader = loader;
+    refresh();
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "fx-rate-refresh");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.scheduler.scheduleWithFixedDelay(
+        this::refreshQuietly,
+        refreshInterval.toMillis(),
+        refreshInterval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  public FxRateTable getTable() {
+    return table.get();
+  }
+
+  /** The current quote for the pair; throws {@link WrongCurrencyException} if there is none. */
+  public FxQuote quote(AccountCurrency from, AccountCurrency to) {
+    FxQuote quote = table.get().quote(from, to);
+    if (quote == null) {
+      throw new WrongCurrencyException();
+    }
+    return quote;
+  }
+
+  /** Loads the rates and installs them if they are newer; returns the table now in use. */
+  public FxRateTable refresh() {
+    FxRateTable loaded = loader.get();
+    FxRateTable current =
+        table.accumulateAndGet(
+            loaded,
+            (installed, candidate) ->
+                candidate.getVersion() > installed.getVersion() ? candidate : installed);
+    if (current != loaded && loaded.getVersion() < current.getVersion()) {
+      log.warn(
+          "Ignoring FX rates version {}, version {} is already in use",
+          loaded.getVersion(),
+          current.getVersion());
+    }
+    return current;
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(30, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void refreshQuietly() {
+    try {
+      refresh();
+    } catch (RuntimeException e) {
+      log.warn("Could not refresh FX rates, keeping version {}", table.get().getVersion(), e);
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package com.skypro.simplebanking.fx;
+
+/** Where {@link FxRateService} reads rate tables from. */
+public enum FxRateSourceType {
+  /** The newest version in the {@code fx_rates} table. */
+  TABLE,
+  /** A properties file with a {@code version} key and one {@code USD.EUR=0.92} line per pair. */
+  FILE
+}
@@ -0,0 +1,52 @@
+package com.skypro.simplebanking.fx;
+
+import com.skypro.simplebanking.entity.AccountCurrency;
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * One published set of exchange rates. Immutable: a refresh builds a new table and swaps it in, so
+ * transfers read rates without locking and every quote they get carries the version it came from.
+ * Rates are keyed {@code "USD.EUR"}, meaning EUR per USD. A pair without a rate cannot be
+ * converted, and reverse rates are never derived, since buy and sell rates differ.
+ */
+public final class FxRateTable {
+  private static final int CURRENCIES = AccountCurrency.values().length;
+
+  private final long version;
+  private final FxQuote[] quotes = new FxQuote[CURRENCIES * CURRENCIES];
+
+  public FxRateTable(long version, Map<String, BigDecimal> rates) {
+    this.version = version;
+    rates.forEach(
+        (pair, rate) -> {
+          int dot = pair.indexOf('.');
+          if (dot < 0) {
+            throw new IllegalArgumentException("Currency pair should look like USD.EUR: " + pair);
+          }
+          AccountCurrency from = AccountCurrency.valueOf(pair.substring(0, dot).trim());
+          AccountCurrency to = AccountCurrency.valueOf(pair.substring(dot + 1).trim());
+          if (from == to || rate.signum() <= 0) {
+            throw new IllegalArgumentException("Invalid rate " + rate + " for " + pair);
+          }
+          quotes[index(from, to)] = new FxQuote(from, to, rate, version);
+        });
+  }
+
+  public static FxRateTable empty() {
+    return new FxRateTable(0L, Map.of());
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  /** The quote for converting {@code from} into {@code to}, or null if none is published. */
+  public FxQuote quote(AccountCurrency from, AccountCurrency to) {
+    return quotes[index(from, to)];
+  }
+
+  private static int index(AccountCurrency from, AccountCurrency to) {
+    return from.ordinal() * CURRENCIES + to.ordinal();
+  }
+}
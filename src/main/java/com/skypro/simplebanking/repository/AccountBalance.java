@@ -0,0 +1,13 @@
+package com.skypro.simplebanking.repository;
+
+import com.skypro.simplebanking.entity.AccountCurrency;
+
+public interface AccountBalance {
+  Long getId();
+
+  Long getAmount();
+
+  AccountCurrency getAccountCurrency();
+
+  int getSlotCount();
+}
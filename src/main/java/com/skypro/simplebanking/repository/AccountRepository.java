@@ -1,11 +1,111 @@
 package com.skypro.simplebanking.repository;
 
+import com.skypro.simplebanking.dto.AccountDTO;
 import com.skypro.simplebanking.entity.Account;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import javax.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
   Optional<Account> getAccountByUser_IdAndId(Long userId, Long accountId);
+
+  @Query(
+      "select new com.skypro.simplebanking.dto.AccountDTO("
+          + "a.id, a.amount + a.slotAmount, a.accountCurrency)"
+          + " from Account a where a.userId = :userId and a.id = :accountId")
+  Optional<AccountDTO> findAccountDTO(
+      @Param("userId") long userId, @Param("accountId") long accountId);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select a from Account a where a.id in :ids order by a.id")
+  List<Account> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+  @Query(
+      nativeQuery = true,
+      value =
+          "UPDATE accounts SET amount = amount + :amount"
+              + " WHERE id = :accountId AND user_id = :userId AND slot_count = 0"
+              + " RETURNING id, amount, account_currency AS \"accountCurrency\","
+              + " slot_count AS \"slotCount\"")
+  Optional<AccountBalance> depositAtomically(
+      @Param("userId") long userId,
+      @Param("accountId") long accountId,
+      @Param("amount") long amount);
+
+  @Query(
+      nativeQuery = true,
+      value =
+          "UPDATE accounts SET amount = amount - :amount"
+              + " WHERE id = :accountId AND user_id = :userId AND amount >= :amount"
+              + " RETURNING id, amount, account_currency AS \"accountCurrency\","
+              + " slot_count AS \"slotCount\"")
+  Optional<AccountBalance> withdrawAtomically(
+      @Param("userId") long userId,
+      @Param("accountId") long accountId,
+      @Param("amount") long amount);
+
+  @Query("select a.id from Account a where a.id in :ids and a.slotCount > 0")
+  List<Long> findHotAccountIds(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Adds to the slot of a hot account that belongs to the current transaction, picked from its
+   * transaction id, so a transaction never holds more than one slot of an account. Only the slot
+   * row is locked; the {@code accounts} row is merely read. Returns 0 when the account is not (or
+   * no longer) hot.
+   */
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          "UPDATE account_slots s SET amount = s.amount + :amount FROM accounts a"
+              + " WHERE a.id = :accountId AND a.user_id = :userId AND a.slot_count > 0"
+              + " AND s.account_id = a.id AND s.slot = mod(txid_current(), a.slot_count)")
+  int depositToSlot(
+      @Param("userId") long userId,
+      @Param("accountId") long accountId,
+      @Param("amount") long amount);
+
+  /** Locks the slot {@link #depositToSlot} will credit in this transaction. */
+  @Query(
+      nativeQuery = true,
+      value =
+          "SELECT s.slot FROM account_slots s JOIN accounts a ON a.id = s.account_id"
+              + " WHERE a.id = :accountId AND a.slot_count > 0"
+              + " AND s.slot = mod(txid_current(), a.slot_count) FOR UPDATE OF s")
+  List<Integer> lockCreditSlot(@Param("accountId") long accountId);
+
+  /** Locks every slot of an account in slot order, zeroes them and returns what they held. */
+  @Query(
+      nativeQuery = true,
+      value =
+          "WITH held AS (SELECT slot, amount FROM account_slots"
+              + " WHERE account_id = :accountId ORDER BY slot FOR UPDATE),"
+              + " swept AS (UPDATE account_slots s SET amount = 0 FROM held"
+              + " WHERE s.account_id = :accountId AND s.slot = held.slot AND held.amount <> 0"
+              + " RETURNING held.amount)"
+              + " SELECT CAST(coalesce(sum(amount), 0) AS bigint) FROM swept")
+  long sweepSlots(@Param("accountId") long accountId);
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value = "DELETE FROM account_slots WHERE account_id = :accountId AND slot >= :slotCount")
+  int deleteSlotsFrom(@Param("accountId") long accountId, @Param("slotCount") int slotCount);
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          "INSERT INTO account_slots (account_id, slot, amount)"
+              + " SELECT :accountId, slot, 0 FROM generate_series(0, :slotCount - 1) AS slot"
+              + " ON CONFLICT DO NOTHING")
+  int createSlots(@Param("accountId") long accountId, @Param("slotCount") int slotCount);
 }
@@ -1,11 +1,44 @@
 package com.skypro.simplebanking.repository;
 
+import com.skypro.simplebanking.dto.UserAccountRow;
 import com.skypro.simplebanking.entity.User;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+  String USER_ACCOUNT_ROW =
+      "select new com.skypro.simplebanking.dto.UserAccountRow("
+          + "u.id, u.username, a.id, a.accountCurrency, a.amount + a.slotAmount)"
+          + " from User u left join u.accounts a";
+
   Optional<User> findByUsername(String username);
+
+  @Query("select u.username from User u where u.username in :usernames")
+  List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+  @Query("select u.id from User u where u.id > :afterId order by u.id")
+  List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+  @Query(USER_ACCOUNT_ROW + " where u.id = :userId order by a.id")
+  List<UserAccountRow> findUserAccountRows(@Param("userId") long userId);
+
+  @Query(USER_ACCOUNT_ROW + " where u.id in :userIds order by u.id, a.id")
+  List<UserAccountRow> findUserAccountRows(@Param("userIds") Collection<Long> userIds);
+
+  @Query(USER_ACCOUNT_ROW + " order by u.id, a.id")
+  List<UserAccountRow> findAllUserAccountRows();
+
+  @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+  @Query(USER_ACCOUNT_ROW + " order by u.id, a.id")
+  Stream<UserAccountRow> streamAllUserAccountRows();
 }
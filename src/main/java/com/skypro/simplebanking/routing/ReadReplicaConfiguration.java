@@ -0,0 +1,71 @@
+package com.skypro.simplebanking.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Replaces Boot's single pool with a primary and {@code app.replica.urls} read replicas. Only one
+ * {@link DataSource} bean is exposed, so JPA, JdbcTemplate and the SQL budget proxy see one pool.
+ * The pools are built here and register their own Hikari metrics, tagged by pool name.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.replica.enabled", havingValue = "true")
+public class ReadReplicaConfiguration {
+
+  @Bean(destroyMethod = "close")
+  public ReadReplicaRouter readReplicaRouter(
+      DataSourceProperties dataSourceProperties,
+      Environment environment,
+      MeterRegistry meterRegistry,
+      @Value("${app.replica.urls}") String[] urls,
+      @Value("${app.replica.username:${spring.datasource.username}}") String username,
+      @Value("${app.replica.password:${spring.datasource.password}}") String password,
+      @Value("${app.replica.pool-size}") int poolSize,
+      @Value("${app.replica.connection-timeout}") Duration connectionTimeout,
+      @Value("${app.replica.selection}") ReplicaSelection selection,
+      @Value("${app.replica.max-lag}") Duration maxLag,
+      @Value("${app.replica.health-check-interval}") Duration healthCheckInterval) {
+    HikariDataSource primary =
+        dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+    if (primary.getPoolName() == null) {
+      primary.setPoolName("primary");
+    }
+    primary.setMetricRegistry(meterRegistry);
+
+    List<HikariDataSource> replicas = new ArrayList<>();
+    for (int i = 0; i < urls.length; i++) {
+      HikariDataSource replica = new HikariDataSource();
+      replica.setPoolName("replica-" + i);
+      replica.setJdbcUrl(urls[i]);
+      replica.setUsername(username);
+      replica.setPassword(password);
+      replica.setMaximumPoolSize(poolSize);
+      replica.setConnectionTimeout(connectionTimeout.toMillis());
+      replica.setReadOnly(true);
+      // A replica that is down at startup must not keep the application from starting.
+      replica.setInitializationFailTimeout(-1);
+      replica.setMetricRegistry(meterRegistry);
+      replicas.add(replica);
+    }
+    return new ReadReplicaRouter(primary, replicas, selection, maxLag, healthCheckInterval);
+  }
+
+  @Bean
+  public DataSource dataSource(ReadReplicaRouter readReplicaRouter) {
+    return new LazyConnectionDataSourceProxy(readReplicaRouter.getDataSource());
+  }
+}
@@ -0,0 +1,182 @@
+package com.skypro.simplebanking.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections of read-only transactions to a replica and everything else to the primary.
+ * Replicas are checked every {@code healthCheckInterval}. One that cannot be reached, or whose
+ * replay lags the primary by more than {@code maxLag}, is skipped until a later check succeeds.
+ * With no usable replica, reads go to the primary.
+ *
+ * <p>The routing decision is made when a connection is requested, so {@link #getDataSource()} has
+ * to sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ * Otherwise the transaction manager takes its connection before the read-only flag is bound.
+ */
+public class ReadReplicaRouter implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(ReadReplicaRouter.class);
+
+  /** Replay lag in milliseconds; zero on a primary and on a standby that has replayed all WAL. */
+  private static final String LAG_QUERY =
+      "SELECT CASE WHEN NOT pg_is_in_recovery()"
+          + " OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+          + " ELSE coalesce(extract(epoch FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)"
+          + " END";
+
+  private final HikariDataSource primary;
+  private final List<Replica> replicas;
+  private final ReplicaSelection selection;
+  private final long maxLagMillis;
+  private final AtomicInteger next = new AtomicInteger();
+  private final ScheduledExecutorService scheduler;
+  private final DataSource dataSource = new RoutingDataSource();
+
+  public ReadReplicaRouter(
+      HikariDataSource primary,
+      List<HikariDataSource> replicas,
+      ReplicaSelection selection,
+      Duration maxLag,
+      Duration healthCheckInterval) {
+    this.primary = primary;
+    this.replicas = replicas.stream().map(Replica::new).collect(Collectors.toList());
+    this.selection = selection;
+    this.maxLagMillis = maxLag.toMillis();
+    checkReplicas();
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "read-replica-health");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.scheduler.scheduleWithFixedDelay(
+        this::checkReplicas,
+        healthCheckInterval.toMillis(),
+        healthCheckInterval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  public DataSource getDataSource() {
+    return dataSource;
+  }
+
+  /** Re-evaluates every replica; run on the health check schedule. */
+  public void checkReplicas() {
+    for (Replica replica : replicas) {
+      boolean healthy;
+      try (Connection connection = replica.pool.getConnection();
+          Statement statement = connection.createStatement();
+          ResultSet lag = statement.executeQuery(LAG_QUERY)) {
+        lag.next();
+        long lagMillis = lag.getLong(1);
+        healthy = lagMillis <= maxLagMillis;
+        if (!healthy && replica.healthy) {
+          log.warn("Replica {} lags {} ms behind, reading from others", replica.name(), lagMillis);
+        }
+      } catch (SQLException e) {
+        healthy = false;
+        if (replica.healthy) {
+          log.warn("Replica {} is unreachable, reading from others", replica.name(), e);
+        }
+      }
+      if (healthy && !replica.healthy) {
+        log.info("Replica {} is back in rotation", replica.name());
+      }
+      replica.healthy = healthy;
+    }
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+    replicas.forEach(replica -> replica.pool.close());
+    primary.close();
+  }
+
+  private Connection getConnection() throws SQLException {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return primary.getConnection();
+    }
+    Replica replica = select();
+    while (replica != null) {
+      try {
+        return replica.pool.getConnection();
+      } catch (SQLException e) {
+        log.warn("Replica {} refused a connection, reading from others", replica.name(), e);
+        replica.healthy = false;
+        replica = select();
+      }
+    }
+    return primary.getConnection();
+  }
+
+  private Replica select() {
+    int size = replicas.size();
+    if (selection == ReplicaSelection.LEAST_LOADED) {
+      Replica best = null;
+      int bestActive = Integer.MAX_VALUE;
+      for (Replica replica : replicas) {
+        int active = replica.activeConnections();
+        if (replica.healthy && active < bestActive) {
+          best = replica;
+          bestActive = active;
+        }
+      }
+      return best;
+    }
+    int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+    for (int i = 0; i < size; i++) {
+      Replica replica = replicas.get((start + i) % size);
+      if (replica.healthy) {
+        return replica;
+      }
+    }
+    return null;
+  }
+
+  private static final class Replica {
+    private final HikariDataSource pool;
+    private volatile boolean healthy;
+
+    private Replica(HikariDataSource pool) {
+      this.pool = pool;
+    }
+
+    private String name() {
+      return pool.getPoolName();
+    }
+
+    private int activeConnections() {
+      return pool.getHikariPoolMXBean() == null
+          ? 0
+          : pool.getHikariPoolMXBean().getActiveConnections();
+    }
+  }
+
+  private final class RoutingDataSource extends AbstractDataSource {
+    @Override
+    public Connection getConnection() throws SQLException {
+      return ReadReplicaRouter.this.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+      return primary.getConnection(username, password);
+    }
+  }
+}
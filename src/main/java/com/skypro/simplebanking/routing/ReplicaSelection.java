@@ -0,0 +1,8 @@
+package com.skypro.simplebanking.routing;
+
+/** How {@link ReadReplicaRouter} picks among the healthy replicas. */
+public enum ReplicaSelection {
+  ROUND_ROBIN,
+  /** The replica whose pool has the fewest connections in use. */
+  LEAST_LOADED
+}
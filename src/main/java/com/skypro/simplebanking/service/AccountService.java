@@ -1,25 +1,92 @@
 package com.skypro.simplebanking.service;
 
 import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.engine.BalanceEngine;
 import com.skypro.simplebanking.entity.Account;
 import com.skypro.simplebanking.entity.AccountCurrency;
 import com.skypro.simplebanking.entity.User;
 import com.skypro.simplebanking.exception.AccountNotFoundException;
 import com.skypro.simplebanking.exception.InsufficientFundsException;
 import com.skypro.simplebanking.exception.InvalidAmountException;
+import com.skypro.simplebanking.exception.InvalidSlotCountException;
 import com.skypro.simplebanking.exception.WrongCurrencyException;
+import com.skypro.simplebanking.fx.FxQuote;
+import com.skypro.simplebanking.fx.FxRateService;
+import com.skypro.simplebanking.repository.AccountBalance;
 import com.skypro.simplebanking.repository.AccountRepository;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class AccountService {
+  private static final int LOCK_QUERY_SLICE = 1000;
+  private static final int MAX_SLOT_COUNT = 256;
+
   private final AccountRepository accountRepository;
+  private final LedgerService ledgerService;
+  private final UserAccountCache userAccountCache;
+  private final BalanceEngine balanceEngine;
+  private final FxRateService fxRateService;
+  private final TransactionTemplate primaryRead;
 
-  public AccountService(AccountRepository accountRepository) {
+  public AccountService(
+      AccountRepository accountRepository,
+      LedgerService ledgerService,
+      UserAccountCache userAccountCache,
+      ObjectProvider<BalanceEngine> balanceEngine,
+      ObjectProvider<FxRateService> fxRateService,
+      PlatformTransactionManager transactionManager) {
     this.accountRepository = accountRepository;
+    this.ledgerService = ledgerService;
+    this.userAccountCache = userAccountCache;
+    this.balanceEngine = balanceEngine.getIfAvailable();
+    this.fxRateService = fxRateService.getIfAvailable();
+    // Read-write, so the read replica router keeps it on the primary.
+    this.primaryRead = new TransactionTemplate(transactionManager);
+  }
+
+  /** Whether balances are owned by the in-memory {@link BalanceEngine} instead of the database. */
+  public boolean isEngineEnabled() {
+    return balanceEngine != null;
+  }
+
+  /**
+   * {@code user} with its balances read from the {@link BalanceEngine}, which is ahead of the
+   * {@code accounts} table; unchanged while the engine is disabled.
+   */
+  public UserDTO withCurrentBalances(UserDTO user) {
+    if (balanceEngine == null) {
+      return user;
+    }
+    return new UserDTO(
+        user.getId(),
+        user.getUsername(),
+        user.getAccounts().stream()
+            .map(
+                account ->
+                    new AccountDTO(
+                        account.getId(),
+                        balanceEngine.balance(user.getId(), account.getId()),
+                        account.getCurrency()))
+            .collect(Collectors.toList()));
   }
 
   @Transactional(propagation = Propagation.MANDATORY)
@@ -33,54 +100,307 @@ public class AccountService {
       user.getAccounts().add(account);
       accountRepository.save(account);
     }
+    if (balanceEngine != null) {
+      List<Account> accounts = List.copyOf(user.getAccounts());
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              for (Account account : accounts) {
+                balanceEngine.register(
+                    account.getId(),
+                    user.getId(),
+                    account.getAccountCurrency(),
+                    account.getAmount());
+              }
+            }
+          });
+    }
   }
 
-  @Transactional(readOnly = true)
   public AccountDTO getAccount(long userId, Long accountId) {
-    return accountRepository
-        .getAccountByUser_IdAndId(userId, accountId)
-        .map(AccountDTO::from)
-        .orElseThrow(AccountNotFoundException::new);
+    if (balanceEngine != null) {
+      return new AccountDTO(
+          accountId,
+          balanceEngine.balance(userId, accountId),
+          balanceEngine.currency(accountId));
+    }
+    return userAccountCache.getAccount(
+        userId,
+        accountId,
+        () ->
+            primaryRead.execute(
+                status ->
+                    accountRepository
+                        .findAccountDTO(userId, accountId)
+                        .orElseThrow(AccountNotFoundException::new)));
   }
 
-  @Transactional
-  public void validateCurrency(long sourceAccount, long destinationAccount) {
-    Account acc1 =
-        accountRepository.findById(sourceAccount).orElseThrow(AccountNotFoundException::new);
-    Account acc2 =
-        accountRepository.findById(destinationAccount).orElseThrow(AccountNotFoundException::new);
-    if (!acc1.getAccountCurrency().equals(acc2.getAccountCurrency())){
-      throw new WrongCurrencyException();
+  /**
+   * Loads the accounts taking part in transfers. Debited accounts and regular credited accounts
+   * are locked in id order; hot accounts that are only credited are loaded without a lock and
+   * marked {@link Account#isCreditOnly() credit-only}, so incoming transfers do not serialize on
+   * their row.
+   *
+   * <p>Slot rows are locked next, again in account id order: the one slot this transaction credits
+   * on a credit-only account, and every slot of a locked hot account, whose slots are swept into
+   * its row right away. Later statements only touch rows locked here, so two transfers never wait
+   * on each other's slots in opposite orders.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public Map<Long, Account> lockAccounts(
+      Collection<Long> debitedAccountIds, Collection<Long> creditedAccountIds) {
+    Set<Long> lockedIds = new HashSet<>(debitedAccountIds);
+    Set<Long> unlockedIds = new HashSet<>(creditedAccountIds);
+    unlockedIds.removeAll(lockedIds);
+    if (!unlockedIds.isEmpty()) {
+      unlockedIds.retainAll(accountRepository.findHotAccountIds(unlockedIds));
+    }
+    for (Long accountId : creditedAccountIds) {
+      if (!unlockedIds.contains(accountId)) {
+        lockedIds.add(accountId);
+      }
+    }
+    List<Long> sortedIds = lockedIds.stream().sorted().collect(Collectors.toList());
+    Map<Long, Account> accounts = new HashMap<>();
+    for (int from = 0; from < sortedIds.size(); from += LOCK_QUERY_SLICE) {
+      List<Long> slice =
+          sortedIds.subList(from, Math.min(from + LOCK_QUERY_SLICE, sortedIds.size()));
+      for (Account account : accountRepository.findAllByIdInForUpdate(slice)) {
+        accounts.put(account.getId(), account);
+      }
+    }
+    if (!unlockedIds.isEmpty()) {
+      for (Account account : accountRepository.findAllById(unlockedIds)) {
+        account.setCreditOnly(true);
+        accounts.put(account.getId(), account);
+      }
     }
+    lockSlots(accounts);
+    return accounts;
   }
 
-  @Transactional
-  public AccountDTO depositToAccount(long userId, Long accountId, long amount) {
+  public void applyTransfer(
+      long userId, TransferRequest transferRequest, Map<Long, Account> lockedAccounts) {
+    Account source = lockedAccounts.get(transferRequest.getFromAccountId());
+    Account destination = lockedAccounts.get(transferRequest.getToAccountId());
+    if (source == null || destination == null) {
+      throw new AccountNotFoundException();
+    }
+    FxQuote fxQuote = quoteFor(source, destination);
+    long amount = transferRequest.getAmount();
+    if (amount < 0) {
+      throw new InvalidAmountException();
+    }
+    if (source.getUserId() != userId || destination.getUserId() != transferRequest.getToUserId()) {
+      throw new AccountNotFoundException();
+    }
+    long creditedAmount = fxQuote == null ? amount : fxQuote.convert(amount);
+    if (creditedAmount == 0 && amount > 0) {
+      // Too small to survive the conversion: the sender would pay for nothing.
+      throw new InvalidAmountException();
+    }
+    debit(source, amount);
+    userAccountCache.accountChanged(source.getUserId(), source.getId());
+    userAccountCache.accountChanged(destination.getUserId(), destination.getId());
+    if (destination.isHot() || destination.isCreditOnly()) {
+      creditAtomically(destination, creditedAmount);
+    } else {
+      destination.setAmount(destination.getAmount() + creditedAmount);
+    }
+    ledgerService.recordTransfer(source, destination, amount, creditedAmount, fxQuote);
+  }
+
+  /**
+   * Debits the source of a cross-shard transfer, whose destination lives on another shard. Runs in
+   * the caller's transaction so the debit commits together with the saga record.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void debitTransfer(
+      long userId, long accountId, AccountCurrency currency, long amount, long transferId) {
     if (amount < 0) {
       throw new InvalidAmountException();
     }
+    Account source = lockAccounts(List.of(accountId), List.of()).get(accountId);
+    if (source == null || source.getUserId() != userId) {
+      throw new AccountNotFoundException();
+    }
+    if (source.getAccountCurrency() != currency) {
+      throw new WrongCurrencyException();
+    }
+    debit(source, amount);
+    userAccountCache.accountChanged(userId, accountId);
+    ledgerService.recordTransferDebit(source, amount, transferId);
+  }
+
+  /** Credits one side of a cross-shard transfer: its destination, or its source on a refund. */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void creditTransfer(long userId, long accountId, long amount, long transferId) {
     Account account =
         accountRepository
             .getAccountByUser_IdAndId(userId, accountId)
             .orElseThrow(AccountNotFoundException::new);
-    account.setAmount(account.getAmount() + amount);
-    return AccountDTO.from(account);
+    userAccountCache.accountChanged(userId, accountId);
+    creditAtomically(account, amount);
+    ledgerService.recordTransferCredit(account, amount, transferId);
   }
 
+  /**
+   * Stripes a hot account's balance across {@code slotCount} slot rows, or turns striping off with
+   * 0. Existing slots are swept into the account row first, so the total never changes.
+   */
   @Transactional
-  public AccountDTO withdrawFromAccount(long id, Long accountId, long amount) {
+  public AccountDTO setSlotCount(long accountId, int slotCount) {
+    if (slotCount < 0
+        || slotCount > MAX_SLOT_COUNT
+        || (balanceEngine != null && slotCount > 0)) {
+      throw new InvalidSlotCountException();
+    }
+    Account account = lockAccounts(List.of(accountId), List.of()).get(accountId);
+    if (account == null) {
+      throw new AccountNotFoundException();
+    }
+    account.setSlotCount(slotCount);
+    userAccountCache.accountChanged(account.getUserId(), accountId);
+    accountRepository.deleteSlotsFrom(accountId, slotCount);
+    accountRepository.createSlots(accountId, slotCount);
+    return new AccountDTO(accountId, account.getAmount(), account.getAccountCurrency());
+  }
+
+  /** Moves money through the {@link BalanceEngine}; only valid when it is enabled. */
+  public void transferInEngine(long userId, TransferRequest transferRequest) {
+    balanceEngine.transfer(
+        userId,
+        transferRequest.getFromAccountId(),
+        transferRequest.getToUserId(),
+        transferRequest.getToAccountId(),
+        transferRequest.getAmount());
+  }
+
+  @Transactional
+  public AccountDTO depositToAccount(long userId, Long accountId, long amount) {
     if (amount < 0) {
       throw new InvalidAmountException();
     }
-    Account account =
+    if (balanceEngine != null) {
+      return new AccountDTO(
+          accountId,
+          balanceEngine.deposit(userId, accountId, amount),
+          balanceEngine.currency(accountId));
+    }
+    userAccountCache.accountChanged(userId, accountId);
+    Optional<AccountBalance> deposited =
+        accountRepository.depositAtomically(userId, accountId, amount);
+    if (deposited.isPresent()) {
+      ledgerService.recordDeposit(
+          accountId, deposited.get().getAccountCurrency(), amount, deposited.get().getAmount());
+      return toAccountDTO(deposited.get());
+    }
+    // Not a regular account: a hot one, or none at all.
+    creditAtomically(userId, accountId, amount);
+    AccountDTO total =
         accountRepository
-            .getAccountByUser_IdAndId(id, accountId)
+            .findAccountDTO(userId, accountId)
             .orElseThrow(AccountNotFoundException::new);
-    if (account.getAmount() < amount) {
+    ledgerService.recordDeposit(accountId, total.getCurrency(), amount, total.getAmount());
+    return total;
+  }
+
+  @Transactional
+  public AccountDTO withdrawFromAccount(long id, Long accountId, long amount) {
+    if (amount < 0) {
+      throw new InvalidAmountException();
+    }
+    if (balanceEngine != null) {
+      return new AccountDTO(
+          accountId,
+          balanceEngine.withdraw(id, accountId, amount),
+          balanceEngine.currency(accountId));
+    }
+    userAccountCache.accountChanged(id, accountId);
+    Optional<AccountBalance> withdrawn =
+        accountRepository.withdrawAtomically(id, accountId, amount);
+    if (withdrawn.isPresent()) {
+      AccountDTO balance =
+          withdrawn.get().getSlotCount() > 0
+              ? accountRepository
+                  .findAccountDTO(id, accountId)
+                  .orElseThrow(AccountNotFoundException::new)
+              : toAccountDTO(withdrawn.get());
+      ledgerService.recordWithdrawal(
+          accountId, balance.getCurrency(), amount, balance.getAmount());
+      return balance;
+    }
+    // The row alone cannot cover it; locking a hot account sweeps its slots into the row.
+    Account account = lockAccounts(List.of(accountId), List.of()).get(accountId);
+    if (account == null || account.getUserId() != id) {
+      throw new AccountNotFoundException();
+    }
+    debit(account, amount);
+    ledgerService.recordWithdrawal(
+        accountId, account.getAccountCurrency(), amount, account.getAmount());
+    return new AccountDTO(accountId, account.getAmount(), account.getAccountCurrency());
+  }
+
+  /**
+   * The rate a transfer between the two accounts converts with, or null if they share a currency.
+   * Without {@link FxRateService}, or without a published rate, currencies must match.
+   */
+  private FxQuote quoteFor(Account source, Account destination) {
+    if (source.getAccountCurrency() == destination.getAccountCurrency()) {
+      return null;
+    }
+    if (fxRateService == null) {
+      throw new WrongCurrencyException();
+    }
+    return fxRateService.quote(source.getAccountCurrency(), destination.getAccountCurrency());
+  }
+
+  /** Takes {@code amount} from an account {@link #lockAccounts locked} for debiting. */
+  private void debit(Account source, long amount) {
+    if (source.getAmount() < amount) {
       throw new InsufficientFundsException(
-          "Cannot withdraw " + amount + " " + account.getAccountCurrency().name());
+          "Cannot withdraw " + amount + " " + source.getAccountCurrency().name());
+    }
+    source.setAmount(source.getAmount() - amount);
+  }
+
+  /**
+   * Locks the slot rows {@link #lockAccounts} promises, in account id order. A locked hot account
+   * has its slots swept into its row, so debiting it needs no further slot locks.
+   */
+  private void lockSlots(Map<Long, Account> accounts) {
+    List<Account> hotAccounts =
+        accounts.values().stream()
+            .filter(account -> account.isHot() || account.isCreditOnly())
+            .sorted(Comparator.comparing(Account::getId))
+            .collect(Collectors.toList());
+    for (Account account : hotAccounts) {
+      if (account.isCreditOnly()) {
+        accountRepository.lockCreditSlot(account.getId());
+      } else {
+        account.setAmount(account.getAmount() + accountRepository.sweepSlots(account.getId()));
+      }
     }
-    account.setAmount(account.getAmount() - amount);
-    return AccountDTO.from(account);
+  }
+
+  private void creditAtomically(Account account, long amount) {
+    creditAtomically(account.getUserId(), account.getId(), amount);
+  }
+
+  /**
+   * Credits a hot account's slot, or the row of a regular one. Striping may be switched on or off
+   * between the statements, so the slot is tried again before giving up.
+   */
+  private void creditAtomically(long userId, long accountId, long amount) {
+    if (accountRepository.depositToSlot(userId, accountId, amount) == 0
+        && accountRepository.depositAtomically(userId, accountId, amount).isEmpty()
+        && accountRepository.depositToSlot(userId, accountId, amount) == 0) {
+      throw new AccountNotFoundException();
+    }
+  }
+
+  private static AccountDTO toAccountDTO(AccountBalance balance) {
+    return new AccountDTO(balance.getId(), balance.getAmount(), balance.getAccountCurrency());
   }
 }
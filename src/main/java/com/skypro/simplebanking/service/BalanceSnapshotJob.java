@@ -0,0 +1,120 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.sharding.ShardDirectory;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes the {@code balance_snapshots} that {@link StatementService} starts from. Each run
+ * snapshots, as of {@code now - lag}, every account with ledger entries since the previous run and
+ * every account that has no snapshot yet, so no account is ever more than one interval of entries
+ * past its newest snapshot. A snapshot is the current balance minus the entries created after its
+ * time, which also covers balances that never went through the ledger, such as opening ones.
+ *
+ * <p>Entries get their {@code created_at} just before their transaction commits, so the lag must
+ * exceed the time a commit can take; otherwise an entry could become visible after a snapshot that
+ * should have included it. The job is off with the balance engine, which leaves {@code accounts}
+ * behind the in-memory balances and writes no ledger entries.
+ */
+@Component
+@ConditionalOnProperty(name = "app.engine.enabled", havingValue = "false", matchIfMissing = true)
+public class BalanceSnapshotJob {
+  private static final Logger log = LoggerFactory.getLogger(BalanceSnapshotJob.class);
+  private static final String LAST_RUN = "SELECT max(snapshot_at) FROM balance_snapshot_runs";
+  private static final String SNAPSHOT =
+      "INSERT INTO balance_snapshots (account_id, snapshot_at, balance)"
+          + " SELECT a.id, ?, a.amount + CASE WHEN a.slot_count = 0 THEN 0"
+          + " ELSE (SELECT coalesce(sum(s.amount), 0) FROM account_slots s"
+          + " WHERE s.account_id = a.id) END"
+          + " - coalesce((SELECT sum(e.amount) FROM ledger_entries e"
+          + " WHERE e.account_id = a.id AND e.created_at > ?), 0)"
+          + " FROM accounts a"
+          + " WHERE a.id IN (SELECT e.account_id FROM ledger_entries e"
+          + " WHERE e.created_at > ? AND e.created_at <= ?)"
+          + " OR NOT EXISTS (SELECT 1 FROM balance_snapshots s WHERE s.account_id = a.id)"
+          + " ON CONFLICT DO NOTHING";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ShardDirectory shardDirectory;
+  private final Duration lag;
+  private final ScheduledExecutorService scheduler;
+
+  public BalanceSnapshotJob(
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      ObjectProvider<ShardDirectory> shardDirectory,
+      @Value("${app.statement.snapshot-interval}") Duration interval,
+      @Value("${app.statement.snapshot-lag}") Duration lag) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.shardDirectory = shardDirectory.getIfAvailable();
+    this.lag = lag;
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "balance-snapshot");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.scheduler.scheduleWithFixedDelay(
+        this::snapshotQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /** Snapshots the accounts of every shard as of {@code now - lag}. */
+  public synchronized void snapshot() {
+    Timestamp snapshotAt = Timestamp.from(Instant.now().minus(lag));
+    if (shardDirectory == null) {
+      snapshotShard(snapshotAt);
+    } else {
+      shardDirectory.forEachShard(() -> snapshotShard(snapshotAt));
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(30, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void snapshotShard(Timestamp snapshotAt) {
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          Timestamp lastRun = jdbcTemplate.queryForObject(LAST_RUN, Timestamp.class);
+          if (lastRun != null && !lastRun.before(snapshotAt)) {
+            return;
+          }
+          Timestamp since = lastRun == null ? new Timestamp(0L) : lastRun;
+          int accounts = jdbcTemplate.update(SNAPSHOT, snapshotAt, snapshotAt, since, snapshotAt);
+          jdbcTemplate.update(
+              "INSERT INTO balance_snapshot_runs (snapshot_at) VALUES (?) ON CONFLICT DO NOTHING",
+              snapshotAt);
+          log.debug("Snapshotted {} account balances as of {}", accounts, snapshotAt);
+        });
+  }
+
+  private void snapshotQuietly() {
+    try {
+      snapshot();
+    } catch (RuntimeException e) {
+      log.warn("Balance snapshot failed, will retry", e);
+    }
+  }
+}
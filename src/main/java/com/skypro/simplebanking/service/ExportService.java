@@ -0,0 +1,103 @@
+package com.skypro.simplebanking.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypro.simplebanking.engine.BalanceEngine;
+import com.skypro.simplebanking.sharding.ShardDirectory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class ExportService {
+  private static final String USER_ACCOUNTS_QUERY =
+      "SELECT u.id AS user_id, u.username, a.id AS account_id, a.account_currency,"
+          + " a.amount + CASE WHEN a.slot_count = 0 THEN 0 ELSE (SELECT coalesce(sum(s.amount), 0)"
+          + " FROM account_slots s WHERE s.account_id = a.id) END AS amount"
+          + " FROM users u LEFT JOIN accounts a ON a.user_id = u.id";
+
+  private final JdbcTemplate cursorJdbcTemplate;
+  private final TransactionTemplate readOnlyTransaction;
+  private final ObjectMapper objectMapper;
+  private final ShardDirectory shardDirectory;
+  private final BalanceEngine balanceEngine;
+
+  public ExportService(
+      DataSource dataSource,
+      PlatformTransactionManager transactionManager,
+      ObjectMapper objectMapper,
+      ObjectProvider<ShardDirectory> shardDirectory,
+      ObjectProvider<BalanceEngine> balanceEngine,
+      @Value("${app.export.fetch-size}") int fetchSize) {
+    this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+    this.cursorJdbcTemplate.setFetchSize(fetchSize);
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.objectMapper = objectMapper;
+    this.shardDirectory = shardDirectory.getIfAvailable();
+    this.balanceEngine = balanceEngine.getIfAvailable();
+  }
+
+  /**
+   * Writes one JSON line per user account; with sharding, shard after shard. With the balance
+   * engine enabled, amounts come from the engine rather than the lagging {@code accounts} table.
+   */
+  public void exportUserAccounts(OutputStream outputStream) {
+    try {
+      JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+      generator.setRootValueSeparator(new SerializedString("\n"));
+      if (shardDirectory == null) {
+        exportShard(generator);
+      } else {
+        shardDirectory.forEachShard(() -> exportShard(generator));
+      }
+      generator.writeRaw('\n');
+      generator.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void exportShard(JsonGenerator generator) {
+    readOnlyTransaction.executeWithoutResult(
+        status ->
+            cursorJdbcTemplate.query(
+                USER_ACCOUNTS_QUERY, (RowCallbackHandler) row -> writeRow(generator, row)));
+  }
+
+  private void writeRow(JsonGenerator generator, ResultSet row) throws SQLException {
+    try {
+      generator.writeStartObject();
+      generator.writeNumberField("userId", row.getLong("user_id"));
+      generator.writeStringField("username", row.getString("username"));
+      long accountId = row.getLong("account_id");
+      if (row.wasNull()) {
+        generator.writeNullField("accountId");
+        generator.writeNullField("currency");
+        generator.writeNullField("amount");
+      } else {
+        generator.writeNumberField("accountId", accountId);
+        generator.writeStringField("currency", row.getString("account_currency"));
+        generator.writeNumberField(
+            "amount",
+            balanceEngine == null
+                ? row.getLong("amount")
+                : balanceEngine.balance(row.getLong("user_id"), accountId));
+      }
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.sharding.ShardDirectory;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes idempotency keys older than {@code app.idempotency.ttl} on every shard, so the table
+ * only holds the window in which clients may retry; a retry after that is treated as a new
+ * request.
+ */
+@Component
+public class IdempotencyKeyPurgeJob {
+  private static final Logger log = LoggerFactory.getLogger(IdempotencyKeyPurgeJob.class);
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ShardDirectory shardDirectory;
+  private final Duration ttl;
+  private final ScheduledExecutorService scheduler;
+
+  public IdempotencyKeyPurgeJob(
+      JdbcTemplate jdbcTemplate,
+      ObjectProvider<ShardDirectory> shardDirectory,
+      @Value("${app.idempotency.ttl}") Duration ttl,
+      @Value("${app.idempotency.purge-interval}") Duration interval) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.shardDirectory = shardDirectory.getIfAvailable();
+    this.ttl = ttl;
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "idempotency-purge");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.scheduler.scheduleWithFixedDelay(
+        this::purgeQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /** Deletes the keys created before {@code now - ttl} on every shard. */
+  public void purge() {
+    Timestamp before = Timestamp.from(Instant.now().minus(ttl));
+    if (shardDirectory == null) {
+      purgeShard(before);
+    } else {
+      shardDirectory.forEachShard(() -> purgeShard(before));
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(30, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void purgeShard(Timestamp before) {
+    int purged = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?", before);
+    log.debug("Purged {} idempotency keys created before {}", purged, before);
+  }
+
+  private void purgeQuietly() {
+    try {
+      purge();
+    } catch (RuntimeException e) {
+      log.warn("Idempotency key purge failed, will retry", e);
+    }
+  }
+}
@@ -0,0 +1,224 @@
+package com.skypro.simplebanking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypro.simplebanking.cache.LruCache;
+import com.skypro.simplebanking.exception.IdempotencyKeyReusedException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs a balance-changing action at most once per idempotency key. The key row, holding a hash of
+ * the request and the response, is inserted in the action's own transaction. A duplicate that
+ * loses that insert rolls its own work back and replays the stored response, so a key only
+ * becomes visible together with the change it stands for. Reusing a key for a different request
+ * is rejected.
+ *
+ * <p>The balance engine changes memory that a rollback cannot reach, so with the engine enabled
+ * the key row is inserted first and the action runs only if the insert wins; a concurrent
+ * duplicate waits on that insert and then replays. Cross-shard transfers are sagas of several
+ * transactions and {@link #record} their key in the debit step instead.
+ */
+@Service
+public class IdempotencyService {
+  public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+  private static final String INSERT =
+      "INSERT INTO idempotency_keys (id, request_hash, response, created_at) VALUES (?, ?, ?, ?)"
+          + " ON CONFLICT (id) DO NOTHING";
+  private static final String SET_RESPONSE =
+      "UPDATE idempotency_keys SET response = ? WHERE id = ?";
+  private static final String FIND =
+      "SELECT request_hash, response FROM idempotency_keys WHERE id = ?";
+  private static final String DELETE = "DELETE FROM idempotency_keys WHERE id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final boolean engineEnabled;
+  private final LruCache<String, StoredResponse> recentResponses;
+
+  public IdempotencyService(
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      ObjectMapper objectMapper,
+      @Value("${app.engine.enabled}") boolean engineEnabled,
+      @Value("${app.idempotency.cache.max-size}") int cacheMaxSize,
+      @Value("${app.idempotency.cache.ttl}") Duration cacheTtl) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.objectMapper = objectMapper;
+    this.engineEnabled = engineEnabled;
+    this.recentResponses = new LruCache<>(cacheMaxSize, cacheTtl);
+  }
+
+  /**
+   * The key {@code userId} sent for {@code operation}. {@code request} is everything that
+   * identifies the request besides the key; it is hashed, not stored.
+   */
+  public Key key(long userId, String operation, String idempotencyKey, Object request) {
+    return new Key(userId + ":" + operation + ":" + idempotencyKey, hash(request));
+  }
+
+  public <T> T execute(
+      long userId,
+      String operation,
+      String idempotencyKey,
+      Object request,
+      Class<T> responseType,
+      Supplier<T> action) {
+    return execute(key(userId, operation, idempotencyKey, request), responseType, action);
+  }
+
+  /** Runs {@code action} unless {@code key} was used before, in which case its response is read. */
+  public <T> T execute(Key key, Class<T> responseType, Supplier<T> action) {
+    Optional<StoredResponse> recentResponse = recentResponses.get(key.id);
+    if (recentResponse.isPresent()) {
+      return replay(key, recentResponse.get(), responseType);
+    }
+    AtomicReference<T> result = new AtomicReference<>();
+    String response =
+        transactionTemplate.execute(
+            status -> {
+              if (engineEnabled) {
+                if (!insert(key, null)) {
+                  return null;
+                }
+                result.set(action.get());
+                String serialized = writeResponse(result.get());
+                jdbcTemplate.update(SET_RESPONSE, serialized, key.id);
+                return serialized;
+              }
+              result.set(action.get());
+              String serialized = writeResponse(result.get());
+              if (!insert(key, serialized)) {
+                status.setRollbackOnly();
+                return null;
+              }
+              return serialized;
+            });
+    if (response == null) {
+      return replay(key, responseType, action);
+    }
+    recentResponses.put(key.id, new StoredResponse(key.requestHash, response));
+    return result.get();
+  }
+
+  /**
+   * Records {@code key} with {@code response} in the caller's transaction, for actions that
+   * manage their own transactions. False if the key was already recorded; the caller should then
+   * roll back and {@link #replay} it.
+   */
+  public boolean record(Key key, Object response) {
+    return insert(key, writeResponse(response));
+  }
+
+  /** Frees a key {@link #record recorded} for a change that was undone later. */
+  public void release(String keyId) {
+    jdbcTemplate.update(DELETE, keyId);
+  }
+
+  /** The stored response of a key that was already recorded. */
+  public <T> T replay(Key key, Class<T> responseType) {
+    StoredResponse storedResponse =
+        find(key.id)
+            .orElseThrow(() -> new IllegalStateException("Idempotency key " + key.id + " is gone"));
+    return replay(key, storedResponse, responseType);
+  }
+
+  private <T> T replay(Key key, Class<T> responseType, Supplier<T> action) {
+    Optional<StoredResponse> storedResponse = find(key.id);
+    if (storedResponse.isEmpty()) {
+      // Purged or released since the insert lost; nothing of this attempt was kept, so run again.
+      return execute(key, responseType, action);
+    }
+    recentResponses.put(key.id, storedResponse.get());
+    return replay(key, storedResponse.get(), responseType);
+  }
+
+  private <T> T replay(Key key, StoredResponse storedResponse, Class<T> responseType) {
+    if (!storedResponse.requestHash.equals(key.requestHash)) {
+      throw new IdempotencyKeyReusedException();
+    }
+    return readResponse(storedResponse.response, responseType);
+  }
+
+  private boolean insert(Key key, String response) {
+    return jdbcTemplate.update(
+            INSERT, key.id, key.requestHash, response, Timestamp.from(Instant.now()))
+        == 1;
+  }
+
+  private Optional<StoredResponse> find(String keyId) {
+    List<StoredResponse> found =
+        jdbcTemplate.query(
+            FIND,
+            (row, rowNum) ->
+                new StoredResponse(row.getString("request_hash"), row.getString("response")),
+            keyId);
+    return found.stream().findFirst();
+  }
+
+  private String hash(Object request) {
+    try {
+      return HexFormat.of()
+          .formatHex(
+              MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request)));
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private String writeResponse(Object response) {
+    try {
+      return objectMapper.writeValueAsString(response);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private <T> T readResponse(String response, Class<T> responseType) {
+    try {
+      return objectMapper.readValue(response, responseType);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** An idempotency key scoped to its user and operation, with the hash of its request. */
+  public static final class Key {
+    private final String id;
+    private final String requestHash;
+
+    private Key(String id, String requestHash) {
+      this.id = id;
+      this.requestHash = requestHash;
+    }
+
+    public String getId() {
+      return id;
+    }
+  }
+
+  private static final class StoredResponse {
+    private final String requestHash;
+    private final String response;
+
+    private StoredResponse(String requestHash, String response) {
+      this.requestHash = requestHash;
+      this.response = response;
+    }
+  }
+}
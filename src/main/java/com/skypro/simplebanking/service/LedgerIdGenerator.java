@@ -0,0 +1,45 @@
+package com.skypro.simplebanking.service;
+
+/**
+ * Time-ordered 64-bit ids: 41 bits of milliseconds since 2023-01-01, 10 bits of node id and a
+ * 12-bit per-millisecond counter. Ids grow with time, so inserts append to the right edge of the
+ * primary key index without a database round trip to a sequence. The node id is configured per
+ * instance ({@code app.ledger.node-id}) rather than picked at random, since two instances sharing
+ * one would collide on the primary key. It defaults to 0, which is only safe for a single
+ * instance; multi-instance deployments must give each one its own {@code LEDGER_NODE_ID}.
+ */
+public class LedgerIdGenerator {
+  private static final long EPOCH_MILLIS = 1672531200000L;
+  private static final int NODE_BITS = 10;
+  private static final int SEQUENCE_BITS = 12;
+  private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+  private final long node;
+  private long lastMillis;
+  private long sequence;
+
+  /** {@code node} must be unique among the instances writing to the same tables. */
+  public LedgerIdGenerator(int node) {
+    if (node < 0 || node >= 1 << NODE_BITS) {
+      throw new IllegalArgumentException(
+          "Ledger node id should be between 0 and " + ((1 << NODE_BITS) - 1));
+    }
+    this.node = node;
+  }
+
+  public synchronized long nextId() {
+    long millis = Math.max(System.currentTimeMillis(), lastMillis);
+    if (millis == lastMillis) {
+      sequence = (sequence + 1) & SEQUENCE_MASK;
+      if (sequence == 0) {
+        millis = lastMillis + 1;
+      }
+    } else {
+      sequence = 0;
+    }
+    lastMillis = millis;
+    return ((millis - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS))
+        | (node << SEQUENCE_BITS)
+        | sequence;
+  }
+}
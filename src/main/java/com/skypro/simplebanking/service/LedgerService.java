@@ -0,0 +1,237 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.entity.Account;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.entity.LedgerEntryType;
+import com.skypro.simplebanking.fx.FxQuote;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Journals balance changes into {@code ledger_entries}. Entries are collected per transaction and
+ * written with one JDBC batch just before it commits, so they share the balance change's
+ * transaction without adding a round trip per entry.
+ */
+@Service
+public class LedgerService {
+  private static final String INSERT_ENTRY =
+      "INSERT INTO ledger_entries"
+          + " (id, account_id, entry_type, amount, currency, balance_after, transfer_id, fx_rate,"
+          + " fx_rate_version, created_at)"
+          + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final LedgerIdGenerator idGenerator;
+
+  public LedgerService(JdbcTemplate jdbcTemplate, @Value("${app.ledger.node-id}") int nodeId) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.idGenerator = new LedgerIdGenerator(nodeId);
+  }
+
+  public void recordDeposit(
+      long accountId, AccountCurrency currency, long amount, Long balanceAfter) {
+    pendingEntries()
+        .add(
+            new PendingEntry(
+                idGenerator.nextId(),
+                accountId,
+                LedgerEntryType.DEPOSIT,
+                amount,
+                currency,
+                balanceAfter,
+                null,
+                null));
+  }
+
+  public void recordWithdrawal(
+      long accountId, AccountCurrency currency, long amount, Long balanceAfter) {
+    pendingEntries()
+        .add(
+            new PendingEntry(
+                idGenerator.nextId(),
+                accountId,
+                LedgerEntryType.WITHDRAWAL,
+                -amount,
+                currency,
+                balanceAfter,
+                null,
+                null));
+  }
+
+  /**
+   * Records both sides of a transfer that has already been applied to the two accounts. The
+   * resulting balance of a hot account is left empty, since part of it lives in slot rows that
+   * were not read. A cross-currency transfer credits {@code creditedAmount} and records its {@code
+   * fxQuote} on both entries; otherwise {@code fxQuote} is null.
+   */
+  public void recordTransfer(
+      Account source, Account destination, long amount, long creditedAmount, FxQuote fxQuote) {
+    List<PendingEntry> entries = pendingEntries();
+    long debitId = idGenerator.nextId();
+    entries.add(
+        new PendingEntry(
+            debitId,
+            source.getId(),
+            LedgerEntryType.TRANSFER_DEBIT,
+            -amount,
+            source.getAccountCurrency(),
+            source.isHot() ? null : source.getAmount(),
+            debitId,
+            fxQuote));
+    entries.add(
+        new PendingEntry(
+            idGenerator.nextId(),
+            destination.getId(),
+            LedgerEntryType.TRANSFER_CREDIT,
+            creditedAmount,
+            destination.getAccountCurrency(),
+            destination.isHot() || destination.isCreditOnly() ? null : destination.getAmount(),
+            debitId,
+            fxQuote));
+  }
+
+  /** Records the debit of a cross-shard transfer; its credit is recorded on the other shard. */
+  public void recordTransferDebit(Account source, long amount, long transferId) {
+    pendingEntries()
+        .add(
+            new PendingEntry(
+                idGenerator.nextId(),
+                source.getId(),
+                LedgerEntryType.TRANSFER_DEBIT,
+                -amount,
+                source.getAccountCurrency(),
+                source.isHot() ? null : source.getAmount(),
+                transferId,
+                null));
+  }
+
+  /**
+   * Records the credit of a cross-shard transfer, or its refund to the source. The balance is left
+   * empty, since the credit is applied with an atomic update of an unlocked row.
+   */
+  public void recordTransferCredit(Account account, long amount, long transferId) {
+    pendingEntries()
+        .add(
+            new PendingEntry(
+                idGenerator.nextId(),
+                account.getId(),
+                LedgerEntryType.TRANSFER_CREDIT,
+                amount,
+                account.getAccountCurrency(),
+                null,
+                transferId,
+                null));
+  }
+
+  private List<PendingEntry> pendingEntries() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      throw new IllegalStateException("Ledger entries can only be recorded inside a transaction");
+    }
+    @SuppressWarnings("unchecked")
+    List<PendingEntry> entries =
+        (List<PendingEntry>) TransactionSynchronizationManager.getResource(this);
+    if (entries == null) {
+      List<PendingEntry> newEntries = new ArrayList<>();
+      TransactionSynchronizationManager.bindResource(this, newEntries);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+              write(newEntries);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(LedgerService.this);
+            }
+          });
+      entries = newEntries;
+    }
+    return entries;
+  }
+
+  private void write(List<PendingEntry> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    Timestamp createdAt = Timestamp.from(Instant.now());
+    jdbcTemplate.batchUpdate(
+        INSERT_ENTRY,
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement ps, int i) throws SQLException {
+            PendingEntry entry = entries.get(i);
+            ps.setLong(1, entry.id);
+            ps.setLong(2, entry.accountId);
+            ps.setString(3, entry.entryType.name());
+            ps.setLong(4, entry.amount);
+            ps.setString(5, entry.currency.name());
+            if (entry.balanceAfter == null) {
+              ps.setNull(6, Types.BIGINT);
+            } else {
+              ps.setLong(6, entry.balanceAfter);
+            }
+            if (entry.transferId == null) {
+              ps.setNull(7, Types.BIGINT);
+            } else {
+              ps.setLong(7, entry.transferId);
+            }
+            if (entry.fxQuote == null) {
+              ps.setNull(8, Types.NUMERIC);
+              ps.setNull(9, Types.BIGINT);
+            } else {
+              ps.setBigDecimal(8, entry.fxQuote.getRate());
+              ps.setLong(9, entry.fxQuote.getVersion());
+            }
+            ps.setTimestamp(10, createdAt);
+          }
+
+          @Override
+          public int getBatchSize() {
+            return entries.size();
+          }
+        });
+    entries.clear();
+  }
+
+  private static final class PendingEntry {
+    private final long id;
+    private final long accountId;
+    private final LedgerEntryType entryType;
+    private final long amount;
+    private final AccountCurrency currency;
+    private final Long balanceAfter;
+    private final Long transferId;
+    private final FxQuote fxQuote;
+
+    private PendingEntry(
+        long id,
+        long accountId,
+        LedgerEntryType entryType,
+        long amount,
+        AccountCurrency currency,
+        Long balanceAfter,
+        Long transferId,
+        FxQuote fxQuote) {
+      this.id = id;
+      this.accountId = accountId;
+      this.entryType = entryType;
+      this.amount = amount;
+      this.currency = currency;
+      this.balanceAfter = balanceAfter;
+      this.transferId = transferId;
+      this.fxQuote = fxQuote;
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.AccountStatementDTO;
+import com.skypro.simplebanking.dto.StatementEntryDTO;
+import com.skypro.simplebanking.entity.LedgerEntryType;
+import com.skypro.simplebanking.exception.AccountNotFoundException;
+import com.skypro.simplebanking.exception.InvalidStatementRequestException;
+import com.skypro.simplebanking.exception.StatementsNotSupportedException;
+import com.skypro.simplebanking.repository.AccountRepository;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Historical balances and statements from {@code ledger_entries}. A balance at some point is the
+ * newest {@code balance_snapshots} row before it plus the entries in between, which the
+ * {@link BalanceSnapshotJob} keeps to at most one snapshot interval's worth. Entries are ordered
+ * and paged by {@code (created_at, id)}, so every page is one index range scan however long the
+ * history is. Each request reads in one repeatable-read transaction, so its balance and its entries
+ * agree even while transfers commit.
+ *
+ * <p>The balance engine keeps balances in memory and writes no ledger entries, so with it enabled
+ * both requests are rejected rather than answered from stale rows.
+ */
+@Service
+public class StatementService {
+  private static final String LATEST_SNAPSHOT =
+      "SELECT snapshot_at, balance FROM balance_snapshots WHERE account_id = ? AND snapshot_at < ?"
+          + " ORDER BY snapshot_at DESC LIMIT 1";
+  private static final String MOVEMENTS_SINCE_SNAPSHOT =
+      "SELECT coalesce(sum(amount), 0) FROM ledger_entries"
+          + " WHERE account_id = ? AND created_at > ? AND (created_at, id) < (?, ?)";
+  // Accounts the snapshot job has not reached yet are rewound from their current balance.
+  private static final String MOVEMENTS_REWOUND_FROM_CURRENT =
+      "SELECT a.amount + CASE WHEN a.slot_count = 0 THEN 0 ELSE (SELECT coalesce(sum(s.amount), 0)"
+          + " FROM account_slots s WHERE s.account_id = a.id) END"
+          + " - coalesce((SELECT sum(e.amount) FROM ledger_entries e"
+          + " WHERE e.account_id = a.id AND (e.created_at, e.id) >= (?, ?)), 0)"
+          + " FROM accounts a WHERE a.id = ?";
+  private static final String ENTRIES =
+      "SELECT id, entry_type, amount, transfer_id, fx_rate, created_at FROM ledger_entries"
+          + " WHERE account_id = ? AND (created_at, id) > (?, ?) AND created_at < ?"
+          + " ORDER BY created_at, id LIMIT ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final AccountRepository accountRepository;
+  private final TransactionTemplate readTransaction;
+  private final int maxPageSize;
+  private final boolean engineEnabled;
+
+  public StatementService(
+      JdbcTemplate jdbcTemplate,
+      AccountRepository accountRepository,
+      PlatformTransactionManager transactionManager,
+      @Value("${app.statement.max-page-size}") int maxPageSize,
+      @Value("${app.engine.enabled}") boolean engineEnabled) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.accountRepository = accountRepository;
+    this.readTransaction = new TransactionTemplate(transactionManager);
+    this.readTransaction.setReadOnly(true);
+    this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    this.maxPageSize = maxPageSize;
+    this.engineEnabled = engineEnabled;
+  }
+
+  /** The balance including every entry created at or before {@code at}. */
+  public AccountDTO getBalanceAt(long userId, long accountId, Instant at) {
+    if (engineEnabled) {
+      throw new StatementsNotSupportedException();
+    }
+    return readTransaction.execute(
+        status -> {
+          AccountDTO account = findAccount(userId, accountId);
+          long balance = balanceBefore(accountId, Timestamp.from(at), Long.MAX_VALUE);
+          return new AccountDTO(accountId, balance, account.getCurrency());
+        });
+  }
+
+  /**
+   * Entries created in {@code [from, to)}, oldest first, starting after {@code cursor} if one is
+   * given.
+   */
+  public AccountStatementDTO getStatement(
+      long userId, long accountId, Instant from, Instant to, String cursor, int limit) {
+    if (engineEnabled) {
+      throw new StatementsNotSupportedException();
+    }
+    if (!from.isBefore(to)) {
+      throw new InvalidStatementRequestException();
+    }
+    int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+    // The first page starts before every entry created at "from"; later ones after the cursor.
+    EntryKey after =
+        cursor == null
+            ? new EntryKey(Timestamp.from(from), Long.MIN_VALUE)
+            : EntryKey.parse(cursor);
+    return readTransaction.execute(
+        status -> {
+          AccountDTO account = findAccount(userId, accountId);
+          long openingBalance =
+              cursor == null
+                  ? balanceBefore(accountId, after.createdAt, after.id)
+                  : balanceBefore(accountId, after.createdAt, after.id + 1);
+          long[] balance = {openingBalance};
+          List<StatementEntryDTO> entries =
+              jdbcTemplate.query(
+                  ENTRIES,
+                  (row, i) -> {
+                    long amount = row.getLong("amount");
+                    balance[0] += amount;
+                    long transferId = row.getLong("transfer_id");
+                    Long nullableTransferId = row.wasNull() ? null : transferId;
+                    return new StatementEntryDTO(
+                        row.getLong("id"),
+                        LedgerEntryType.valueOf(row.getString("entry_type")),
+                        amount,
+                        balance[0],
+                        nullableTransferId,
+                        row.getBigDecimal("fx_rate"),
+                        row.getTimestamp("created_at").toInstant());
+                  },
+                  accountId,
+                  after.createdAt,
+                  after.id,
+                  Timestamp.from(to),
+                  pageSize + 1);
+          String nextCursor = null;
+          if (entries.size() > pageSize) {
+            entries = new ArrayList<>(entries.subList(0, pageSize));
+            StatementEntryDTO last = entries.get(pageSize - 1);
+            nextCursor = new EntryKey(Timestamp.from(last.getCreatedAt()), last.getId()).format();
+          }
+          return new AccountStatementDTO(
+              accountId, account.getCurrency(), openingBalance, entries, nextCursor);
+        });
+  }
+
+  private AccountDTO findAccount(long userId, long accountId) {
+    return accountRepository
+        .findAccountDTO(userId, accountId)
+        .orElseThrow(AccountNotFoundException::new);
+  }
+
+  /** The balance over every entry whose {@code (created_at, id)} is below the given key. */
+  private long balanceBefore(long accountId, Timestamp createdAt, long id) {
+    List<Snapshot> snapshot =
+        jdbcTemplate.query(
+            LATEST_SNAPSHOT,
+            (row, i) -> new Snapshot(row.getTimestamp("snapshot_at"), row.getLong("balance")),
+            accountId,
+            createdAt);
+    if (snapshot.isEmpty()) {
+      Long balance =
+          jdbcTemplate.queryForObject(
+              MOVEMENTS_REWOUND_FROM_CURRENT, Long.class, createdAt, id, accountId);
+      return balance == null ? 0L : balance;
+    }
+    Long movements =
+        jdbcTemplate.queryForObject(
+            MOVEMENTS_SINCE_SNAPSHOT,
+            Long.class,
+            accountId,
+            snapshot.get(0).at,
+            createdAt,
+            id);
+    return snapshot.get(0).balance + (movements == null ? 0L : movements);
+  }
+
+  private static final class Snapshot {
+    private final Timestamp at;
+    private final long balance;
+
+    private Snapshot(Timestamp at, long balance) {
+      this.at = at;
+      this.balance = balance;
+    }
+  }
+
+  /** A position in the {@code (created_at, id)} order; cursors carry it as microseconds and id. */
+  private static final class EntryKey {
+    private final Timestamp createdAt;
+    private final long id;
+
+    private EntryKey(Timestamp createdAt, long id) {
+      this.createdAt = createdAt;
+      this.id = id;
+    }
+
+    private String format() {
+      Instant instant = createdAt.toInstant();
+      return (instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000) + "_" + id;
+    }
+
+    private static EntryKey parse(String cursor) {
+      int separator = cursor.indexOf('_');
+      try {
+        long micros = Long.parseLong(cursor.substring(0, separator));
+        Instant createdAt =
+            Instant.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+        long id = Long.parseLong(cursor.substring(separator + 1));
+        return new EntryKey(Timestamp.from(createdAt), id);
+      } catch (NumberFormatException | IndexOutOfBoundsException e) {
+        throw new InvalidStatementRequestException();
+      }
+    }
+  }
+}
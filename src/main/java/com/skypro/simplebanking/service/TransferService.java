@@ -1,27 +1,210 @@
 package com.skypro.simplebanking.service;
 
 import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.dto.TransferResultDTO;
+import com.skypro.simplebanking.dto.TransferStatus;
+import com.skypro.simplebanking.entity.Account;
+import com.skypro.simplebanking.exception.AccountNotFoundException;
+import com.skypro.simplebanking.exception.AtomicBatchNotSupportedException;
+import com.skypro.simplebanking.exception.InsufficientFundsException;
+import com.skypro.simplebanking.exception.InvalidAmountException;
+import com.skypro.simplebanking.exception.WrongCurrencyException;
+import com.skypro.simplebanking.sharding.CrossShardTransferService;
+import io.micrometer.core.annotation.Timed;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class TransferService {
   private final AccountService accountService;
+  private final TransactionTemplate transactionTemplate;
+  private final CrossShardTransferService crossShardTransferService;
+  private final IdempotencyService idempotencyService;
+  private final int batchChunkSize;
 
-  public TransferService(AccountService accountService) {
+  public TransferService(
+      AccountService accountService,
+      TransactionTemplate transactionTemplate,
+      ObjectProvider<CrossShardTransferService> crossShardTransferService,
+      IdempotencyService idempotencyService,
+      @Value("${app.transfer.batch.chunk-size}") int batchChunkSize) {
     this.accountService = accountService;
+    this.transactionTemplate = transactionTemplate;
+    this.crossShardTransferService = crossShardTransferService.getIfAvailable();
+    this.idempotencyService = idempotencyService;
+    this.batchChunkSize = batchChunkSize;
   }
 
-  @Transactional
-  public void transfer(long id, @RequestBody TransferRequest transferRequest) {
-    accountService.validateCurrency(
-        transferRequest.getFromAccountId(), transferRequest.getToAccountId());
-    accountService.withdrawFromAccount(
-        id, transferRequest.getFromAccountId(), transferRequest.getAmount());
-    accountService.depositToAccount(
-        transferRequest.getToUserId(),
-        transferRequest.getToAccountId(),
-        transferRequest.getAmount());
+  @Timed(value = "banking.transfer", histogram = true)
+  public void transfer(long id, TransferRequest transferRequest) {
+    if (accountService.isEngineEnabled()) {
+      accountService.transferInEngine(id, transferRequest);
+      return;
+    }
+    if (isCrossShard(id, transferRequest)) {
+      // A saga of local transactions; it must not run inside one spanning both shards.
+      crossShardTransferService.transfer(id, transferRequest);
+      return;
+    }
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          Map<Long, Account> accounts =
+              accountService.lockAccounts(
+                  List.of(transferRequest.getFromAccountId()),
+                  List.of(transferRequest.getToAccountId()));
+          accountService.applyTransfer(id, transferRequest, accounts);
+        });
+  }
+
+  /** Like {@link #transfer(long, TransferRequest)}, applied at most once per idempotency key. */
+  @Timed(value = "banking.transfer", histogram = true)
+  public void transfer(
+      long id, TransferRequest transferRequest, IdempotencyService.Key idempotencyKey) {
+    if (!accountService.isEngineEnabled() && isCrossShard(id, transferRequest)) {
+      // The saga records the key in its debit step, on the sender's shard. It must not run
+      // inside the transaction IdempotencyService.execute would open.
+      if (!crossShardTransferService.transfer(id, transferRequest, idempotencyKey)) {
+        idempotencyService.replay(idempotencyKey, Void.class);
+      }
+      return;
+    }
+    idempotencyService.execute(
+        idempotencyKey,
+        Void.class,
+        () -> {
+          transfer(id, transferRequest);
+          return null;
+        });
+  }
+
+  @Timed(value = "banking.transfer.batch", histogram = true)
+  public List<TransferResultDTO> transferBatch(
+      long id, List<TransferRequest> transferRequests, boolean atomic) {
+    List<TransferResultDTO> results = new ArrayList<>(transferRequests.size());
+    if (accountService.isEngineEnabled()) {
+      if (atomic) {
+        throw new AtomicBatchNotSupportedException();
+      }
+      for (int i = 0; i < transferRequests.size(); i++) {
+        TransferRequest transferRequest = transferRequests.get(i);
+        results.add(
+            new TransferResultDTO(
+                i, statusOf(() -> accountService.transferInEngine(id, transferRequest))));
+      }
+      return results;
+    }
+    if (crossShardTransferService != null) {
+      return transferBatchAcrossShards(id, transferRequests, atomic);
+    }
+    applyInChunks(id, transferRequests, atomic, results);
+    return results;
+  }
+
+  /**
+   * Applies same-shard transfers in chunks as usual and cross-shard ones one saga at a time, then
+   * restores the request order of the results.
+   */
+  private List<TransferResultDTO> transferBatchAcrossShards(
+      long id, List<TransferRequest> transferRequests, boolean atomic) {
+    List<TransferRequest> local = new ArrayList<>();
+    List<Integer> localIndexes = new ArrayList<>();
+    List<TransferResultDTO> results = new ArrayList<>(transferRequests.size());
+    for (int i = 0; i < transferRequests.size(); i++) {
+      TransferRequest transferRequest = transferRequests.get(i);
+      if (!isCrossShard(id, transferRequest)) {
+        local.add(transferRequest);
+        localIndexes.add(i);
+      } else if (atomic) {
+        throw new AtomicBatchNotSupportedException();
+      } else {
+        results.add(
+            new TransferResultDTO(
+                i, statusOf(() -> crossShardTransferService.transfer(id, transferRequest))));
+      }
+    }
+    List<TransferResultDTO> localResults = new ArrayList<>(local.size());
+    applyInChunks(id, local, atomic, localResults);
+    for (TransferResultDTO result : localResults) {
+      results.add(new TransferResultDTO(localIndexes.get(result.getIndex()), result.getStatus()));
+    }
+    results.sort(Comparator.comparingInt(TransferResultDTO::getIndex));
+    return results;
+  }
+
+  private void applyInChunks(
+      long id,
+      List<TransferRequest> transferRequests,
+      boolean atomic,
+      List<TransferResultDTO> results) {
+    if (atomic) {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            applyBatch(id, transferRequests, 0, results);
+            if (results.stream().anyMatch(result -> result.getStatus() != TransferStatus.OK)) {
+              status.setRollbackOnly();
+              results.replaceAll(TransferService::rolledBack);
+            }
+          });
+      return;
+    }
+    for (int from = 0; from < transferRequests.size(); from += batchChunkSize) {
+      int offset = from;
+      List<TransferRequest> chunk =
+          transferRequests.subList(from, Math.min(from + batchChunkSize, transferRequests.size()));
+      transactionTemplate.executeWithoutResult(status -> applyBatch(id, chunk, offset, results));
+    }
+  }
+
+  private boolean isCrossShard(long id, TransferRequest transferRequest) {
+    return crossShardTransferService != null
+        && crossShardTransferService.isCrossShard(id, transferRequest);
+  }
+
+  private void applyBatch(
+      long id, List<TransferRequest> transferRequests, int offset, List<TransferResultDTO> results) {
+    List<Long> debitedAccountIds = new ArrayList<>(transferRequests.size());
+    List<Long> creditedAccountIds = new ArrayList<>(transferRequests.size());
+    for (TransferRequest transferRequest : transferRequests) {
+      debitedAccountIds.add(transferRequest.getFromAccountId());
+      creditedAccountIds.add(transferRequest.getToAccountId());
+    }
+    Map<Long, Account> accounts =
+        accountService.lockAccounts(debitedAccountIds, creditedAccountIds);
+    for (int i = 0; i < transferRequests.size(); i++) {
+      results.add(
+          new TransferResultDTO(offset + i, applyOne(id, transferRequests.get(i), accounts)));
+    }
+  }
+
+  private TransferStatus applyOne(
+      long id, TransferRequest transferRequest, Map<Long, Account> accounts) {
+    return statusOf(() -> accountService.applyTransfer(id, transferRequest, accounts));
+  }
+
+  private static TransferStatus statusOf(Runnable transfer) {
+    try {
+      transfer.run();
+      return TransferStatus.OK;
+    } catch (AccountNotFoundException e) {
+      return TransferStatus.NOT_FOUND;
+    } catch (InsufficientFundsException e) {
+      return TransferStatus.INSUFFICIENT_FUNDS;
+    } catch (WrongCurrencyException e) {
+      return TransferStatus.WRONG_CURRENCY;
+    } catch (InvalidAmountException e) {
+      return TransferStatus.INVALID_AMOUNT;
+    }
+  }
+
+  private static TransferResultDTO rolledBack(TransferResultDTO result) {
+    return result.getStatus() == TransferStatus.OK
+        ? new TransferResultDTO(result.getIndex(), TransferStatus.ROLLED_BACK)
+        : result;
   }
 }
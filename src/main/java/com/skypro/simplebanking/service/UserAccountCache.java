@@ -0,0 +1,130 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.cache.VersionedCache;
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.BankingUserDetails;
+import com.skypro.simplebanking.dto.CacheStatsDTO;
+import com.skypro.simplebanking.dto.UserDTO;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-through caches for the account, user and user-details lookups behind balance polling.
+ *
+ * <p>Writers report what they changed with {@link #accountChanged} and {@link #userChanged}; the
+ * keys are invalidated right after the transaction commits, before the writing request returns.
+ * Together with the version guard in {@link VersionedCache} this means a read that starts after a
+ * write was acknowledged never sees the balance from before it. That holds only if loaders read
+ * the primary, so callers run them in a read-write transaction even with read replicas enabled.
+ * Invalidation is local to this instance; other instances may serve a value up to {@code
+ * app.cache.ttl} old.
+ */
+@Component
+public class UserAccountCache {
+  private final VersionedCache<Long, OwnedAccount> accounts;
+  private final VersionedCache<Long, UserDTO> users;
+  private final VersionedCache<String, BankingUserDetails> userDetails;
+
+  public UserAccountCache(
+      @Value("${app.cache.max-size}") int maxSize, @Value("${app.cache.ttl}") Duration ttl) {
+    this.accounts = new VersionedCache<>(maxSize, ttl);
+    this.users = new VersionedCache<>(maxSize, ttl);
+    this.userDetails = new VersionedCache<>(maxSize, ttl);
+  }
+
+  public AccountDTO getAccount(long userId, long accountId, Supplier<AccountDTO> loader) {
+    OwnedAccount account =
+        accounts.get(accountId, () -> new OwnedAccount(userId, loader.get()));
+    // A cached account is only served to its owner; anyone else goes to the loader, which throws.
+    return account.userId == userId ? account.account : loader.get();
+  }
+
+  public UserDTO getUser(long userId, Supplier<UserDTO> loader) {
+    return users.get(userId, loader);
+  }
+
+  public BankingUserDetails getUserDetails(
+      String username, Supplier<BankingUserDetails> loader) {
+    return userDetails.get(username, loader);
+  }
+
+  public void accountChanged(long userId, long accountId) {
+    pendingInvalidations().add(() -> invalidateAccount(userId, accountId));
+  }
+
+  public void userChanged(long userId, String username) {
+    pendingInvalidations()
+        .add(
+            () -> {
+              users.invalidate(userId);
+              userDetails.invalidate(username);
+            });
+  }
+
+  public List<CacheStatsDTO> getStats() {
+    return List.of(
+        stats("accounts", accounts), stats("users", users), stats("userDetails", userDetails));
+  }
+
+  private void invalidateAccount(long userId, long accountId) {
+    accounts.invalidate(accountId);
+    users.invalidate(userId);
+  }
+
+  private List<Runnable> pendingInvalidations() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return new ImmediateInvalidations();
+    }
+    @SuppressWarnings("unchecked")
+    List<Runnable> invalidations =
+        (List<Runnable>) TransactionSynchronizationManager.getResource(this);
+    if (invalidations == null) {
+      List<Runnable> newInvalidations = new ArrayList<>();
+      TransactionSynchronizationManager.bindResource(this, newInvalidations);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              newInvalidations.forEach(Runnable::run);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(UserAccountCache.this);
+            }
+          });
+      invalidations = newInvalidations;
+    }
+    return invalidations;
+  }
+
+  private static CacheStatsDTO stats(String name, VersionedCache<?, ?> cache) {
+    return new CacheStatsDTO(
+        name, cache.size(), cache.getHits(), cache.getMisses(), cache.getEvictions());
+  }
+
+  private static final class OwnedAccount {
+    private final long userId;
+    private final AccountDTO account;
+
+    private OwnedAccount(long userId, AccountDTO account) {
+      this.userId = userId;
+      this.account = account;
+    }
+  }
+
+  /** Outside a transaction there is nothing to wait for, so invalidations run as they arrive. */
+  private static final class ImmediateInvalidations extends ArrayList<Runnable> {
+    @Override
+    public boolean add(Runnable invalidation) {
+      invalidation.run();
+      return true;
+    }
+  }
+}
@@ -0,0 +1,278 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.dto.CreateUserRequest;
+import com.skypro.simplebanking.dto.UserProvisioningResultDTO;
+import com.skypro.simplebanking.dto.UserProvisioningStatus;
+import com.skypro.simplebanking.entity.User;
+import com.skypro.simplebanking.exception.UserAlreadyExistsException;
+import com.skypro.simplebanking.repository.UserRepository;
+import com.skypro.simplebanking.sharding.ShardDirectory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates users in bulk. Requests are consumed in chunks: each chunk is validated, checked for
+ * taken usernames with one query, hashed in parallel outside any transaction, and then inserted
+ * together with the default accounts in one transaction whose inserts Hibernate sends as JDBC
+ * batches using pooled sequence ids. With sharding, each user first claims its username in the
+ * {@link ShardDirectory}, and the users of a chunk are inserted with one transaction per shard.
+ *
+ * <p>If a chunk (or shard) transaction fails, its users are retried one transaction each, so a
+ * bad row only costs itself: a username taken concurrently is reported as {@code
+ * USERNAME_TAKEN}, any other failure as {@code FAILED}. Chunks committed earlier stay committed
+ * and keep their results.
+ */
+@Service
+public class UserProvisioningService {
+  private final UserRepository userRepository;
+  private final AccountService accountService;
+  private final PasswordEncoder passwordEncoder;
+  private final UserAccountCache userAccountCache;
+  private final UserService userService;
+  private final ShardDirectory shardDirectory;
+  private final TransactionTemplate transactionTemplate;
+  private final ThreadPoolExecutor hashingExecutor;
+  private final int chunkSize;
+
+  public UserProvisioningService(
+      UserRepository userRepository,
+      AccountService accountService,
+      PasswordEncoder passwordEncoder,
+      UserAccountCache userAccountCache,
+      UserService userService,
+      ObjectProvider<ShardDirectory> shardDirectory,
+      TransactionTemplate transactionTemplate,
+      @Value("${app.user.provisioning.chunk-size}") int chunkSize,
+      @Value("${app.user.provisioning.hash-threads}") int hashThreads) {
+    this.userRepository = userRepository;
+    this.accountService = accountService;
+    this.passwordEncoder = passwordEncoder;
+    this.userAccountCache = userAccountCache;
+    this.userService = userService;
+    this.shardDirectory = shardDirectory.getIfAvailable();
+    this.transactionTemplate = transactionTemplate;
+    this.chunkSize = chunkSize;
+    int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+    AtomicInteger threadNumber = new AtomicInteger();
+    // Bounded queue plus caller-runs: a large request slows its own thread down instead of
+    // queueing unbounded hashing work.
+    this.hashingExecutor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(threads * 4),
+            task -> {
+              Thread thread =
+                  new Thread(task, "password-hashing-" + threadNumber.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  public List<UserProvisioningResultDTO> provisionUsers(Iterator<CreateUserRequest> requests) {
+    List<UserProvisioningResultDTO> results = new ArrayList<>();
+    Set<String> seenUsernames = new HashSet<>();
+    List<CreateUserRequest> chunk = new ArrayList<>(chunkSize);
+    while (requests.hasNext()) {
+      chunk.add(requests.next());
+      if (chunk.size() == chunkSize || !requests.hasNext()) {
+        provisionChunk(chunk, results.size(), seenUsernames, results);
+        chunk.clear();
+      }
+    }
+    return results;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    hashingExecutor.shutdown();
+  }
+
+  private void provisionChunk(
+      List<CreateUserRequest> chunk,
+      int offset,
+      Set<String> seenUsernames,
+      List<UserProvisioningResultDTO> results) {
+    UserProvisioningStatus[] statuses = new UserProvisioningStatus[chunk.size()];
+    List<String> candidates = new ArrayList<>(chunk.size());
+    for (int i = 0; i < chunk.size(); i++) {
+      CreateUserRequest request = chunk.get(i);
+      if (isBlank(request.getUsername()) || isBlank(request.getPassword())) {
+        statuses[i] = UserProvisioningStatus.INVALID;
+      } else if (!seenUsernames.add(request.getUsername())) {
+        statuses[i] = UserProvisioningStatus.DUPLICATE_IN_REQUEST;
+      } else {
+        candidates.add(request.getUsername());
+      }
+    }
+    Set<String> takenUsernames =
+        candidates.isEmpty()
+            ? Set.of()
+            : new HashSet<>(findExistingUsernames(candidates));
+
+    List<CompletableFuture<String>> hashes = new ArrayList<>(chunk.size());
+    for (int i = 0; i < chunk.size(); i++) {
+      CreateUserRequest request = chunk.get(i);
+      if (statuses[i] == null && takenUsernames.contains(request.getUsername())) {
+        statuses[i] = UserProvisioningStatus.USERNAME_TAKEN;
+      }
+      hashes.add(
+          statuses[i] == null
+              ? CompletableFuture.supplyAsync(
+                  () -> passwordEncoder.encode(request.getPassword()), hashingExecutor)
+              : null);
+    }
+
+    User[] users = new User[chunk.size()];
+    for (int i = 0; i < chunk.size(); i++) {
+      if (hashes.get(i) != null) {
+        users[i] = newUser(chunk.get(i).getUsername(), hashes.get(i).join());
+      }
+    }
+    if (shardDirectory != null) {
+      insertOnShards(users, statuses);
+    } else {
+      insert(users, statuses);
+    }
+
+    for (int i = 0; i < chunk.size(); i++) {
+      results.add(
+          new UserProvisioningResultDTO(
+              offset + i,
+              chunk.get(i).getUsername(),
+              users[i] != null ? UserProvisioningStatus.CREATED : statuses[i],
+              users[i] != null ? users[i].getId() : null));
+    }
+  }
+
+  private List<String> findExistingUsernames(List<String> usernames) {
+    return shardDirectory == null
+        ? userRepository.findExistingUsernames(usernames)
+        : shardDirectory.findExistingUsernames(usernames);
+  }
+
+  private void insert(User[] users, UserProvisioningStatus[] statuses) {
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            for (User user : users) {
+              if (user != null) {
+                insert(user);
+              }
+            }
+          });
+    } catch (RuntimeException e) {
+      for (int i = 0; i < users.length; i++) {
+        if (users[i] == null) {
+          continue;
+        }
+        // The rolled back attempt left sequence ids behind; start from a fresh entity.
+        User user = newUser(users[i].getUsername(), users[i].getPassword());
+        try {
+          transactionTemplate.executeWithoutResult(status -> insert(user));
+          users[i] = user;
+        } catch (RuntimeException rowFailure) {
+          boolean taken =
+              !transactionTemplate
+                  .execute(
+                      status -> userRepository.findExistingUsernames(List.of(user.getUsername())))
+                  .isEmpty();
+          statuses[i] =
+              taken ? UserProvisioningStatus.USERNAME_TAKEN : UserProvisioningStatus.FAILED;
+          users[i] = null;
+        }
+      }
+    }
+  }
+
+  private void insert(User user) {
+    userRepository.save(user);
+    accountService.createDefaultAccounts(user);
+    userAccountCache.userChanged(user.getId(), user.getUsername());
+  }
+
+  /**
+   * Claims every username in the directory, then inserts the users of each shard in one
+   * transaction. A username claimed concurrently since the existence check becomes {@code
+   * USERNAME_TAKEN}. If a shard transaction fails, its users are retried one by one, and a user
+   * that still fails has its claim released.
+   */
+  private void insertOnShards(User[] users, UserProvisioningStatus[] statuses) {
+    Map<Integer, List<Integer>> indexesByShard = new TreeMap<>();
+    for (int i = 0; i < users.length; i++) {
+      if (users[i] == null) {
+        continue;
+      }
+      try {
+        users[i].setId(shardDirectory.register(users[i].getUsername()));
+      } catch (UserAlreadyExistsException e) {
+        users[i] = null;
+        statuses[i] = UserProvisioningStatus.USERNAME_TAKEN;
+        continue;
+      }
+      indexesByShard
+          .computeIfAbsent(shardDirectory.shardOf(users[i].getId()), shard -> new ArrayList<>())
+          .add(i);
+    }
+    for (List<Integer> indexes : indexesByShard.values()) {
+      List<User> shardUsers = new ArrayList<>(indexes.size());
+      for (int i : indexes) {
+        shardUsers.add(users[i]);
+      }
+      try {
+        insertOnShard(shardUsers);
+      } catch (RuntimeException e) {
+        for (int i : indexes) {
+          try {
+            insertOnShard(List.of(users[i]));
+          } catch (RuntimeException rowFailure) {
+            shardDirectory.unregister(users[i].getId());
+            users[i] = null;
+            statuses[i] = UserProvisioningStatus.FAILED;
+          }
+        }
+      }
+    }
+  }
+
+  private void insertOnShard(List<User> users) {
+    shardDirectory.onShardOf(
+        users.get(0).getId(),
+        () ->
+            transactionTemplate.execute(
+                status -> {
+                  userService.insertRegisteredUsers(users);
+                  return null;
+                }));
+  }
+
+  private static User newUser(String username, String encodedPassword) {
+    User user = new User();
+    user.setUsername(username);
+    user.setPassword(encodedPassword);
+    return user;
+  }
+
+  private static boolean isBlank(String value) {
+    return value == null || value.isBlank();
+  }
+}
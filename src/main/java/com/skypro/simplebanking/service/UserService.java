@@ -2,14 +2,25 @@ package com.skypro.simplebanking.service;
 
 import com.skypro.simplebanking.dto.BankingUserDetails;
 import com.skypro.simplebanking.dto.ListUserDTO;
+import com.skypro.simplebanking.dto.UserAccountRow;
 import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.dto.UserPageDTO;
 import com.skypro.simplebanking.entity.User;
 import com.skypro.simplebanking.exception.UserAlreadyExistsException;
 import com.skypro.simplebanking.repository.UserRepository;
+import com.skypro.simplebanking.sharding.ShardDirectory;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.stream.Collectors;
-
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -19,56 +30,229 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Users and their account listings. With sharding enabled, a user is created on the shard the
+ * {@link ShardDirectory} assigns its id to, and listings read every shard and merge by user id.
+ * Transactions are therefore started with templates once the shard is known, instead of through
+ * {@code @Transactional} on the public methods.
+ */
 @Service
 public class UserService implements UserDetailsService {
+  private static final Comparator<UserAccountRow> BY_USER_ID =
+      Comparator.comparingLong(UserAccountRow::getUserId);
+  private static final String INSERT_USER =
+      "INSERT INTO users (id, username, password) VALUES (?, ?, ?)";
+
   private final UserRepository userRepository;
   private final AccountService accountService;
   private final PasswordEncoder passwordEncoder;
+  private final UserAccountCache userAccountCache;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final TransactionTemplate readOnlyTransaction;
+  private final ShardDirectory shardDirectory;
+  private final int maxPageSize;
 
   public UserService(
       UserRepository userRepository,
       AccountService accountService,
-      PasswordEncoder passwordEncoder) {
+      PasswordEncoder passwordEncoder,
+      UserAccountCache userAccountCache,
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      ObjectProvider<ShardDirectory> shardDirectory,
+      @Value("${app.user.list.max-page-size}") int maxPageSize) {
     this.userRepository = userRepository;
     this.accountService = accountService;
     this.passwordEncoder = passwordEncoder;
+    this.userAccountCache = userAccountCache;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.shardDirectory = shardDirectory.getIfAvailable();
+    this.maxPageSize = maxPageSize;
   }
 
   @Override
-  @Transactional(readOnly = true)
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-    return userRepository
-        .findByUsername(username)
-        .map(BankingUserDetails::from)
-        .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    return userAccountCache.getUserDetails(
+        username,
+        () ->
+            findByUsername(username)
+                .map(BankingUserDetails::from)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found")));
   }
 
-  @Transactional
   public UserDTO createUser(String username, String password) {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
     if (!authentication.getAuthorities().contains(new SimpleGrantedAuthority("admin"))) {
       throw new AccessDeniedException("Access is denied");
     }
-    Optional<User> existingUser = userRepository.findByUsername(username);
-    if (existingUser.isPresent()) {
-      throw new UserAlreadyExistsException();
+    if (shardDirectory != null) {
+      return createUserOnShard(username, password);
+    }
+    return transactionTemplate.execute(
+        status -> {
+          Optional<User> existingUser = userRepository.findByUsername(username);
+          if (existingUser.isPresent()) {
+            throw new UserAlreadyExistsException();
+          }
+          User user = new User();
+          user.setUsername(username);
+          user.setPassword(passwordEncoder.encode(password));
+          userRepository.save(user);
+          accountService.createDefaultAccounts(user);
+          userAccountCache.userChanged(user.getId(), username);
+          return UserDTO.from(user);
+        });
+  }
+
+  /**
+   * Creates users under ids the shard directory handed out, on the current shard. The user rows
+   * go out as one JDBC batch; their accounts follow as Hibernate batches.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void insertRegisteredUsers(List<User> users) {
+    jdbcTemplate.batchUpdate(
+        INSERT_USER,
+        users,
+        users.size(),
+        (statement, user) -> {
+          statement.setLong(1, user.getId());
+          statement.setString(2, user.getUsername());
+          statement.setString(3, user.getPassword());
+        });
+    for (User user : users) {
+      accountService.createDefaultAccounts(user);
+      userAccountCache.userChanged(user.getId(), user.getUsername());
     }
+  }
+
+  public UserDTO getUser(long id) {
+    UserDTO user =
+        userAccountCache.getUser(
+            id,
+            () -> {
+              List<UserAccountRow> rows =
+                  onShardOf(id, () -> onPrimary(() -> userRepository.findUserAccountRows(id)));
+              if (rows.isEmpty()) {
+                throw new NoSuchElementException();
+              }
+              return UserDTO.fromRows(rows);
+            });
+    // Engine writes neither touch the accounts table right away nor invalidate the cache.
+    return accountService.withCurrentBalances(user);
+  }
+
+  public List<ListUserDTO> listUsers() {
+    return ListUserDTO.fromRows(
+        readOnEachShard(userRepository::findAllUserAccountRows, BY_USER_ID));
+  }
+
+  public UserPageDTO listUsers(long afterId, int limit) {
+    int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+    List<Long> userIds =
+        readOnEachShard(
+            () -> userRepository.findIdsAfter(afterId, PageRequest.of(0, pageSize + 1)),
+            Comparator.naturalOrder());
+    List<Long> pageIds = userIds.subList(0, Math.min(pageSize, userIds.size()));
+    List<ListUserDTO> page =
+        pageIds.isEmpty()
+            ? List.of()
+            : ListUserDTO.fromRows(
+                readOnEachShard(() -> userRepository.findUserAccountRows(pageIds), BY_USER_ID));
+    Long nextCursor = userIds.size() > pageSize ? pageIds.get(pageIds.size() - 1) : null;
+    return new UserPageDTO(page, nextCursor);
+  }
+
+  /** Streams users grouped with their accounts; with sharding, shard by shard. */
+  public void streamUsers(Consumer<ListUserDTO> consumer) {
+    if (shardDirectory == null) {
+      readOnlyTransaction.executeWithoutResult(status -> streamShard(consumer));
+    } else {
+      shardDirectory.forEachShard(
+          () -> readOnlyTransaction.executeWithoutResult(status -> streamShard(consumer)));
+    }
+  }
+
+  private UserDTO createUserOnShard(String username, String password) {
     User user = new User();
     user.setUsername(username);
     user.setPassword(passwordEncoder.encode(password));
-    userRepository.save(user);
-    accountService.createDefaultAccounts(user);
-    return UserDTO.from(user);
+    long id = shardDirectory.register(username);
+    user.setId(id);
+    try {
+      shardDirectory.onShardOf(
+          id,
+          () ->
+              transactionTemplate.execute(
+                  status -> {
+                    insertRegisteredUsers(List.of(user));
+                    return null;
+                  }));
+      return UserDTO.from(user);
+    } catch (RuntimeException e) {
+      shardDirectory.unregister(id);
+      throw e;
+    }
   }
-  @Transactional(readOnly = true)
-  public UserDTO getUser(long id) {
-    return userRepository.findById(id).map(UserDTO::from).orElseThrow();
+
+  private Optional<User> findByUsername(String username) {
+    if (shardDirectory == null) {
+      return onPrimary(() -> userRepository.findByUsername(username));
+    }
+    return shardDirectory
+        .findUserId(username)
+        .flatMap(
+            id ->
+                shardDirectory.onShardOf(
+                    id, () -> onPrimary(() -> userRepository.findByUsername(username))));
   }
-  @Transactional(readOnly = true)
-  public List<ListUserDTO> listUsers() {
-    return userRepository.findAll().stream().map(ListUserDTO::from).collect(Collectors.toList());
+
+  /**
+   * Runs a cache loader in a read-write transaction, which the read replica router keeps on the
+   * primary: a value loaded from a lagging replica would be cached as if it were current.
+   */
+  private <T> T onPrimary(Supplier<T> query) {
+    return transactionTemplate.execute(status -> query.get());
+  }
+
+  private <T> T onShardOf(long userId, Supplier<T> task) {
+    return shardDirectory == null ? task.get() : shardDirectory.onShardOf(userId, task);
+  }
+
+  /** Runs a read-only query on every shard, merging the results in {@code order}. */
+  private <T> List<T> readOnEachShard(Supplier<List<T>> query, Comparator<? super T> order) {
+    if (shardDirectory == null) {
+      return readOnlyTransaction.execute(status -> query.get());
+    }
+    List<T> results =
+        shardDirectory.onEachShard(() -> readOnlyTransaction.execute(status -> query.get()));
+    results.sort(order);
+    return results;
+  }
+
+  private void streamShard(Consumer<ListUserDTO> consumer) {
+    List<UserAccountRow> currentUser = new ArrayList<>();
+    try (Stream<UserAccountRow> rows = userRepository.streamAllUserAccountRows()) {
+      rows.forEach(
+          row -> {
+            if (!currentUser.isEmpty() && currentUser.get(0).getUserId() != row.getUserId()) {
+              consumer.accept(ListUserDTO.fromUserRows(currentUser));
+              currentUser.clear();
+            }
+            currentUser.add(row);
+          });
+    }
+    if (!currentUser.isEmpty()) {
+      consumer.accept(ListUserDTO.fromUserRows(currentUser));
+    }
   }
 }
@@ -0,0 +1,333 @@
+package com.skypro.simplebanking.sharding;
+
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.exception.AccountNotFoundException;
+import com.skypro.simplebanking.exception.InvalidAmountException;
+import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.service.AccountService;
+import com.skypro.simplebanking.service.IdempotencyService;
+import com.skypro.simplebanking.service.LedgerIdGenerator;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Transfers between users on different shards as a reserve/commit saga:
+ *
+ * <ol>
+ *   <li>On the source shard, one transaction debits the source and records the saga as {@code
+ *       RESERVED}.
+ *   <li>On the destination shard, one transaction claims the saga's outcome row as {@code
+ *       CREDITED} and credits the destination.
+ *   <li>The source shard marks the saga {@code COMMITTED}.
+ * </ol>
+ *
+ * <p>If step 2 fails, or the service dies before step 3, the saga is resolved by claiming the
+ * outcome row as {@code REJECTED}. If that claim wins, the credit can no longer happen, so the
+ * source is refunded and the saga marked {@code COMPENSATED}. If the claim loses to an earlier
+ * {@code CREDITED}, the saga is committed instead. Each state change is guarded by a primary key
+ * or a status check, so concurrent resolvers on several instances apply it at most once. Sagas
+ * left {@code RESERVED} for longer than {@code sagaTimeout} are resolved in the background.
+ *
+ * <p>A transfer sent with an idempotency key records it in the debit transaction, so a duplicate
+ * rolls back before debiting anything. Compensating the saga releases the key again, since the
+ * transfer it stands for was undone.
+ *
+ * <p>The outcome row is keyed by the saga id alone, so saga ids must be unique across instances;
+ * they come from a {@link LedgerIdGenerator} with the instance's configured node id.
+ */
+public class CrossShardTransferService implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(CrossShardTransferService.class);
+  private static final int RECOVERY_BATCH = 100;
+
+  private final ShardDirectory shardDirectory;
+  private final AccountService accountService;
+  private final IdempotencyService idempotencyService;
+  private final AccountRepository accountRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final LedgerIdGenerator idGenerator;
+  private final Duration sagaTimeout;
+  private final ScheduledExecutorService scheduler;
+
+  public CrossShardTransferService(
+      ShardDirectory shardDirectory,
+      AccountService accountService,
+      IdempotencyService idempotencyService,
+      AccountRepository accountRepository,
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      LedgerIdGenerator idGenerator,
+      Duration sagaTimeout,
+      Duration recoveryInterval) {
+    this.shardDirectory = shardDirectory;
+    this.accountService = accountService;
+    this.idempotencyService = idempotencyService;
+    this.accountRepository = accountRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.idGenerator = idGenerator;
+    this.sagaTimeout = sagaTimeout;
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "transfer-saga-recovery");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.scheduler.scheduleWithFixedDelay(
+        this::recoverQuietly,
+        recoveryInterval.toMillis(),
+        recoveryInterval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  public boolean isCrossShard(long userId, TransferRequest transferRequest) {
+    return shardDirectory.shardOf(userId) != shardDirectory.shardOf(transferRequest.getToUserId());
+  }
+
+  public void transfer(long userId, TransferRequest transferRequest) {
+    transfer(userId, transferRequest, null);
+  }
+
+  /**
+   * Transfers unless {@code idempotencyKey} was already recorded, in which case it returns false
+   * without touching any balance. The key may be null.
+   */
+  public boolean transfer(
+      long userId, TransferRequest transferRequest, IdempotencyService.Key idempotencyKey) {
+    if (transferRequest.getAmount() < 0) {
+      throw new InvalidAmountException();
+    }
+    Saga saga =
+        new Saga(
+            idGenerator.nextId(),
+            userId,
+            transferRequest.getFromAccountId(),
+            transferRequest.getToUserId(),
+            transferRequest.getToAccountId(),
+            transferRequest.getAmount(),
+            idempotencyKey == null ? null : idempotencyKey.getId());
+    // Owner and currency of an account never change, so checking the destination up front
+    // rules out every business reason for the credit to fail once the source is debited.
+    AccountDTO destination =
+        shardDirectory.onShardOf(
+            saga.toUserId,
+            () ->
+                accountRepository
+                    .findAccountDTO(saga.toUserId, saga.toAccountId)
+                    .orElseThrow(AccountNotFoundException::new));
+    boolean reserved =
+        shardDirectory.onShardOf(
+            saga.fromUserId,
+            () ->
+                Boolean.TRUE.equals(
+                    transactionTemplate.execute(
+                        status -> {
+                          if (idempotencyKey != null
+                              && !idempotencyService.record(idempotencyKey, null)) {
+                            return false;
+                          }
+                          accountService.debitTransfer(
+                              saga.fromUserId,
+                              saga.fromAccountId,
+                              destination.getCurrency(),
+                              saga.amount,
+                              saga.id);
+                          jdbcTemplate.update(
+                              "INSERT INTO transfer_sagas (id, from_user_id, from_account_id,"
+                                  + " to_user_id, to_account_id, amount, status, idempotency_key,"
+                                  + " created_at) VALUES (?, ?, ?, ?, ?, ?, 'RESERVED', ?, ?)",
+                              saga.id,
+                              saga.fromUserId,
+                              saga.fromAccountId,
+                              saga.toUserId,
+                              saga.toAccountId,
+                              saga.amount,
+                              saga.idempotencyKey,
+                              Timestamp.from(Instant.now()));
+                          return true;
+                        })));
+    if (!reserved) {
+      return false;
+    }
+    boolean credited;
+    try {
+      credited = shardDirectory.onShardOf(saga.toUserId, () -> credit(saga));
+    } catch (RuntimeException e) {
+      resolveQuietly(saga);
+      throw e;
+    }
+    if (!credited) {
+      resolve(saga);
+      throw new IllegalStateException("Transfer " + saga.id + " was rolled back before credit");
+    }
+    try {
+      markCommitted(saga);
+    } catch (RuntimeException e) {
+      // The money has moved; recovery finds the credit and marks the saga committed later.
+      log.warn("Could not mark transfer saga {} committed, will retry", saga.id, e);
+    }
+    return true;
+  }
+
+  /** Resolves sagas on every shard that stayed {@code RESERVED} for longer than the timeout. */
+  public void recover() {
+    Timestamp cutoff = Timestamp.from(Instant.now().minus(sagaTimeout));
+    for (int shard = 0; shard < shardDirectory.getShardCount(); shard++) {
+      List<Saga> stale =
+          ShardContext.call(
+              shard,
+              () ->
+                  jdbcTemplate.query(
+                      "SELECT id, from_user_id, from_account_id, to_user_id, to_account_id, amount,"
+                          + " idempotency_key FROM transfer_sagas"
+                          + " WHERE status = 'RESERVED' AND created_at < ?"
+                          + " ORDER BY created_at LIMIT " + RECOVERY_BATCH,
+                      (row, i) ->
+                          new Saga(
+                              row.getLong("id"),
+                              row.getLong("from_user_id"),
+                              row.getLong("from_account_id"),
+                              row.getLong("to_user_id"),
+                              row.getLong("to_account_id"),
+                              row.getLong("amount"),
+                              row.getString("idempotency_key")),
+                      cutoff));
+      for (Saga saga : stale) {
+        resolveQuietly(saga);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(30, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Claims the outcome as {@code CREDITED} and credits; false if it was already rejected. */
+  private boolean credit(Saga saga) {
+    return Boolean.TRUE.equals(
+        transactionTemplate.execute(
+            status -> {
+              if (claimOutcome(saga, "CREDITED")) {
+                accountService.creditTransfer(
+                    saga.toUserId, saga.toAccountId, saga.amount, saga.id);
+                return true;
+              }
+              return "CREDITED".equals(outcomeOf(saga));
+            }));
+  }
+
+  private void resolve(Saga saga) {
+    boolean credited =
+        shardDirectory.onShardOf(
+            saga.toUserId,
+            () -> !claimOutcome(saga, "REJECTED") && "CREDITED".equals(outcomeOf(saga)));
+    if (credited) {
+      markCommitted(saga);
+      return;
+    }
+    shardDirectory.onShardOf(
+        saga.fromUserId,
+        () ->
+            transactionTemplate.execute(
+                status -> {
+                  int compensated =
+                      jdbcTemplate.update(
+                          "UPDATE transfer_sagas SET status = 'COMPENSATED'"
+                              + " WHERE id = ? AND status = 'RESERVED'",
+                          saga.id);
+                  if (compensated == 1) {
+                    accountService.creditTransfer(
+                        saga.fromUserId, saga.fromAccountId, saga.amount, saga.id);
+                    if (saga.idempotencyKey != null) {
+                      idempotencyService.release(saga.idempotencyKey);
+                    }
+                  }
+                  return null;
+                }));
+  }
+
+  private void resolveQuietly(Saga saga) {
+    try {
+      resolve(saga);
+    } catch (RuntimeException e) {
+      log.warn("Transfer saga {} is still unresolved, will retry", saga.id, e);
+    }
+  }
+
+  private void recoverQuietly() {
+    try {
+      recover();
+    } catch (RuntimeException e) {
+      log.warn("Transfer saga recovery failed, will retry", e);
+    }
+  }
+
+  private boolean claimOutcome(Saga saga, String outcome) {
+    return jdbcTemplate.update(
+            "INSERT INTO transfer_saga_outcomes (saga_id, outcome, created_at) VALUES (?, ?, ?)"
+                + " ON CONFLICT DO NOTHING",
+            saga.id,
+            outcome,
+            Timestamp.from(Instant.now()))
+        == 1;
+  }
+
+  private String outcomeOf(Saga saga) {
+    return jdbcTemplate.queryForObject(
+        "SELECT outcome FROM transfer_saga_outcomes WHERE saga_id = ?", String.class, saga.id);
+  }
+
+  private void markCommitted(Saga saga) {
+    shardDirectory.onShardOf(
+        saga.fromUserId,
+        () ->
+            jdbcTemplate.update(
+                "UPDATE transfer_sagas SET status = 'COMMITTED'"
+                    + " WHERE id = ? AND status = 'RESERVED'",
+                saga.id));
+  }
+
+  private static final class Saga {
+    private final long id;
+    private final long fromUserId;
+    private final long fromAccountId;
+    private final long toUserId;
+    private final long toAccountId;
+    private final long amount;
+    private final String idempotencyKey;
+
+    private Saga(
+        long id,
+        long fromUserId,
+        long fromAccountId,
+        long toUserId,
+        long toAccountId,
+        long amount,
+        String idempotencyKey) {
+      this.id = id;
+      this.fromUserId = fromUserId;
+      this.fromAccountId = fromAccountId;
+      this.toUserId = toUserId;
+      this.toAccountId = toAccountId;
+      this.amount = amount;
+      this.idempotencyKey = idempotencyKey;
+    }
+  }
+}
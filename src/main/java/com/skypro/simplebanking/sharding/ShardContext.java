@@ -0,0 +1,50 @@
+package com.skypro.simplebanking.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard {@link ShardRoutingDataSource} hands connections out for on the current thread. It has
+ * to be set before a transaction starts: the transaction keeps the connection it began with, so
+ * switching shards inside one has no effect.
+ */
+public final class ShardContext {
+  private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+  private ShardContext() {}
+
+  /** The current shard, or {@code null} for the default shard 0. */
+  public static Integer current() {
+    return CURRENT.get();
+  }
+
+  public static void set(int shard) {
+    CURRENT.set(shard);
+  }
+
+  public static void clear() {
+    CURRENT.remove();
+  }
+
+  public static <T> T call(int shard, Supplier<T> task) {
+    Integer previous = CURRENT.get();
+    CURRENT.set(shard);
+    try {
+      return task.get();
+    } finally {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  public static void run(int shard, Runnable task) {
+    call(
+        shard,
+        () -> {
+          task.run();
+          return null;
+        });
+  }
+}
@@ -0,0 +1,38 @@
+package com.skypro.simplebanking.sharding;
+
+import com.skypro.simplebanking.dto.BankingUserDetails;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Routes a request of an authenticated user to that user's shard, so account, transfer and profile
+ * endpoints stay on one database without knowing about shards. Admin requests stay on shard 0 and
+ * fan out explicitly where they need to.
+ */
+public class ShardContextInterceptor implements HandlerInterceptor {
+  private final ShardDirectory shardDirectory;
+
+  public ShardContextInterceptor(ShardDirectory shardDirectory) {
+    this.shardDirectory = shardDirectory;
+  }
+
+  @Override
+  public boolean preHandle(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication != null && authentication.getPrincipal() instanceof BankingUserDetails) {
+      BankingUserDetails user = (BankingUserDetails) authentication.getPrincipal();
+      ShardContext.set(shardDirectory.shardOf(user.getId()));
+    }
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(
+      HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+    ShardContext.clear();
+  }
+}
@@ -0,0 +1,126 @@
+package com.skypro.simplebanking.sharding;
+
+import com.skypro.simplebanking.exception.AccountNotFoundException;
+import com.skypro.simplebanking.exception.UserAlreadyExistsException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Places users and their accounts on shards and finds them again. A user lives on the shard its id
+ * hashes to, so routing by user id costs no lookup. Logins only know the username, so the
+ * directory keeps a {@code username -> user id} table on shard 0. That table also hands out user
+ * ids from shard 0's {@code user_sequence}, which keeps them unique across shards.
+ */
+public class ShardDirectory {
+  static final int DIRECTORY_SHARD = 0;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate namedJdbcTemplate;
+  private final int shardCount;
+
+  public ShardDirectory(JdbcTemplate jdbcTemplate, int shardCount) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    this.shardCount = shardCount;
+  }
+
+  public int getShardCount() {
+    return shardCount;
+  }
+
+  public int shardOf(long userId) {
+    // Fibonacci hashing, so consecutive ids (which the sequence hands out 50 apart) still spread.
+    long hash = userId * 0x9E3779B97F4A7C15L;
+    return (int) Math.floorMod(hash ^ (hash >>> 32), (long) shardCount);
+  }
+
+  public <T> T onShardOf(long userId, Supplier<T> task) {
+    return ShardContext.call(shardOf(userId), task);
+  }
+
+  /** Runs {@code query} on every shard in turn and concatenates the results in shard order. */
+  public <T> List<T> onEachShard(Supplier<List<T>> query) {
+    List<T> results = new ArrayList<>();
+    for (int shard = 0; shard < shardCount; shard++) {
+      results.addAll(ShardContext.call(shard, query));
+    }
+    return results;
+  }
+
+  public void forEachShard(Runnable task) {
+    for (int shard = 0; shard < shardCount; shard++) {
+      ShardContext.run(shard, task);
+    }
+  }
+
+  /**
+   * Runs {@code task} on the shard holding {@code accountId}, for the few admin paths that know an
+   * account but not its owner. Looks the account up on every shard, so keep it off hot paths.
+   */
+  public <T> T onShardOfAccount(long accountId, Supplier<T> task) {
+    for (int shard = 0; shard < shardCount; shard++) {
+      boolean found =
+          ShardContext.call(
+              shard,
+              () ->
+                  !jdbcTemplate
+                      .queryForList("SELECT 1 FROM accounts WHERE id = ?", Integer.class, accountId)
+                      .isEmpty());
+      if (found) {
+        return ShardContext.call(shard, task);
+      }
+    }
+    throw new AccountNotFoundException();
+  }
+
+  /** Claims {@code username} and returns the id of the user to create on {@link #shardOf}. */
+  public long register(String username) {
+    return ShardContext.call(
+        DIRECTORY_SHARD,
+        () -> {
+          Long userId = jdbcTemplate.queryForObject("SELECT nextval('user_sequence')", Long.class);
+          try {
+            jdbcTemplate.update(
+                "INSERT INTO user_directory (username, user_id) VALUES (?, ?)", username, userId);
+          } catch (DuplicateKeyException e) {
+            throw new UserAlreadyExistsException();
+          }
+          return userId;
+        });
+  }
+
+  /** Releases the username of a user whose creation on its shard failed. */
+  public void unregister(long userId) {
+    ShardContext.run(
+        DIRECTORY_SHARD,
+        () -> jdbcTemplate.update("DELETE FROM user_directory WHERE user_id = ?", userId));
+  }
+
+  public Optional<Long> findUserId(String username) {
+    return ShardContext.call(
+        DIRECTORY_SHARD,
+        () ->
+            jdbcTemplate
+                .queryForList(
+                    "SELECT user_id FROM user_directory WHERE username = ?", Long.class, username)
+                .stream()
+                .findFirst());
+  }
+
+  public List<String> findExistingUsernames(Collection<String> usernames) {
+    return ShardContext.call(
+        DIRECTORY_SHARD,
+        () ->
+            namedJdbcTemplate.queryForList(
+                "SELECT username FROM user_directory WHERE username IN (:usernames)",
+                Map.of("usernames", usernames),
+                String.class));
+  }
+}
@@ -0,0 +1,39 @@
+package com.skypro.simplebanking.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/** Picks the pool of the shard in {@link ShardContext}; shard 0 when none is set. */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+  private final List<HikariDataSource> shards;
+
+  public ShardRoutingDataSource(List<HikariDataSource> shards) {
+    this.shards = shards;
+    Map<Object, Object> targets = new HashMap<>();
+    for (int i = 0; i < shards.size(); i++) {
+      targets.put(i, shards.get(i));
+    }
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(shards.get(0));
+    setLenientFallback(false);
+    afterPropertiesSet();
+  }
+
+  public int getShardCount() {
+    return shards.size();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return ShardContext.current();
+  }
+
+  @Override
+  public void close() {
+    shards.forEach(HikariDataSource::close);
+  }
+}
@@ -0,0 +1,149 @@
+package com.skypro.simplebanking.sharding;
+
+import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.service.AccountService;
+import com.skypro.simplebanking.service.IdempotencyService;
+import com.skypro.simplebanking.service.LedgerIdGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spreads users and their accounts over shard 0, which is {@code spring.datasource} and also holds
+ * the {@link ShardDirectory}, plus one shard per {@code app.sharding.urls} entry. Only one {@link
+ * DataSource} bean is exposed and JPA runs unchanged on top of it; {@link ShardContext} decides
+ * which database a transaction talks to.
+ *
+ * <p>Flyway only migrates the {@code DataSource} bean, that is shard 0, so the other shards are
+ * migrated here. Each one also gets its own range of account ids: Hibernate's pooled sequence
+ * optimizer is shared by all shards and may use a block fetched on one shard for inserts on
+ * another, which is only safe while the blocks of different shards cannot overlap.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardingConfiguration {
+  private static final long ACCOUNT_IDS_PER_SHARD = 1L << 40;
+
+  @Bean
+  public DataSource dataSource(
+      DataSourceProperties dataSourceProperties,
+      Environment environment,
+      MeterRegistry meterRegistry,
+      FlywayProperties flywayProperties,
+      ObjectProvider<FlywayMigrationStrategy> migrationStrategy,
+      @Value("${app.sharding.urls}") String[] urls,
+      @Value("${app.sharding.username:${spring.datasource.username}}") String username,
+      @Value("${app.sharding.password:${spring.datasource.password}}") String password,
+      @Value("${app.engine.enabled}") boolean engineEnabled,
+      @Value("${app.replica.enabled}") boolean replicaEnabled) {
+    if (engineEnabled || replicaEnabled) {
+      throw new IllegalStateException(
+          "app.sharding.enabled cannot be combined with app.engine.enabled or app.replica.enabled");
+    }
+    List<HikariDataSource> shards = new ArrayList<>();
+    HikariDataSource shard0 =
+        dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(shard0));
+    shards.add(shard0);
+    for (String url : urls) {
+      HikariDataSource shard = new HikariDataSource();
+      shard.setJdbcUrl(url);
+      shard.setUsername(username);
+      shard.setPassword(password);
+      Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(shard));
+      shards.add(shard);
+    }
+    for (int i = 0; i < shards.size(); i++) {
+      shards.get(i).setPoolName("shard-" + i);
+      shards.get(i).setMetricRegistry(meterRegistry);
+      if (i > 0) {
+        migrate(shards.get(i), i, flywayProperties, migrationStrategy.getIfAvailable());
+      }
+    }
+    return new ShardRoutingDataSource(shards);
+  }
+
+  @Bean
+  public ShardDirectory shardDirectory(
+      DataSource dataSource, @Value("${app.sharding.urls}") String[] urls) {
+    return new ShardDirectory(new JdbcTemplate(dataSource), urls.length + 1);
+  }
+
+  @Bean(destroyMethod = "close")
+  public CrossShardTransferService crossShardTransferService(
+      ShardDirectory shardDirectory,
+      AccountService accountService,
+      IdempotencyService idempotencyService,
+      AccountRepository accountRepository,
+      DataSource dataSource,
+      TransactionTemplate transactionTemplate,
+      @Value("${app.ledger.node-id}") int nodeId,
+      @Value("${app.sharding.saga-timeout}") Duration sagaTimeout,
+      @Value("${app.sharding.saga-recovery-interval}") Duration recoveryInterval) {
+    return new CrossShardTransferService(
+        shardDirectory,
+        accountService,
+        idempotencyService,
+        accountRepository,
+        new JdbcTemplate(dataSource),
+        transactionTemplate,
+        new LedgerIdGenerator(nodeId),
+        sagaTimeout,
+        recoveryInterval);
+  }
+
+  @Bean
+  public WebMvcConfigurer shardContextWebMvcConfigurer(ShardDirectory shardDirectory) {
+    return new WebMvcConfigurer() {
+      @Override
+      public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ShardContextInterceptor(shardDirectory));
+      }
+    };
+  }
+
+  private static void migrate(
+      DataSource shard,
+      int index,
+      FlywayProperties flywayProperties,
+      FlywayMigrationStrategy migrationStrategy) {
+    Flyway flyway =
+        Flyway.configure()
+            .dataSource(shard)
+            .locations(flywayProperties.getLocations().toArray(new String[0]))
+            .cleanDisabled(flywayProperties.isCleanDisabled())
+            .load();
+    if (migrationStrategy != null) {
+      migrationStrategy.migrate(flyway);
+    } else {
+      flyway.migrate();
+    }
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(shard);
+    Boolean used =
+        jdbcTemplate.queryForObject("SELECT is_called FROM account_sequence", Boolean.class);
+    if (!Boolean.TRUE.equals(used)) {
+      // Start one block in, so the pooled optimizer's first block is [offset + 1, offset + 50].
+      jdbcTemplate.execute(
+          "ALTER SEQUENCE account_sequence RESTART WITH " + (index * ACCOUNT_IDS_PER_SHARD + 50));
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.skypro.simplebanking.sql;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Reports every statement execution to {@link SqlUsageTracker}. Connections and statements are
+ * wrapped in JDK proxies that time the {@code execute*} calls. A JDBC batch counts as one
+ * statement, since it is one round trip. Extends {@link DelegatingDataSource}, so Actuator still
+ * finds the Hikari pool underneath for its metrics.
+ */
+public class CountingDataSource extends DelegatingDataSource {
+
+  public CountingDataSource(DataSource targetDataSource) {
+    super(targetDataSource);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return wrap(super.getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return wrap(super.getConnection(username, password));
+  }
+
+  private static Connection wrap(Connection connection) {
+    return (Connection)
+        Proxy.newProxyInstance(
+            CountingDataSource.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+              Object result = invoke(connection, method, args);
+              if (result instanceof Statement) {
+                String sql =
+                    method.getName().startsWith("prepare") && args != null && args.length > 0
+                        ? (String) args[0]
+                        : null;
+                return wrap((Statement) result, method.getReturnType(), sql);
+              }
+              return result;
+            });
+  }
+
+  private static Object wrap(Statement statement, Class<?> statementType, String preparedSql) {
+    return Proxy.newProxyInstance(
+        CountingDataSource.class.getClassLoader(),
+        new Class<?>[] {statementType},
+        (proxy, method, args) -> {
+          if (!method.getName().startsWith("execute")) {
+            return invoke(statement, method, args);
+          }
+          String sql = preparedSql != null ? preparedSql : firstStringArgument(args);
+          long start = System.nanoTime();
+          try {
+            return invoke(statement, method, args);
+          } finally {
+            SqlUsageTracker.record(sql, System.nanoTime() - start);
+          }
+        });
+  }
+
+  private static String firstStringArgument(Object[] args) {
+    return args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getTargetException();
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package com.skypro.simplebanking.sql;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Per-request SQL accounting. Every {@link DataSource} bean is wrapped in a {@link
+ * CountingDataSource}, so JPA and the {@code JdbcTemplate} ledger writes are counted the same way.
+ * Disabled with {@code app.sql-budget.enabled=false}, which also removes the proxies.
+ */
+@Configuration
+@EnableConfigurationProperties(SqlBudgetProperties.class)
+@ConditionalOnProperty(value = "app.sql-budget.enabled", matchIfMissing = true)
+public class SqlBudgetConfiguration {
+
+  @Bean
+  public static BeanPostProcessor countingDataSourcePostProcessor() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof CountingDataSource)) {
+          return new CountingDataSource((DataSource) bean);
+        }
+        return bean;
+      }
+    };
+  }
+
+  /** Runs ahead of Spring Security so the user lookup during authentication is counted too. */
+  @Bean
+  public FilterRegistrationBean<SqlBudgetFilter> sqlBudgetFilter(
+      SqlBudgetProperties properties, MeterRegistry meterRegistry) {
+    FilterRegistrationBean<SqlBudgetFilter> registration =
+        new FilterRegistrationBean<>(new SqlBudgetFilter(properties, meterRegistry));
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
+  }
+}
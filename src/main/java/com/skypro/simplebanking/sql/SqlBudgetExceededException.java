@@ -0,0 +1,8 @@
+package com.skypro.simplebanking.sql;
+
+/** Thrown by {@link SqlBudgetFilter} when {@code app.sql-budget.fail-on-exceed} is set. */
+public class SqlBudgetExceededException extends RuntimeException {
+  public SqlBudgetExceededException(String endpoint, int statements, int budget) {
+    super(endpoint + " executed " + statements + " SQL statements, budget is " + budget);
+  }
+}
@@ -0,0 +1,96 @@
+package com.skypro.simplebanking.sql;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Counts the SQL each request runs and checks it against the endpoint's budget. Per endpoint it
+ * records the distribution summary {@code banking.sql.statements} and the timer {@code
+ * banking.sql.time}. It counts overruns in {@code banking.sql.budget.exceeded}. Statements that run
+ * at least {@code repeated-statement-threshold} times in one request are logged as a likely N+1
+ * and counted in {@code banking.sql.repeated}.
+ *
+ * <p>Only SQL on the request thread is seen. Streaming exports run on the async executor and are
+ * not covered.
+ */
+public class SqlBudgetFilter extends OncePerRequestFilter {
+  private static final Logger log = LoggerFactory.getLogger(SqlBudgetFilter.class);
+
+  private final SqlBudgetProperties properties;
+  private final MeterRegistry meterRegistry;
+
+  public SqlBudgetFilter(SqlBudgetProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    SqlUsage usage = SqlUsageTracker.begin();
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      SqlUsageTracker.end();
+    }
+    String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    if (pattern != null) {
+      check(request.getMethod() + " " + pattern, pattern, usage);
+    }
+  }
+
+  private void check(String endpoint, String pattern, SqlUsage usage) {
+    DistributionSummary.builder("banking.sql.statements")
+        .tag("uri", pattern)
+        .register(meterRegistry)
+        .record(usage.getStatements());
+    Timer.builder("banking.sql.time")
+        .tag("uri", pattern)
+        .register(meterRegistry)
+        .record(usage.getJdbcNanos(), TimeUnit.NANOSECONDS);
+
+    Map<String, Integer> repeated =
+        usage.getRepeatedStatements(properties.getRepeatedStatementThreshold());
+    if (!repeated.isEmpty()) {
+      Counter.builder("banking.sql.repeated")
+          .tag("uri", pattern)
+          .register(meterRegistry)
+          .increment();
+      repeated.forEach(
+          (sql, executions) ->
+              log.warn("Possible N+1 in {}: {} executions of {}", endpoint, executions, sql));
+    }
+
+    int budget = properties.maxStatementsFor(pattern);
+    if (usage.getStatements() <= budget) {
+      return;
+    }
+    Counter.builder("banking.sql.budget.exceeded")
+        .tag("uri", pattern)
+        .register(meterRegistry)
+        .increment();
+    log.warn(
+        "{} exceeded its SQL budget: {} statements (budget {}), {} ms of JDBC time",
+        endpoint,
+        usage.getStatements(),
+        budget,
+        TimeUnit.NANOSECONDS.toMillis(usage.getJdbcNanos()));
+    if (properties.isFailOnExceed()) {
+      throw new SqlBudgetExceededException(endpoint, usage.getStatements(), budget);
+    }
+  }
+}
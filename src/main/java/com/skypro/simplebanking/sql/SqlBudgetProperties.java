@@ -0,0 +1,63 @@
+package com.skypro.simplebanking.sql;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Statement budgets keyed by the endpoint's handler mapping pattern, e.g. {@code
+ * app.sql-budget.max-statements.[/transfer/batch]=100}. Endpoints without an entry get {@link
+ * #getDefaultMaxStatements()}.
+ */
+@ConfigurationProperties("app.sql-budget")
+public class SqlBudgetProperties {
+  private boolean enabled = true;
+  private boolean failOnExceed;
+  private int defaultMaxStatements = 10;
+  private int repeatedStatementThreshold = 5;
+  private Map<String, Integer> maxStatements = new HashMap<>();
+
+  public int maxStatementsFor(String pattern) {
+    return maxStatements.getOrDefault(pattern, defaultMaxStatements);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isFailOnExceed() {
+    return failOnExceed;
+  }
+
+  public void setFailOnExceed(boolean failOnExceed) {
+    this.failOnExceed = failOnExceed;
+  }
+
+  public int getDefaultMaxStatements() {
+    return defaultMaxStatements;
+  }
+
+  public void setDefaultMaxStatements(int defaultMaxStatements) {
+    this.defaultMaxStatements = defaultMaxStatements;
+  }
+
+  public int getRepeatedStatementThreshold() {
+    return repeatedStatementThreshold;
+  }
+
+  public void setRepeatedStatementThreshold(int repeatedStatementThreshold) {
+    this.repeatedStatementThreshold = repeatedStatementThreshold;
+  }
+
+  public Map<String, Integer> getMaxStatements() {
+    return maxStatements;
+  }
+
+  public void setMaxStatements(Map<String, Integer> maxStatements) {
+    this.maxStatements = maxStatements;
+  }
+}
@@ -0,0 +1,39 @@
+package com.skypro.simplebanking.sql;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** SQL statements one request executed, with the time spent waiting for the database. */
+public class SqlUsage {
+  private int statements;
+  private long jdbcNanos;
+  private final Map<String, Integer> executionsBySql = new HashMap<>();
+
+  void record(String sql, long nanos) {
+    statements++;
+    jdbcNanos += nanos;
+    if (sql != null) {
+      executionsBySql.merge(sql, 1, Integer::sum);
+    }
+  }
+
+  public int getStatements() {
+    return statements;
+  }
+
+  public long getJdbcNanos() {
+    return jdbcNanos;
+  }
+
+  /** Statements whose exact SQL ran at least {@code threshold} times, the usual N+1 signature. */
+  public Map<String, Integer> getRepeatedStatements(int threshold) {
+    Map<String, Integer> repeated = new HashMap<>();
+    executionsBySql.forEach(
+        (sql, executions) -> {
+          if (executions >= threshold) {
+            repeated.put(sql, executions);
+          }
+        });
+    return repeated;
+  }
+}
@@ -0,0 +1,28 @@
+package com.skypro.simplebanking.sql;
+
+/**
+ * Binds a {@link SqlUsage} to the thread serving a request. {@link CountingDataSource} adds to it,
+ * and statements run on threads without one, such as the balance engine checkpointer, are ignored.
+ */
+public final class SqlUsageTracker {
+  private static final ThreadLocal<SqlUsage> CURRENT = new ThreadLocal<>();
+
+  private SqlUsageTracker() {}
+
+  public static SqlUsage begin() {
+    SqlUsage usage = new SqlUsage();
+    CURRENT.set(usage);
+    return usage;
+  }
+
+  public static void end() {
+    CURRENT.remove();
+  }
+
+  static void record(String sql, long nanos) {
+    SqlUsage usage = CURRENT.get();
+    if (usage != null) {
+      usage.record(sql, nanos);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+-- Sequences step by 50 to match the pooled allocationSize of the entity generators.
+CREATE SEQUENCE user_sequence START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE account_sequence START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users (
+    id bigint PRIMARY KEY,
+    username varchar(255) NOT NULL,
+    password varchar(255) NOT NULL,
+    CONSTRAINT users_username_key UNIQUE (username)
+);
+
+CREATE TABLE accounts (
+    id bigint PRIMARY KEY,
+    user_id bigint NOT NULL REFERENCES users (id),
+    account_currency varchar(3) NOT NULL CHECK (account_currency IN ('USD', 'EUR', 'RUB')),
+    amount bigint NOT NULL CHECK (amount >= 0),
+    slot_count integer NOT NULL DEFAULT 0 CHECK (slot_count >= 0)
+);
+
+-- getAccountByUser_IdAndId, findAccountDTO and the atomic deposit/withdraw all filter on both.
+CREATE INDEX accounts_user_id_id_idx ON accounts (user_id, id);
+-- findHotAccountIds runs before every transfer; hot accounts are a handful of rows.
+CREATE INDEX accounts_hot_idx ON accounts (id) WHERE slot_count > 0;
+
+CREATE TABLE account_slots (
+    account_id bigint NOT NULL REFERENCES accounts (id),
+    slot integer NOT NULL CHECK (slot >= 0),
+    amount bigint NOT NULL CHECK (amount >= 0),
+    PRIMARY KEY (account_id, slot)
+);
+
+CREATE TABLE ledger_entries (
+    id bigint PRIMARY KEY,
+    account_id bigint NOT NULL,
+    entry_type varchar(16) NOT NULL
+        CHECK (entry_type IN ('DEPOSIT', 'WITHDRAWAL', 'TRANSFER_DEBIT', 'TRANSFER_CREDIT')),
+    amount bigint NOT NULL,
+    currency varchar(3) NOT NULL CHECK (currency IN ('USD', 'EUR', 'RUB')),
+    balance_after bigint,
+    transfer_id bigint,
+    created_at timestamp NOT NULL
+);
+
+CREATE INDEX ledger_entries_account_created_idx ON ledger_entries (account_id, created_at);
+
+-- A row is written in the same transaction as the change it stands for, so only committed
+-- changes have one. request_hash pins the key to one request body.
+CREATE TABLE idempotency_keys (
+    id varchar(255) PRIMARY KEY,
+    request_hash varchar(64) NOT NULL,
+    response varchar(4000),
+    created_at timestamp NOT NULL
+);
+
+-- Keys are purged once older than app.idempotency.ttl.
+CREATE INDEX idempotency_keys_created_idx ON idempotency_keys (created_at);
+
+CREATE TABLE engine_checkpoints (
+    shard integer PRIMARY KEY CHECK (shard >= 0),
+    lsn bigint NOT NULL
+);
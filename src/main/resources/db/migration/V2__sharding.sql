@@ -0,0 +1,29 @@
+-- Only shard 0's copy is used: usernames of every shard's users, and the ids they were given.
+CREATE TABLE user_directory (
+    username varchar(255) PRIMARY KEY,
+    user_id bigint NOT NULL UNIQUE
+);
+
+-- Source side of a cross-shard transfer: the debit is done; the credit on the other shard may
+-- not be yet.
+CREATE TABLE transfer_sagas (
+    id bigint PRIMARY KEY,
+    from_user_id bigint NOT NULL,
+    from_account_id bigint NOT NULL,
+    to_user_id bigint NOT NULL,
+    to_account_id bigint NOT NULL,
+    amount bigint NOT NULL CHECK (amount >= 0),
+    status varchar(16) NOT NULL CHECK (status IN ('RESERVED', 'COMMITTED', 'COMPENSATED')),
+    -- The idempotency key recorded with the debit, released again if the saga is compensated.
+    idempotency_key varchar(255),
+    created_at timestamp NOT NULL
+);
+
+CREATE INDEX transfer_sagas_reserved_idx ON transfer_sagas (created_at) WHERE status = 'RESERVED';
+
+-- Destination side: one row per saga decides once whether its credit happened.
+CREATE TABLE transfer_saga_outcomes (
+    saga_id bigint PRIMARY KEY,
+    outcome varchar(16) NOT NULL CHECK (outcome IN ('CREDITED', 'REJECTED')),
+    created_at timestamp NOT NULL
+);
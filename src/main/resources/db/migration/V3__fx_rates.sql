@@ -0,0 +1,12 @@
+-- Every published version is kept, so the version recorded on a ledger entry can be looked up.
+CREATE TABLE fx_rates (
+    version bigint NOT NULL,
+    base_currency varchar(3) NOT NULL CHECK (base_currency IN ('USD', 'EUR', 'RUB')),
+    quote_currency varchar(3) NOT NULL CHECK (quote_currency IN ('USD', 'EUR', 'RUB')),
+    rate numeric(20, 10) NOT NULL CHECK (rate > 0),
+    PRIMARY KEY (version, base_currency, quote_currency)
+);
+
+-- Set on both entries of a cross-currency transfer.
+ALTER TABLE ledger_entries ADD COLUMN fx_rate numeric(20, 10);
+ALTER TABLE ledger_entries ADD COLUMN fx_rate_version bigint;
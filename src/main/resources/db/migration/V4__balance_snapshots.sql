@@ -0,0 +1,22 @@
+-- A snapshot holds an account's balance including every ledger entry created at or before
+-- snapshot_at, so a historical balance is one snapshot plus the entries after it.
+CREATE TABLE balance_snapshots (
+    account_id bigint NOT NULL,
+    snapshot_at timestamp NOT NULL,
+    balance bigint NOT NULL,
+    PRIMARY KEY (account_id, snapshot_at)
+);
+
+-- One row per snapshot job run; the newest one bounds the next run's search for movements.
+CREATE TABLE balance_snapshot_runs (
+    snapshot_at timestamp PRIMARY KEY
+);
+
+-- Statements page by (created_at, id) and sum amounts; covering both keeps them index-only.
+CREATE INDEX ledger_entries_account_created_id_idx
+    ON ledger_entries (account_id, created_at, id) INCLUDE (amount);
+DROP INDEX ledger_entries_account_created_idx;
+
+-- The snapshot job looks for accounts with entries since its last run. Entries are appended in
+-- time order, so a BRIN index finds them at a fraction of a B-tree's size and write cost.
+CREATE INDEX ledger_entries_created_brin_idx ON ledger_entries USING brin (created_at);
@@ -0,0 +1,47 @@
+package com.skypro.simplebanking.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LruCacheTest {
+
+    @Test
+    void testEntryExpiresAfterTtl() {
+        LruCache<String, String> cache = new LruCache<>(10, Duration.ZERO);
+        cache.put("key", "value");
+
+        assertEquals(Optional.empty(), cache.get("key"));
+        assertEquals(0, cache.size());
+        assertEquals(1L, cache.getEvictions());
+        assertEquals(1L, cache.getMisses());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        LruCache<String, String> cache = new LruCache<>(2, Duration.ofHours(1));
+        cache.put("a", "1");
+        cache.put("b", "2");
+        // Reading "a" makes "b" the least recently used entry.
+        assertEquals(Optional.of("1"), cache.get("a"));
+        cache.put("c", "3");
+
+        assertEquals(Optional.empty(), cache.get("b"));
+        assertEquals(Optional.of("1"), cache.get("a"));
+        assertEquals(Optional.of("3"), cache.get("c"));
+        assertEquals(2, cache.size());
+        assertEquals(1L, cache.getEvictions());
+    }
+
+    @Test
+    void testInvalidateRemovesEntry() {
+        LruCache<String, String> cache = new LruCache<>(2, Duration.ofHours(1));
+        cache.put("a", "1");
+        cache.invalidate("a");
+
+        assertEquals(Optional.empty(), cache.get("a"));
+    }
+}
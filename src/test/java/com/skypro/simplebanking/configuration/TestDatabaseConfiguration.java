@@ -1,5 +1,6 @@
 package com.skypro.simplebanking.configuration;
 
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.testcontainers.containers.PostgreSQLContainer;
@@ -15,4 +16,13 @@ public class TestDatabaseConfiguration {
         container.start();
         return container;
     }
+
+    // Tests reset the database with @DirtiesContext, which create-drop used to do for free.
+    @Bean
+    public FlywayMigrationStrategy cleanMigrateStrategy() {
+        return flyway -> {
+            flyway.clean();
+            flyway.migrate();
+        };
+    }
 }
@@ -0,0 +1,54 @@
+package com.skypro.simplebanking.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VerifiedCredentialCacheTest {
+
+    private final UserDetails userDetails = User.withUsername("testuser")
+            .password("{noop}old-password")
+            .roles("USER")
+            .build();
+
+    @Test
+    void testVerifiedPasswordIsRemembered() {
+        VerifiedCredentialCache cache = new VerifiedCredentialCache(10, Duration.ofHours(1));
+        cache.store("testuser", "old-password", userDetails);
+
+        assertEquals(Optional.of(userDetails), cache.lookup("testuser", "old-password"));
+        assertEquals(1L, cache.getHits());
+    }
+
+    @Test
+    void testChangedPasswordDoesNotMatchDigest() {
+        VerifiedCredentialCache cache = new VerifiedCredentialCache(10, Duration.ofHours(1));
+        cache.store("testuser", "old-password", userDetails);
+
+        assertEquals(Optional.empty(), cache.lookup("testuser", "new-password"));
+        assertEquals(Optional.empty(), cache.lookup("otheruser", "old-password"));
+    }
+
+    @Test
+    void testCredentialExpiresAfterTtl() {
+        VerifiedCredentialCache cache = new VerifiedCredentialCache(10, Duration.ZERO);
+        cache.store("testuser", "old-password", userDetails);
+
+        assertEquals(Optional.empty(), cache.lookup("testuser", "old-password"));
+    }
+
+    @Test
+    void testLeastRecentlyUsedCredentialIsEvicted() {
+        VerifiedCredentialCache cache = new VerifiedCredentialCache(1, Duration.ofHours(1));
+        cache.store("testuser", "old-password", userDetails);
+        cache.store("otheruser", "password", userDetails);
+
+        assertEquals(Optional.empty(), cache.lookup("testuser", "old-password"));
+        assertEquals(1L, cache.getEvictions());
+    }
+}
@@ -1,13 +1,19 @@
 package com.skypro.simplebanking.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypro.simplebanking.dto.AccountDTO;
 import com.skypro.simplebanking.dto.BalanceChangeRequest;
 import com.skypro.simplebanking.dto.BankingUserDetails;
 import com.skypro.simplebanking.entity.Account;
 import com.skypro.simplebanking.entity.AccountCurrency;
 import com.skypro.simplebanking.entity.User;
+import com.skypro.simplebanking.exception.InsufficientFundsException;
 import com.skypro.simplebanking.repository.AccountRepository;
 import com.skypro.simplebanking.repository.UserRepository;
+import com.skypro.simplebanking.service.AccountService;
+import com.skypro.simplebanking.service.BalanceSnapshotJob;
+import com.skypro.simplebanking.service.IdempotencyKeyPurgeJob;
+import com.skypro.simplebanking.service.IdempotencyService;
 import com.skypro.simplebanking.service.UserService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +22,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -29,6 +36,17 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -63,6 +81,20 @@ class AccountControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private BalanceSnapshotJob balanceSnapshotJob;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyKeyPurgeJob idempotencyKeyPurgeJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
     @Test
     void testGetUserAccount() throws Exception{
@@ -168,6 +200,319 @@ class AccountControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.currency").value(account.getAccountCurrency().toString()));
     }
 
+    @Test
+    void testWithdrawFromOtherUsersAccountIsNotFound() throws Exception {
+        User owner = saveUser("withdrawowner");
+        User intruder = saveUser("withdrawintruder");
+        Account account = saveAccount(owner, 1000L);
+        authenticate(intruder);
+
+        mockMvc.perform(post("/account/withdraw/{id}", account.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(createBalanceChangeRequest(100L))))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/account/deposit/{id}", account.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(createBalanceChangeRequest(100L))))
+                .andExpect(status().isNotFound());
+
+        assertEquals(1000L, accountRepository.findById(account.getId()).orElseThrow().getAmount());
+    }
+
+    @Test
+    void testWithdrawBeyondBalanceIsInsufficientFunds() throws Exception {
+        User user = saveUser("overdrawer");
+        Account account = saveAccount(user, 100L);
+        authenticate(user);
+
+        mockMvc.perform(post("/account/withdraw/{id}", account.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(createBalanceChangeRequest(150L))))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.content().string("Cannot withdraw 150 USD"));
+
+        assertEquals(100L, accountRepository.findById(account.getId()).orElseThrow().getAmount());
+    }
+
+    @Test
+    void testConcurrentWithdrawalsNeverOverdraw() throws Exception {
+        User user = saveUser("concurrentwithdrawer");
+        Account account = saveAccount(user, 1000L);
+        int attempts = 25;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService workers = Executors.newFixedThreadPool(attempts);
+        List<Future<Boolean>> withdrawals = new ArrayList<>();
+        try {
+            for (int i = 0; i < attempts; i++) {
+                withdrawals.add(workers.submit(() -> {
+                    start.await();
+                    try {
+                        accountService.withdrawFromAccount(user.getId(), account.getId(), 100L);
+                        return true;
+                    } catch (InsufficientFundsException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int succeeded = 0;
+            for (Future<Boolean> withdrawal : withdrawals) {
+                if (withdrawal.get(30, TimeUnit.SECONDS)) {
+                    succeeded++;
+                }
+            }
+            assertEquals(10, succeeded);
+        } finally {
+            workers.shutdownNow();
+        }
+
+        assertEquals(0L, accountRepository.findById(account.getId()).orElseThrow().getAmount());
+    }
+
+    @Test
+    void testRepeatedDepositWithSameIdempotencyKeyIsAppliedOnce() throws Exception {
+        User user = new User();
+        user.setUsername("idempotentuser");
+        user.setPassword("password");
+        user = userRepository.save(user);
+        Account account = new Account();
+        account.setAccountCurrency(AccountCurrency.USD);
+        account.setAmount(100000L);
+        account.setUser(user);
+        account = accountRepository.save(account);
+
+        BankingUserDetails bankingUserDetails = new BankingUserDetails(
+                user.getId(), user.getUsername(), user.getPassword(), false
+        );
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(bankingUserDetails, null, bankingUserDetails.getAuthorities())
+        );
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/account/deposit/{id}", account.getId())
+                            .header("Idempotency-Key", "deposit-retry-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(asJsonString(createBalanceChangeRequest(100L))))
+                    .andExpect(status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.amount").value(account.getAmount() + 100L));
+        }
+
+        assertEquals(account.getAmount() + 100L, accountRepository.findById(account.getId()).orElseThrow().getAmount());
+    }
+
+    @Test
+    void testRepeatedWithdrawalWithSameIdempotencyKeyIsAppliedOnce() throws Exception {
+        User user = saveUser("idempotentwithdrawer");
+        Account account = saveAccount(user, 1000L);
+        authenticate(user);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/account/withdraw/{id}", account.getId())
+                            .header("Idempotency-Key", "withdraw-retry-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(asJsonString(createBalanceChangeRequest(300L))))
+                    .andExpect(status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.amount").value(700L));
+        }
+
+        assertEquals(700L, accountRepository.findById(account.getId()).orElseThrow().getAmount());
+    }
+
+    @Test
+    void testIdempotencyKeyReusedWithDifferentRequestIsRejected() throws Exception {
+        User user = saveUser("keyreuser");
+        Account account = saveAccount(user, 1000L);
+        authenticate(user);
+
+        mockMvc.perform(post("/account/withdraw/{id}", account.getId())
+                        .header("Idempotency-Key", "withdraw-reused")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(createBalanceChangeRequest(100L))))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/account/withdraw/{id}", account.getId())
+                        .header("Idempotency-Key", "withdraw-reused")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(createBalanceChangeRequest(200L))))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertEquals(900L, accountRepository.findById(account.getId()).orElseThrow().getAmount());
+    }
+
+    @Test
+    void testFailedRequestDoesNotKeepItsIdempotencyKey() throws Exception {
+        User user = saveUser("failedkeyuser");
+        Account account = saveAccount(user, 100L);
+        authenticate(user);
+
+        mockMvc.perform(post("/account/withdraw/{id}", account.getId())
+                        .header("Idempotency-Key", "withdraw-after-top-up")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(createBalanceChangeRequest(150L))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/account/deposit/{id}", account.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(createBalanceChangeRequest(100L))))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/account/withdraw/{id}", account.getId())
+                        .header("Idempotency-Key", "withdraw-after-top-up")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(createBalanceChangeRequest(150L))))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.amount").value(50L));
+    }
+
+    @Test
+    void testConcurrentDepositsWithSameIdempotencyKeyAreAppliedOnce() throws Exception {
+        User user = saveUser("concurrentkeyuser");
+        Account account = saveAccount(user, 1000L);
+        BalanceChangeRequest request = createBalanceChangeRequest(100L);
+        int attempts = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService workers = Executors.newFixedThreadPool(attempts);
+        List<Future<AccountDTO>> running = new ArrayList<>();
+        try {
+            for (int i = 0; i < attempts; i++) {
+                running.add(workers.submit(() -> {
+                    start.await();
+                    return idempotencyService.execute(
+                            user.getId(), "deposit", "deposit-race", List.of(account.getId(), request),
+                            AccountDTO.class,
+                            () -> accountService.depositToAccount(user.getId(), account.getId(), 100L));
+                }));
+            }
+            start.countDown();
+            for (Future<AccountDTO> deposit : running) {
+                assertEquals(1100L, deposit.get(60, TimeUnit.SECONDS).getAmount());
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        assertEquals(1100L, accountRepository.findById(account.getId()).orElseThrow().getAmount());
+    }
+
+    @Test
+    void testExpiredIdempotencyKeysArePurged() {
+        jdbcTemplate.update(
+                "INSERT INTO idempotency_keys (id, request_hash, response, created_at) VALUES (?, '', 'null', ?)",
+                "0:transfer:expired", Timestamp.from(Instant.now().minus(Duration.ofDays(2))));
+        jdbcTemplate.update(
+                "INSERT INTO idempotency_keys (id, request_hash, response, created_at) VALUES (?, '', 'null', ?)",
+                "0:transfer:recent", Timestamp.from(Instant.now()));
+
+        idempotencyKeyPurgeJob.purge();
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM idempotency_keys WHERE id = '0:transfer:expired'", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM idempotency_keys WHERE id = '0:transfer:recent'", Integer.class));
+    }
+
+    @Test
+    void testCachedAccountReflectsCommittedDeposit() throws Exception {
+        User user = new User();
+        user.setUsername("pollinguser");
+        user.setPassword("password");
+        user = userRepository.save(user);
+        Account account = new Account();
+        account.setAccountCurrency(AccountCurrency.USD);
+        account.setAmount(500L);
+        account.setUser(user);
+        account = accountRepository.save(account);
+
+        BankingUserDetails bankingUserDetails = new BankingUserDetails(
+                user.getId(), user.getUsername(), user.getPassword(), false
+        );
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(bankingUserDetails, null, bankingUserDetails.getAuthorities())
+        );
+
+        for (int poll = 0; poll < 2; poll++) {
+            mockMvc.perform(get("/account/{id}", account.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.amount").value(500L));
+        }
+
+        mockMvc.perform(post("/account/deposit/{id}", account.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(createBalanceChangeRequest(25L))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/account/{id}", account.getId()))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.amount").value(525L));
+    }
+
+    @Test
+    void testStatementPagesEntriesWithRunningBalance() throws Exception {
+        User user = new User();
+        user.setUsername("statementuser");
+        user.setPassword("password");
+        user = userRepository.save(user);
+        Account account = new Account();
+        account.setAccountCurrency(AccountCurrency.USD);
+        account.setAmount(500L);
+        account.setUser(user);
+        account = accountRepository.save(account);
+
+        BankingUserDetails bankingUserDetails = new BankingUserDetails(
+                user.getId(), user.getUsername(), user.getPassword(), false
+        );
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(bankingUserDetails, null, bankingUserDetails.getAuthorities())
+        );
+
+        Instant beforeMovements = Instant.now();
+        mockMvc.perform(post("/account/deposit/{id}", account.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(createBalanceChangeRequest(100L))))
+                .andExpect(status().isOk());
+        Instant afterFirstDeposit = Instant.now();
+        mockMvc.perform(post("/account/withdraw/{id}", account.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(createBalanceChangeRequest(30L))))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/account/deposit/{id}", account.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(createBalanceChangeRequest(10L))))
+                .andExpect(status().isOk());
+        // The first run snapshots every account as of a minute ago, before these movements.
+        balanceSnapshotJob.snapshot();
+
+        mockMvc.perform(get("/account/{id}", account.getId()).param("at", beforeMovements.toString()))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.amount").value(500L));
+        mockMvc.perform(get("/account/{id}", account.getId()).param("at", afterFirstDeposit.toString()))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.amount").value(600L));
+
+        String firstPage = mockMvc.perform(get("/account/{id}/statement", account.getId())
+                        .param("from", beforeMovements.toString())
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.openingBalance").value(500L))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.entries.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.entries[0].type").value("DEPOSIT"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.entries[0].balanceAfter").value(600L))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.entries[1].amount").value(-30L))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.entries[1].balanceAfter").value(570L))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = new ObjectMapper().readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/account/{id}/statement", account.getId())
+                        .param("from", beforeMovements.toString())
+                        .param("after", cursor)
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.openingBalance").value(570L))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.entries.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.entries[0].balanceAfter").value(580L))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").doesNotExist());
+    }
+
     @Test
     @WithMockUser(username = "adminuser", roles = "ADMIN")
     void testWithdrawFromOtherUsersAccountAsAdmin() throws Exception {
@@ -211,6 +556,30 @@ class AccountControllerTest {
         return account;
     }
 
+    private User saveUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        return userRepository.save(user);
+    }
+
+    private Account saveAccount(User user, long amount) {
+        Account account = new Account();
+        account.setAccountCurrency(AccountCurrency.USD);
+        account.setAmount(amount);
+        account.setUser(user);
+        return accountRepository.save(account);
+    }
+
+    private static void authenticate(User user) {
+        BankingUserDetails bankingUserDetails = new BankingUserDetails(
+                user.getId(), user.getUsername(), user.getPassword(), false
+        );
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(bankingUserDetails, null, bankingUserDetails.getAuthorities())
+        );
+    }
+
     private BalanceChangeRequest createBalanceChangeRequest(long amount) {
         BalanceChangeRequest balanceChangeRequest = new BalanceChangeRequest();
         balanceChangeRequest.setAmount(amount);
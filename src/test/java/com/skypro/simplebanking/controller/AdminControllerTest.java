@@ -0,0 +1,249 @@
+package com.skypro.simplebanking.controller;
+
+import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.entity.Account;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.entity.User;
+import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.repository.UserRepository;
+import com.skypro.simplebanking.fixtures.BankingFixtures;
+import com.skypro.simplebanking.service.AccountService;
+import com.skypro.simplebanking.service.TransferService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static com.skypro.simplebanking.fixtures.BankingFixtures.transferRequest;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AdminControllerTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BankingFixtures fixtures;
+
+    @Value("${app.security.admin-token}")
+    private String adminToken;
+
+    @Test
+    @DirtiesContext
+    void testExportUserAccountsAsAdmin() throws Exception {
+        User user = new User();
+        user.setUsername("exportuser");
+        user.setPassword("password");
+        user = userRepository.save(user);
+
+        Account account = new Account();
+        account.setAccountCurrency(AccountCurrency.EUR);
+        account.setAmount(700L);
+        account.setUser(user);
+        account = accountRepository.save(account);
+
+        MvcResult result = mockMvc.perform(get("/admin/export")
+                        .header("X-SECURITY-ADMIN-KEY", adminToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "{\"userId\":" + user.getId() + ",\"username\":\"exportuser\",\"accountId\":"
+                                + account.getId() + ",\"currency\":\"EUR\",\"amount\":700}\n")));
+    }
+
+    @Test
+    @DirtiesContext
+    void testHotAccountKeepsOneTotalAcrossSlots() throws Exception {
+        User user = new User();
+        user.setUsername("merchant");
+        user.setPassword("password");
+        user = userRepository.save(user);
+
+        Account account = new Account();
+        account.setAccountCurrency(AccountCurrency.USD);
+        account.setAmount(700L);
+        account.setUser(user);
+        account = accountRepository.save(account);
+
+        mockMvc.perform(post("/admin/accounts/{accountId}/slots", account.getId())
+                        .param("count", "4")
+                        .header("X-SECURITY-ADMIN-KEY", adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(700));
+
+        for (int i = 0; i < 3; i++) {
+            accountService.depositToAccount(user.getId(), account.getId(), 50L);
+        }
+        assertEquals(850L, accountService.getAccount(user.getId(), account.getId()).getAmount());
+        assertEquals(50L, accountService.withdrawFromAccount(user.getId(), account.getId(), 800L).getAmount());
+
+        mockMvc.perform(post("/admin/accounts/{accountId}/slots", account.getId())
+                        .param("count", "0")
+                        .header("X-SECURITY-ADMIN-KEY", adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(50));
+        assertEquals(50L, accountRepository.findById(account.getId()).orElseThrow().getAmount());
+    }
+
+    @Test
+    @DirtiesContext
+    void testTransfersInAndOutOfHotAccountDoNotDeadlock() throws Exception {
+        User merchant = fixtures.saveUser("merchant");
+        User customer = fixtures.saveUser("customer");
+        Account merchantAccount = fixtures.saveAccount(merchant, AccountCurrency.USD, 0L);
+        Account customerAccount = fixtures.saveAccount(customer, AccountCurrency.USD, 10000L);
+        // Striped behind the application's back, as another instance would do it.
+        jdbcTemplate.update("UPDATE accounts SET slot_count = 4 WHERE id = ?", merchantAccount.getId());
+        jdbcTemplate.update("INSERT INTO account_slots (account_id, slot, amount)"
+                + " SELECT ?, slot, 2500 FROM generate_series(0, 3) AS slot", merchantAccount.getId());
+
+        int transfers = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService workers = Executors.newFixedThreadPool(16);
+        List<Future<?>> running = new ArrayList<>();
+        try {
+            for (int i = 0; i < transfers; i++) {
+                boolean incoming = i % 2 == 0;
+                User sender = incoming ? customer : merchant;
+                TransferRequest transferRequest = incoming
+                        ? transferRequest(customerAccount.getId(), merchant.getId(), merchantAccount.getId(), 10L)
+                        : transferRequest(merchantAccount.getId(), customer.getId(), customerAccount.getId(), 10L);
+                running.add(workers.submit(() -> {
+                    start.await();
+                    transferService.transfer(sender.getId(), transferRequest);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> transfer : running) {
+                // Incoming transfers credit a slot while outgoing ones sweep them all.
+                transfer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        assertEquals(10000L, fixtures.amountOf(customerAccount));
+        assertEquals(10000L, accountRepository
+                .findAccountDTO(merchant.getId(), merchantAccount.getId()).orElseThrow().getAmount());
+    }
+
+    @Test
+    @DirtiesContext
+    void testProvisionUsersReportsPerRowResults() throws Exception {
+        User existing = new User();
+        existing.setUsername("existing");
+        existing.setPassword("password");
+        userRepository.save(existing);
+
+        mockMvc.perform(post("/admin/users")
+                        .header("X-SECURITY-ADMIN-KEY", adminToken)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"username\":\"alice\",\"password\":\"secret\"}\n"
+                                + "{\"username\":\"existing\",\"password\":\"secret\"}\n"
+                                + "{\"username\":\"alice\",\"password\":\"other\"}\n"
+                                + "{\"username\":\"bob\",\"password\":\"\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].status").value("USERNAME_TAKEN"))
+                .andExpect(jsonPath("$[2].status").value("DUPLICATE_IN_REQUEST"))
+                .andExpect(jsonPath("$[3].status").value("INVALID"));
+
+        User alice = userRepository.findByUsername("alice").orElseThrow();
+        assertEquals(AccountCurrency.values().length,
+                accountRepository.findAll().stream().filter(a -> a.getUserId().equals(alice.getId())).count());
+    }
+
+    @Test
+    @DirtiesContext
+    void testProvisionUsersKeepsTheRestOfAFailedChunk() throws Exception {
+        // Passes validation but not the varchar(255) column, which fails the chunk's transaction.
+        String tooLong = "x".repeat(300);
+
+        mockMvc.perform(post("/admin/users")
+                        .header("X-SECURITY-ADMIN-KEY", adminToken)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"username\":\"alice\",\"password\":\"secret\"}\n"
+                                + "{\"username\":\"" + tooLong + "\",\"password\":\"secret\"}\n"
+                                + "{\"username\":\"bob\",\"password\":\"secret\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].status").value("FAILED"))
+                .andExpect(jsonPath("$[2].status").value("CREATED"));
+
+        assertTrue(userRepository.findByUsername("alice").isPresent());
+        assertTrue(userRepository.findByUsername("bob").isPresent());
+        assertTrue(userRepository.findByUsername(tooLong).isEmpty());
+    }
+
+    @Test
+    @DirtiesContext
+    @WithMockUser(username = "testuser", roles = "USER")
+    void testExportUserAccountsAsUser() throws Exception {
+        mockMvc.perform(get("/admin/export"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -1,11 +1,15 @@
 package com.skypro.simplebanking.controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.skypro.simplebanking.configuration.BinaryFormatsConfiguration;
 import com.skypro.simplebanking.dto.BankingUserDetails;
 import com.skypro.simplebanking.dto.TransferRequest;
 import com.skypro.simplebanking.entity.Account;
 import com.skypro.simplebanking.entity.AccountCurrency;
 import com.skypro.simplebanking.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -22,7 +26,9 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 
 import static org.junit.jupiter.api.Assertions.*;
 import com.skypro.simplebanking.entity.User;
+import com.skypro.simplebanking.fixtures.BankingFixtures;
 import com.skypro.simplebanking.repository.UserRepository;
+import com.skypro.simplebanking.service.TransferService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -31,14 +37,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
@@ -51,6 +65,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static com.skypro.simplebanking.fixtures.BankingFixtures.asJsonString;
+import static com.skypro.simplebanking.fixtures.BankingFixtures.authenticate;
+import static com.skypro.simplebanking.fixtures.BankingFixtures.transferRequest;
 @SpringBootTest
 @AutoConfigureMockMvc
 @Testcontainers
@@ -79,6 +97,17 @@ class TransferControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BankingFixtures fixtures;
 
     @Test
     @DirtiesContext
@@ -145,12 +174,185 @@ class TransferControllerTest {
         assertEquals(100000L, toAccount.getAmount());
     }
 
+    @Test
+    @DirtiesContext
+    void testOppositeTransfersRunConcurrentlyWithoutDeadlock() throws Exception {
+        User first = fixtures.saveUser("firstuser");
+        User second = fixtures.saveUser("seconduser");
+        Account firstAccount = fixtures.saveAccount(first, AccountCurrency.USD, 10000L);
+        Account secondAccount = fixtures.saveAccount(second, AccountCurrency.USD, 10000L);
 
-    private static String asJsonString(final Object obj) {
+        int transfers = 400;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService workers = Executors.newFixedThreadPool(16);
+        List<Future<?>> running = new ArrayList<>();
         try {
-            return new ObjectMapper().writeValueAsString(obj);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            for (int i = 0; i < transfers; i++) {
+                boolean forward = i % 2 == 0;
+                User sender = forward ? first : second;
+                TransferRequest transferRequest = forward
+                        ? transferRequest(firstAccount.getId(), second.getId(), secondAccount.getId(), 10L)
+                        : transferRequest(secondAccount.getId(), first.getId(), firstAccount.getId(), 10L);
+                running.add(workers.submit(() -> {
+                    start.await();
+                    transferService.transfer(sender.getId(), transferRequest);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> transfer : running) {
+                // Rethrows whatever a transfer failed with, deadlock aborts included.
+                transfer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            workers.shutdownNow();
         }
+
+        long firstAmount = fixtures.amountOf(firstAccount);
+        long secondAmount = fixtures.amountOf(secondAccount);
+        assertEquals(20000L, firstAmount + secondAmount);
+        assertEquals(10000L, firstAmount);
+        assertEquals(10000L, secondAmount);
+    }
+
+
+    @Test
+    @DirtiesContext
+    void testTransferBatchAppliesEachTransferIndependently() throws Exception {
+        User sender = fixtures.saveUser("sender");
+        User receiver = fixtures.saveUser("receiver");
+        Account fromAccount = fixtures.saveAccount(sender, AccountCurrency.USD, 100L);
+        Account toAccount = fixtures.saveAccount(receiver, AccountCurrency.USD, 0L);
+        authenticate(sender);
+
+        mockMvc.perform(post("/transfer/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(Arrays.asList(
+                                transferRequest(fromAccount.getId(), receiver.getId(), toAccount.getId(), 30L),
+                                transferRequest(fromAccount.getId(), receiver.getId(), toAccount.getId(), 100L),
+                                transferRequest(fromAccount.getId(), receiver.getId(), toAccount.getId(), 50L)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("OK"))
+                .andExpect(jsonPath("$[1].status").value("INSUFFICIENT_FUNDS"))
+                .andExpect(jsonPath("$[2].status").value("OK"));
+
+        assertEquals(20L, fixtures.amountOf(fromAccount));
+        assertEquals(80L, fixtures.amountOf(toAccount));
+        assertEquals(-80L, sumLedgerEntries(fromAccount, "TRANSFER_DEBIT"));
+        assertEquals(80L, sumLedgerEntries(toAccount, "TRANSFER_CREDIT"));
+    }
+
+    @Test
+    @DirtiesContext
+    void testAtomicTransferBatchRollsBackOnFailure() throws Exception {
+        User sender = fixtures.saveUser("sender");
+        User receiver = fixtures.saveUser("receiver");
+        Account fromAccount = fixtures.saveAccount(sender, AccountCurrency.USD, 100L);
+        Account toAccount = fixtures.saveAccount(receiver, AccountCurrency.USD, 0L);
+        authenticate(sender);
+
+        mockMvc.perform(post("/transfer/batch")
+                        .param("atomic", "true")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(asJsonString(transferRequest(fromAccount.getId(), receiver.getId(), toAccount.getId(), 30L))
+                                + "\n"
+                                + asJsonString(transferRequest(fromAccount.getId(), receiver.getId(), toAccount.getId(), 100L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("ROLLED_BACK"))
+                .andExpect(jsonPath("$[1].status").value("INSUFFICIENT_FUNDS"));
+
+        assertEquals(100L, fixtures.amountOf(fromAccount));
+        assertEquals(0L, fixtures.amountOf(toAccount));
+        assertEquals(0L, sumLedgerEntries(fromAccount, "TRANSFER_DEBIT"));
+    }
+
+    @Test
+    @DirtiesContext
+    void testRepeatedTransferWithSameIdempotencyKeyIsAppliedOnce() throws Exception {
+        User sender = fixtures.saveUser("sender");
+        User receiver = fixtures.saveUser("receiver");
+        Account fromAccount = fixtures.saveAccount(sender, AccountCurrency.USD, 100L);
+        Account toAccount = fixtures.saveAccount(receiver, AccountCurrency.USD, 0L);
+        authenticate(sender);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/transfer")
+                            .header("Idempotency-Key", "transfer-retry-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(asJsonString(transferRequest(fromAccount.getId(), receiver.getId(), toAccount.getId(), 30L))))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(post("/transfer")
+                        .header("Idempotency-Key", "transfer-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(transferRequest(fromAccount.getId(), receiver.getId(), toAccount.getId(), 40L))))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertEquals(70L, fixtures.amountOf(fromAccount));
+        assertEquals(30L, fixtures.amountOf(toAccount));
+        assertEquals(-30L, sumLedgerEntries(fromAccount, "TRANSFER_DEBIT"));
+    }
+
+    @Test
+    @DirtiesContext
+    void testRejectedTransferIsCountedAndTimed() throws Exception {
+        User sender = fixtures.saveUser("sender");
+        User receiver = fixtures.saveUser("receiver");
+        Account fromAccount = fixtures.saveAccount(sender, AccountCurrency.USD, 100L);
+        Account toAccount = fixtures.saveAccount(receiver, AccountCurrency.USD, 0L);
+        authenticate(sender);
+
+        mockMvc.perform(post("/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(transferRequest(fromAccount.getId(), receiver.getId(), toAccount.getId(), 1000L))))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(1.0, meterRegistry.counter("banking.errors", "exception", "InsufficientFundsException").count());
+        assertEquals(1L, meterRegistry.get("banking.transfer")
+                .tag("exception", "InsufficientFundsException")
+                .timer()
+                .count());
+    }
+
+    @Test
+    @DirtiesContext
+    void testTransferAndAccountInBinaryFormats() throws Exception {
+        User sender = fixtures.saveUser("sender");
+        User receiver = fixtures.saveUser("receiver");
+        Account fromAccount = fixtures.saveAccount(sender, AccountCurrency.USD, 100L);
+        Account toAccount = fixtures.saveAccount(receiver, AccountCurrency.USD, 0L);
+        authenticate(sender);
+
+        mockMvc.perform(post("/transfer")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .content(new CBORMapper().writeValueAsBytes(
+                                transferRequest(fromAccount.getId(), receiver.getId(), toAccount.getId(), 30L))))
+                .andExpect(status().isOk());
+
+        byte[] cbor = mockMvc.perform(get("/account/{id}", fromAccount.getId())
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(70L, new CBORMapper().readTree(cbor).get("amount").asLong());
+
+        byte[] smile = mockMvc.perform(get("/account/{id}", fromAccount.getId())
+                        .accept(BinaryFormatsConfiguration.APPLICATION_SMILE_VALUE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode account = new SmileMapper().readTree(smile);
+        assertEquals(70L, account.get("amount").asLong());
+        assertEquals("USD", account.get("currency").asText());
+
+        mockMvc.perform(get("/account/{id}", fromAccount.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.amount").value(70L));
+    }
+
+    private long sumLedgerEntries(Account account, String entryType) {
+        Long sum = jdbcTemplate.queryForObject(
+                "SELECT coalesce(sum(amount), 0) FROM ledger_entries WHERE account_id = ? AND entry_type = ?",
+                Long.class, account.getId(), entryType);
+        return sum == null ? 0L : sum;
     }
-}
\ No newline at end of file
+}
@@ -117,6 +117,34 @@ class UserControllerTest {
                 .andExpect(jsonPath("$[1].username").value(user2.getUsername()));
     }
 
+    @Test
+    @DirtiesContext
+    @WithMockUser(username = "testuser", roles = "USER")
+    void testGetUsersPageByCursor() throws Exception {
+        User user1 = new User();
+        user1.setUsername("user1");
+        user1.setPassword("password1");
+        user1 = userRepository.save(user1);
+
+        User user2 = new User();
+        user2.setUsername("user2");
+        user2.setPassword("password2");
+        user2 = userRepository.save(user2);
+
+        mockMvc.perform(get("/user/list").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0].username").value(user1.getUsername()))
+                .andExpect(jsonPath("$.nextCursor").value(user1.getId()));
+
+        mockMvc.perform(get("/user/list")
+                        .param("after", String.valueOf(user1.getId()))
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].username").value(user2.getUsername()))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
     @Test
     @DirtiesContext
     @WithMockUser(username = "adminuser", roles = "ADMIN")
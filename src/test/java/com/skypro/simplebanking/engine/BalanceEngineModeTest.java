@@ -0,0 +1,117 @@
+package com.skypro.simplebanking.engine;
+
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.entity.Account;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.entity.User;
+import com.skypro.simplebanking.fixtures.BankingFixtures;
+import com.skypro.simplebanking.service.AccountService;
+import com.skypro.simplebanking.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.file.Path;
+
+import static com.skypro.simplebanking.fixtures.BankingFixtures.authenticate;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A long checkpoint interval keeps the accounts table behind the engine for the whole test.
+@SpringBootTest(properties = {"app.engine.enabled=true", "app.engine.checkpoint-interval=1h"})
+@AutoConfigureMockMvc
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class BalanceEngineModeTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @TempDir
+    static Path walDirectory;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("app.engine.wal.directory", walDirectory::toString);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BankingFixtures fixtures;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Value("${app.security.admin-token}")
+    private String adminToken;
+
+    @Test
+    @DirtiesContext
+    void testBalanceReadsComeFromTheEngine() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "admin", null, AuthorityUtils.createAuthorityList("admin")));
+        UserDTO user = userService.createUser("engineuser", "password");
+        AccountDTO account = user.getAccounts().get(0);
+        accountService.depositToAccount(user.getId(), account.getId(), 99L);
+        authenticate(user.getId(), user.getUsername());
+
+        mockMvc.perform(get("/user/me"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accounts[0].amount").value(100));
+
+        MvcResult export = mockMvc.perform(get("/admin/export")
+                        .header("X-SECURITY-ADMIN-KEY", adminToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "\"accountId\":" + account.getId() + ",\"currency\":\""
+                                + account.getCurrency() + "\",\"amount\":100}")));
+    }
+
+    @Test
+    @DirtiesContext
+    void testStatementsAreRejected() throws Exception {
+        User user = fixtures.saveUser("engineuser");
+        Account account = fixtures.saveAccount(user, AccountCurrency.USD, 100L);
+        authenticate(user);
+
+        mockMvc.perform(get("/account/{id}/statement", account.getId()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/account/{id}", account.getId())
+                        .param("at", "2024-01-01T00:00:00Z"))
+                .andExpect(status().isBadRequest());
+    }
+}
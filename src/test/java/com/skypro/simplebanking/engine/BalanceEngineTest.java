@@ -0,0 +1,123 @@
+package com.skypro.simplebanking.engine;
+
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.exception.AccountNotFoundException;
+import com.skypro.simplebanking.exception.InsufficientFundsException;
+import com.skypro.simplebanking.exception.WrongCurrencyException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BalanceEngineTest {
+
+    private static final int SHARDS = 4;
+
+    @TempDir
+    Path walDirectory;
+
+    @Test
+    void testTransfersAcrossShardsAreRecoveredFromLog() {
+        BalanceEngine engine = startEngine(new long[SHARDS]);
+        engine.transfer(1L, 1L, 2L, 2L, 300L);
+        engine.transfer(2L, 2L, 1L, 5L, 100L);
+        engine.deposit(3L, 3L, 50L);
+        engine.withdraw(1L, 1L, 200L);
+        engine.close();
+
+        BalanceEngine recovered = startEngine(new long[SHARDS]);
+        assertEquals(500L, recovered.balance(1L, 1L));
+        assertEquals(1200L, recovered.balance(2L, 2L));
+        assertEquals(1050L, recovered.balance(3L, 3L));
+        assertEquals(1100L, recovered.balance(1L, 5L));
+        recovered.close();
+    }
+
+    @Test
+    void testRejectedTransfersLeaveBalancesUntouched() {
+        BalanceEngine engine = startEngine(new long[SHARDS]);
+        assertThrows(InsufficientFundsException.class, () -> engine.transfer(1L, 1L, 2L, 2L, 5000L));
+        assertThrows(WrongCurrencyException.class, () -> engine.transfer(1L, 1L, 4L, 4L, 10L));
+        assertThrows(AccountNotFoundException.class, () -> engine.transfer(2L, 1L, 2L, 2L, 10L));
+        assertEquals(1000L, engine.balance(1L, 1L));
+        assertEquals(1000L, engine.balance(2L, 2L));
+        engine.close();
+    }
+
+    @Test
+    void testRecoverySkipsRecordsAlreadyCheckpointed() {
+        BalanceEngine engine = startEngine(new long[SHARDS]);
+        engine.deposit(1L, 1L, 100L);
+        List<ShardSnapshot> snapshots = engine.snapshot();
+        engine.deposit(1L, 1L, 10L);
+        engine.close();
+
+        long[] checkpointLsns = new long[SHARDS];
+        long checkpointedBalance = 0L;
+        for (ShardSnapshot snapshot : snapshots) {
+            checkpointLsns[snapshot.getShard()] = snapshot.getLsn();
+            for (int i = 0; i < snapshot.getAccountIds().length; i++) {
+                if (snapshot.getAccountIds()[i] == 1L) {
+                    checkpointedBalance = snapshot.getAmounts()[i];
+                }
+            }
+        }
+        assertEquals(1100L, checkpointedBalance);
+
+        WriteAheadLog wal = new WriteAheadLog(walDirectory, true);
+        BalanceEngine recovered = new BalanceEngine(SHARDS, 16, wal);
+        recovered.load(1L, 1L, AccountCurrency.USD, checkpointedBalance);
+        List<WalRecord> records = wal.readAll();
+        wal.start();
+        recovered.recover(records, checkpointLsns);
+        assertEquals(1110L, recovered.balance(1L, 1L));
+        recovered.close();
+    }
+
+    @Test
+    void testTornTailIsTruncatedAndLaterRecordsAreRecovered() throws Exception {
+        BalanceEngine engine = startEngine(new long[SHARDS]);
+        engine.deposit(1L, 1L, 100L);
+        engine.close();
+        // A batch cut short by a crash: one whole unreadable record followed by a partial one.
+        Files.write(lastSegment(), new byte[WalRecord.SIZE + 10], StandardOpenOption.APPEND);
+
+        BalanceEngine recovered = startEngine(new long[SHARDS]);
+        assertEquals(1100L, recovered.balance(1L, 1L));
+        recovered.deposit(1L, 1L, 10L);
+        recovered.close();
+
+        BalanceEngine recoveredAgain = startEngine(new long[SHARDS]);
+        assertEquals(1110L, recoveredAgain.balance(1L, 1L));
+        recoveredAgain.close();
+    }
+
+    private Path lastSegment() throws Exception {
+        try (Stream<Path> files = Files.list(walDirectory)) {
+            List<Path> segments = files.sorted().collect(Collectors.toList());
+            return segments.get(segments.size() - 1);
+        }
+    }
+
+    private BalanceEngine startEngine(long[] checkpointLsns) {
+        WriteAheadLog wal = new WriteAheadLog(walDirectory, true);
+        BalanceEngine engine = new BalanceEngine(SHARDS, 16, wal);
+        engine.load(1L, 1L, AccountCurrency.USD, 1000L);
+        engine.load(2L, 2L, AccountCurrency.USD, 1000L);
+        engine.load(3L, 3L, AccountCurrency.USD, 1000L);
+        engine.load(4L, 4L, AccountCurrency.EUR, 1000L);
+        engine.load(5L, 1L, AccountCurrency.USD, 1000L);
+        List<WalRecord> records = wal.readAll();
+        wal.start();
+        engine.recover(records, checkpointLsns);
+        return engine;
+    }
+}
@@ -0,0 +1,78 @@
+package com.skypro.simplebanking.fixtures;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypro.simplebanking.dto.BankingUserDetails;
+import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.entity.Account;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.entity.User;
+import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.repository.UserRepository;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Users, accounts and requests shared by the integration tests. Picked up by component scanning
+ * like {@code TestDatabaseConfiguration}, so tests simply autowire it.
+ */
+@Component
+public class BankingFixtures {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final UserRepository userRepository;
+    private final AccountRepository accountRepository;
+
+    public BankingFixtures(UserRepository userRepository, AccountRepository accountRepository) {
+        this.userRepository = userRepository;
+        this.accountRepository = accountRepository;
+    }
+
+    public User saveUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        return userRepository.save(user);
+    }
+
+    public Account saveAccount(User user, AccountCurrency currency, long amount) {
+        Account account = new Account();
+        account.setAccountCurrency(currency);
+        account.setAmount(amount);
+        account.setUser(user);
+        return accountRepository.save(account);
+    }
+
+    public long amountOf(Account account) {
+        return accountRepository.findById(account.getId()).orElseThrow().getAmount();
+    }
+
+    public static void authenticate(User user) {
+        authenticate(user.getId(), user.getUsername());
+    }
+
+    public static void authenticate(long userId, String username) {
+        BankingUserDetails bankingUserDetails = new BankingUserDetails(userId, username, "password", false);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(bankingUserDetails, null, bankingUserDetails.getAuthorities()));
+    }
+
+    public static TransferRequest transferRequest(
+            long fromAccountId, long toUserId, long toAccountId, long amount) {
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setFromAccountId(fromAccountId);
+        transferRequest.setToUserId(toUserId);
+        transferRequest.setToAccountId(toAccountId);
+        transferRequest.setAmount(amount);
+        return transferRequest;
+    }
+
+    public static String asJsonString(Object value) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
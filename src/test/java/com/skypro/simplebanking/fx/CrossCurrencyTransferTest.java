@@ -0,0 +1,156 @@
+package com.skypro.simplebanking.fx;
+
+import com.skypro.simplebanking.entity.Account;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.entity.User;
+import com.skypro.simplebanking.fixtures.BankingFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static com.skypro.simplebanking.fixtures.BankingFixtures.asJsonString;
+import static com.skypro.simplebanking.fixtures.BankingFixtures.authenticate;
+import static com.skypro.simplebanking.fixtures.BankingFixtures.transferRequest;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.fx.enabled=true")
+@AutoConfigureMockMvc
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CrossCurrencyTransferTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BankingFixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FxRateService fxRateService;
+
+    @Test
+    @DirtiesContext
+    void testTransferConvertsWithCurrentRateAndRecordsItsVersion() throws Exception {
+        publishRate(1, "0.9000000000");
+        publishRate(2, "0.9250000000");
+        fxRateService.refresh();
+        User sender = fixtures.saveUser("sender");
+        User receiver = fixtures.saveUser("receiver");
+        Account fromAccount = fixtures.saveAccount(sender, AccountCurrency.USD, 1000L);
+        Account toAccount = fixtures.saveAccount(receiver, AccountCurrency.EUR, 0L);
+        authenticate(sender);
+
+        mockMvc.perform(post("/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(transferRequest(
+                                fromAccount.getId(), receiver.getId(), toAccount.getId(), 101L))))
+                .andExpect(status().isOk());
+
+        assertEquals(899L, fixtures.amountOf(fromAccount));
+        // 101 * 0.925 = 93.425, rounded down.
+        assertEquals(93L, fixtures.amountOf(toAccount));
+        Map<String, Object> credit = jdbcTemplate.queryForMap(
+                "SELECT amount, fx_rate, fx_rate_version FROM ledger_entries"
+                        + " WHERE account_id = ? AND entry_type = 'TRANSFER_CREDIT'",
+                toAccount.getId());
+        assertEquals(93L, ((Number) credit.get("amount")).longValue());
+        assertEquals(0, new BigDecimal("0.925").compareTo((BigDecimal) credit.get("fx_rate")));
+        assertEquals(2L, ((Number) credit.get("fx_rate_version")).longValue());
+    }
+
+    @Test
+    @DirtiesContext
+    void testTransferConvertingToNothingIsRejected() throws Exception {
+        publishRate(1, "0.9000000000");
+        fxRateService.refresh();
+        User sender = fixtures.saveUser("sender");
+        User receiver = fixtures.saveUser("receiver");
+        Account fromAccount = fixtures.saveAccount(sender, AccountCurrency.USD, 1000L);
+        Account toAccount = fixtures.saveAccount(receiver, AccountCurrency.EUR, 0L);
+        authenticate(sender);
+
+        // 1 * 0.9 rounds down to 0.
+        mockMvc.perform(post("/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(transferRequest(
+                                fromAccount.getId(), receiver.getId(), toAccount.getId(), 1L))))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(1000L, fixtures.amountOf(fromAccount));
+        assertEquals(0L, fixtures.amountOf(toAccount));
+    }
+
+    @Test
+    @DirtiesContext
+    void testTransferWithoutPublishedRateIsRejected() throws Exception {
+        User sender = fixtures.saveUser("sender");
+        User receiver = fixtures.saveUser("receiver");
+        Account fromAccount = fixtures.saveAccount(sender, AccountCurrency.USD, 1000L);
+        Account toAccount = fixtures.saveAccount(receiver, AccountCurrency.RUB, 0L);
+        authenticate(sender);
+
+        mockMvc.perform(post("/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(transferRequest(
+                                fromAccount.getId(), receiver.getId(), toAccount.getId(), 100L))))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(1000L, fixtures.amountOf(fromAccount));
+    }
+
+    @Test
+    void testOlderRateTableIsNotInstalled() {
+        Iterator<Long> versions = List.of(2L, 1L).iterator();
+        FxRateService service = new FxRateService(
+                () -> new FxRateTable(versions.next(), Map.of("USD.EUR", new BigDecimal("0.9"))),
+                Duration.ofHours(1));
+        try {
+            assertEquals(2L, service.getTable().getVersion());
+            assertEquals(2L, service.refresh().getVersion());
+            assertEquals(2L, service.quote(AccountCurrency.USD, AccountCurrency.EUR).getVersion());
+        } finally {
+            service.close();
+        }
+    }
+
+    private void publishRate(long version, String usdToEur) {
+        jdbcTemplate.update(
+                "INSERT INTO fx_rates (version, base_currency, quote_currency, rate)"
+                        + " VALUES (?, 'USD', 'EUR', ?)",
+                version, new BigDecimal(usdToEur));
+    }
+}
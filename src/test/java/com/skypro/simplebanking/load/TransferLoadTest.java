@@ -0,0 +1,383 @@
+package com.skypro.simplebanking.load;
+
+import com.skypro.simplebanking.configuration.TestDatabaseConfiguration;
+import com.skypro.simplebanking.dto.CreateUserRequest;
+import com.skypro.simplebanking.dto.UserProvisioningResultDTO;
+import com.skypro.simplebanking.dto.UserProvisioningStatus;
+import com.skypro.simplebanking.entity.Account;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.service.AccountService;
+import com.skypro.simplebanking.service.UserProvisioningService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives concurrent transfers, deposits and withdrawals over HTTP against the Postgres container of
+ * {@link TestDatabaseConfiguration}, then checks that no money was created or lost. Users are picked
+ * from a Zipf distribution, so a few accounts take most of the traffic.
+ *
+ * <p>Tagged {@code load} and excluded from the default build; run it with {@code mvn test -Pload}.
+ * Every knob is a system property, e.g. {@code -Dload.threads=64 -Dload.duration=60s
+ * -Dload.mix=transfer:70,deposit:15,withdraw:15 -Dload.skew=1.2 -Dload.hot-slots=16}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(TestDatabaseConfiguration.class)
+class TransferLoadTest {
+
+    private static final String PASSWORD = "password";
+    private static final long INITIAL_DEPOSIT = 1_000_000L;
+
+    private static final int USERS = Integer.getInteger("load.users", 500);
+    private static final int THREADS = Integer.getInteger("load.threads", 32);
+    private static final Duration DURATION =
+            Duration.parse("PT" + System.getProperty("load.duration", "30s").toUpperCase());
+    private static final double SKEW = Double.parseDouble(System.getProperty("load.skew", "1.1"));
+    private static final int HOT_SLOTS = Integer.getInteger("load.hot-slots", 0);
+    private static final Map<Operation, Integer> MIX =
+            parseMix(System.getProperty("load.mix", "transfer:80,deposit:10,withdraw:10"));
+
+    @TestConfiguration
+    static class LoadDataSourceConfiguration {
+        @Bean
+        public DataSource dataSource(PostgreSQLContainer<?> container) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(container.getJdbcUrl())
+                    .username(container.getUsername())
+                    .password(container.getPassword())
+                    .build();
+            dataSource.setMaximumPoolSize(Integer.getInteger("load.pool-size", 32));
+            return dataSource;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserProvisioningService userProvisioningService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void testConcurrentTransfersConserveMoney() throws Exception {
+        List<LoadUser> users = seedUsers();
+        Map<AccountCurrency, Long> initialTotals = totalsByCurrency();
+        double[] cumulativeWeights = zipfCumulativeWeights(users.size(), SKEW);
+
+        Map<AccountCurrency, LongAdder> deposited = adders();
+        Map<AccountCurrency, LongAdder> withdrawn = adders();
+        Map<Operation, LatencyRecorder> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, LongAdder> rejected = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyRecorder());
+            rejected.put(operation, new LongAdder());
+        }
+        AtomicLong failures = new AtomicLong();
+        List<String> failureSamples = new ArrayList<>();
+
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        long deadline = System.nanoTime() + DURATION.toNanos();
+        long start = System.nanoTime();
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            running.add(workers.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    Operation operation = pickOperation(random.nextInt(100));
+                    LoadUser user = users.get(pickUser(cumulativeWeights, random.nextDouble()));
+                    AccountCurrency currency =
+                            AccountCurrency.values()[random.nextInt(AccountCurrency.values().length)];
+                    long amount = 1 + random.nextInt(1_000);
+                    HttpRequest request;
+                    switch (operation) {
+                        case TRANSFER:
+                            LoadUser recipient = users.get(pickUser(cumulativeWeights, random.nextDouble()));
+                            request = post(user, "/transfer", "{\"fromAccountId\":" + user.accountId(currency)
+                                    + ",\"toUserId\":" + recipient.id
+                                    + ",\"toAccountId\":" + recipient.accountId(currency)
+                                    + ",\"amount\":" + amount + "}");
+                            break;
+                        case DEPOSIT:
+                            request = post(user, "/account/deposit/" + user.accountId(currency),
+                                    "{\"amount\":" + amount + "}");
+                            break;
+                        default:
+                            request = post(user, "/account/withdraw/" + user.accountId(currency),
+                                    "{\"amount\":" + amount + "}");
+                            break;
+                    }
+                    long sent = System.nanoTime();
+                    int status;
+                    try {
+                        status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    latencies.get(operation).record(System.nanoTime() - sent);
+                    if (status == 200) {
+                        if (operation == Operation.DEPOSIT) {
+                            deposited.get(currency).add(amount);
+                        } else if (operation == Operation.WITHDRAW) {
+                            withdrawn.get(currency).add(amount);
+                        }
+                    } else if (status == 400 && operation != Operation.DEPOSIT) {
+                        // Insufficient funds is an expected answer under contention.
+                        rejected.get(operation).increment();
+                    } else {
+                        failures.incrementAndGet();
+                        synchronized (failureSamples) {
+                            if (failureSamples.size() < 10) {
+                                failureSamples.add(operation + " -> " + status);
+                            }
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : running) {
+            worker.get();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        workers.shutdown();
+
+        report(latencies, rejected, failures.get(), elapsedSeconds);
+
+        assertEquals(0, failures.get(), "Unexpected responses: " + failureSamples);
+        Map<AccountCurrency, Long> finalTotals = totalsByCurrency();
+        for (AccountCurrency currency : AccountCurrency.values()) {
+            long expected = initialTotals.get(currency)
+                    + deposited.get(currency).sum()
+                    - withdrawn.get(currency).sum();
+            assertEquals(expected, finalTotals.get(currency), "Total " + currency + " not conserved");
+        }
+        for (Account account : accountRepository.findAll()) {
+            assertTrue(account.getAmount() >= 0, "Account " + account.getId() + " went negative");
+            assertTrue(account.getTotalAmount() >= 0, "Account " + account.getId() + " went negative");
+        }
+    }
+
+    private List<LoadUser> seedUsers() {
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        List<CreateUserRequest> requests = IntStream.range(0, USERS)
+                .mapToObj(i -> {
+                    CreateUserRequest request = new CreateUserRequest();
+                    request.setUsername("load-" + run + "-" + i);
+                    request.setPassword(PASSWORD);
+                    return request;
+                })
+                .collect(Collectors.toList());
+        List<UserProvisioningResultDTO> results = userProvisioningService.provisionUsers(requests.iterator());
+
+        Map<Long, long[]> accountsByUser = new HashMap<>();
+        for (Account account : accountRepository.findAll()) {
+            accountsByUser
+                    .computeIfAbsent(account.getUserId(), id -> new long[AccountCurrency.values().length])
+                    [account.getAccountCurrency().ordinal()] = account.getId();
+        }
+        List<LoadUser> users = new ArrayList<>();
+        for (UserProvisioningResultDTO result : results) {
+            assertEquals(UserProvisioningStatus.CREATED, result.getStatus());
+            LoadUser user = new LoadUser(result.getUserId(), result.getUsername(),
+                    accountsByUser.get(result.getUserId()));
+            for (long accountId : user.accountIds) {
+                accountService.depositToAccount(user.id, accountId, INITIAL_DEPOSIT);
+            }
+            users.add(user);
+        }
+        if (HOT_SLOTS > 0) {
+            // The head of the Zipf distribution is where the contention is.
+            for (long accountId : users.get(0).accountIds) {
+                accountService.setSlotCount(accountId, HOT_SLOTS);
+            }
+        }
+        return users;
+    }
+
+    private Map<AccountCurrency, Long> totalsByCurrency() {
+        Map<AccountCurrency, Long> totals = new EnumMap<>(AccountCurrency.class);
+        for (AccountCurrency currency : AccountCurrency.values()) {
+            totals.put(currency, 0L);
+        }
+        for (Account account : accountRepository.findAll()) {
+            totals.merge(account.getAccountCurrency(), account.getTotalAmount(), Long::sum);
+        }
+        return totals;
+    }
+
+    private HttpRequest post(LoadUser user, String path, String body) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", user.authorization)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static void report(Map<Operation, LatencyRecorder> latencies, Map<Operation, LongAdder> rejected,
+                               long failures, double elapsedSeconds) {
+        long total = latencies.values().stream().mapToLong(LatencyRecorder::count).sum();
+        System.out.printf("load: %d users, %d threads, %.1fs, %.0f req/s, %d failures%n",
+                USERS, THREADS, elapsedSeconds, total / elapsedSeconds, failures);
+        for (Operation operation : Operation.values()) {
+            long[] sorted = latencies.get(operation).sorted();
+            if (sorted.length == 0) {
+                continue;
+            }
+            System.out.printf("load: %-8s %8d ops %8.0f ops/s  p50 %7.2fms  p99 %7.2fms  p999 %7.2fms"
+                            + "  rejected %d%n",
+                    operation, sorted.length, sorted.length / elapsedSeconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                    rejected.get(operation).sum());
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static double[] zipfCumulativeWeights(int count, double exponent) {
+        double[] cumulative = new double[count];
+        double sum = 0;
+        for (int rank = 1; rank <= count; rank++) {
+            sum += 1 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < count; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int pickUser(double[] cumulativeWeights, double sample) {
+        int index = Arrays.binarySearch(cumulativeWeights, sample);
+        return Math.min(cumulativeWeights.length - 1, index >= 0 ? index : -index - 1);
+    }
+
+    private static Operation pickOperation(int percent) {
+        int bound = 0;
+        for (Map.Entry<Operation, Integer> entry : MIX.entrySet()) {
+            bound += entry.getValue();
+            if (percent < bound) {
+                return entry.getKey();
+            }
+        }
+        return Operation.TRANSFER;
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> shares = new EnumMap<>(Operation.class);
+        int total = 0;
+        for (String part : mix.split(",")) {
+            String[] share = part.trim().split(":");
+            int weight = Integer.parseInt(share[1].trim());
+            shares.put(Operation.valueOf(share[0].trim().toUpperCase()), weight);
+            total += weight;
+        }
+        if (total != 100) {
+            throw new IllegalArgumentException("load.mix should add up to 100: " + mix);
+        }
+        return shares;
+    }
+
+    private static Map<AccountCurrency, LongAdder> adders() {
+        Map<AccountCurrency, LongAdder> adders = new EnumMap<>(AccountCurrency.class);
+        for (AccountCurrency currency : AccountCurrency.values()) {
+            adders.put(currency, new LongAdder());
+        }
+        return adders;
+    }
+
+    private enum Operation {
+        TRANSFER,
+        DEPOSIT,
+        WITHDRAW
+    }
+
+    private static final class LoadUser {
+        private final long id;
+        private final long[] accountIds;
+        private final String authorization;
+
+        private LoadUser(long id, String username, long[] accountIds) {
+            this.id = id;
+            this.accountIds = accountIds;
+            this.authorization = "Basic " + Base64.getEncoder()
+                    .encodeToString((username + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+        }
+
+        private long accountId(AccountCurrency currency) {
+            return accountIds[currency.ordinal()];
+        }
+    }
+
+    private static final class LatencyRecorder {
+        private long[] samples = new long[1 << 16];
+        private int count;
+
+        private synchronized void record(long nanos) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = nanos;
+        }
+
+        private synchronized long count() {
+            return count;
+        }
+
+        private synchronized long[] sorted() {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.skypro.simplebanking.routing;
+
+import com.skypro.simplebanking.entity.User;
+import com.skypro.simplebanking.repository.UserRepository;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "app.replica.enabled=true")
+@AutoConfigureMockMvc
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReadReplicaRoutingTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    // Not replicating: it only gets the schema, so whatever a read returns shows where it ran.
+    @Container
+    private static final PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("postgres")
+            .withInitScript("db/migration/V1__baseline_schema.sql");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primary::getJdbcUrl);
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("app.replica.urls", replica::getJdbcUrl);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReadReplicaRouter readReplicaRouter;
+
+    @Test
+    @Order(1)
+    @DirtiesContext
+    @WithMockUser(username = "testuser", roles = "USER")
+    void testReadOnlyTransactionsReadFromReplica() throws Exception {
+        saveUser("primaryuser");
+        try (Connection connection = DriverManager.getConnection(
+                replica.getJdbcUrl(), replica.getUsername(), replica.getPassword());
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate(
+                    "INSERT INTO users (id, username, password) VALUES (1000, 'replicauser', 'x')");
+        }
+
+        mockMvc.perform(get("/user/list"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].username").value("replicauser"));
+    }
+
+    @Test
+    @Order(2)
+    @DirtiesContext
+    @WithMockUser(username = "testuser", roles = "USER")
+    void testReadsFallBackToPrimaryWhenReplicaIsDown() throws Exception {
+        saveUser("primaryuser");
+        replica.stop();
+        readReplicaRouter.checkReplicas();
+
+        mockMvc.perform(get("/user/list"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].username").value("primaryuser"));
+    }
+
+    private void saveUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        userRepository.save(user);
+    }
+}
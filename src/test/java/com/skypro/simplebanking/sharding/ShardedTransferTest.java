@@ -0,0 +1,182 @@
+package com.skypro.simplebanking.sharding;
+
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.service.AccountService;
+import com.skypro.simplebanking.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static com.skypro.simplebanking.fixtures.BankingFixtures.asJsonString;
+import static com.skypro.simplebanking.fixtures.BankingFixtures.authenticate;
+import static com.skypro.simplebanking.fixtures.BankingFixtures.transferRequest;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.sharding.enabled=true")
+@AutoConfigureMockMvc
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ShardedTransferTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> shard0 = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    // Migrated by ShardingConfiguration itself.
+    @Container
+    private static final PostgreSQLContainer<?> shard1 = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", shard0::getJdbcUrl);
+        registry.add("spring.datasource.username", shard0::getUsername);
+        registry.add("spring.datasource.password", shard0::getPassword);
+        registry.add("app.sharding.urls", shard1::getJdbcUrl);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private ShardDirectory shardDirectory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DirtiesContext
+    void testTransferBetweenShardsMovesMoneyAndCommitsSaga() throws Exception {
+        UserDTO sender = createUser("sender");
+        UserDTO receiver = createUserOnOtherShard(sender);
+        AccountDTO fromAccount = usdAccount(sender);
+        AccountDTO toAccount = usdAccount(receiver);
+        shardDirectory.onShardOf(sender.getId(),
+                () -> accountService.depositToAccount(sender.getId(), fromAccount.getId(), 100L));
+        authenticate(sender.getId(), sender.getUsername());
+
+        mockMvc.perform(post("/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(transferRequest(
+                                fromAccount.getId(), receiver.getId(), toAccount.getId(), 30L))))
+                .andExpect(status().isOk());
+
+        assertEquals(71L, amountOf(sender, fromAccount));
+        assertEquals(31L, amountOf(receiver, toAccount));
+        assertEquals("COMMITTED", shardDirectory.onShardOf(sender.getId(),
+                () -> jdbcTemplate.queryForObject("SELECT status FROM transfer_sagas", String.class)));
+        assertEquals("CREDITED", shardDirectory.onShardOf(receiver.getId(),
+                () -> jdbcTemplate.queryForObject(
+                        "SELECT outcome FROM transfer_saga_outcomes", String.class)));
+    }
+
+    @Test
+    @DirtiesContext
+    void testRepeatedTransferBetweenShardsWithIdempotencyKeyIsAppliedOnce() throws Exception {
+        UserDTO sender = createUser("sender");
+        UserDTO receiver = createUserOnOtherShard(sender);
+        AccountDTO fromAccount = usdAccount(sender);
+        AccountDTO toAccount = usdAccount(receiver);
+        shardDirectory.onShardOf(sender.getId(),
+                () -> accountService.depositToAccount(sender.getId(), fromAccount.getId(), 100L));
+        authenticate(sender.getId(), sender.getUsername());
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/transfer")
+                            .header("Idempotency-Key", "cross-shard-retry-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(asJsonString(transferRequest(
+                                    fromAccount.getId(), receiver.getId(), toAccount.getId(), 30L))))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(post("/transfer")
+                        .header("Idempotency-Key", "cross-shard-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(transferRequest(
+                                fromAccount.getId(), receiver.getId(), toAccount.getId(), 40L))))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertEquals(71L, amountOf(sender, fromAccount));
+        assertEquals(31L, amountOf(receiver, toAccount));
+        assertEquals(1, (int) shardDirectory.onShardOf(sender.getId(),
+                () -> jdbcTemplate.queryForObject("SELECT count(*) FROM transfer_sagas", Integer.class)));
+        assertEquals(sender.getId() + ":transfer:cross-shard-retry-1", shardDirectory.onShardOf(sender.getId(),
+                () -> jdbcTemplate.queryForObject("SELECT idempotency_key FROM transfer_sagas", String.class)));
+        assertEquals(1, (int) shardDirectory.onShardOf(sender.getId(),
+                () -> jdbcTemplate.queryForObject("SELECT count(*) FROM idempotency_keys", Integer.class)));
+    }
+
+    @Test
+    @DirtiesContext
+    void testTransferToMissingAccountOnOtherShardLeavesSourceUntouched() throws Exception {
+        UserDTO sender = createUser("sender");
+        UserDTO receiver = createUserOnOtherShard(sender);
+        AccountDTO fromAccount = usdAccount(sender);
+        shardDirectory.onShardOf(sender.getId(),
+                () -> accountService.depositToAccount(sender.getId(), fromAccount.getId(), 100L));
+        authenticate(sender.getId(), sender.getUsername());
+
+        mockMvc.perform(post("/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(transferRequest(
+                                fromAccount.getId(), receiver.getId(), Long.MAX_VALUE, 30L))))
+                .andExpect(status().isNotFound());
+
+        assertEquals(101L, amountOf(sender, fromAccount));
+        assertEquals(0, (int) shardDirectory.onShardOf(sender.getId(),
+                () -> jdbcTemplate.queryForObject("SELECT count(*) FROM transfer_sagas", Integer.class)));
+    }
+
+    private UserDTO createUser(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "admin", null, AuthorityUtils.createAuthorityList("admin")));
+        return userService.createUser(username, "password");
+    }
+
+    private UserDTO createUserOnOtherShard(UserDTO user) {
+        for (int i = 0; ; i++) {
+            UserDTO candidate = createUser("receiver" + i);
+            if (shardDirectory.shardOf(candidate.getId()) != shardDirectory.shardOf(user.getId())) {
+                return candidate;
+            }
+        }
+    }
+
+    private AccountDTO usdAccount(UserDTO user) {
+        return userService.getUser(user.getId()).getAccounts().stream()
+                .filter(account -> account.getCurrency() == AccountCurrency.USD)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private long amountOf(UserDTO user, AccountDTO account) {
+        return shardDirectory.onShardOf(user.getId(), () -> jdbcTemplate.queryForObject(
+                "SELECT amount FROM accounts WHERE id = ?", Long.class, account.getId()));
+    }
+}
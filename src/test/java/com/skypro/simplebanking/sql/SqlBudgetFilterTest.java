@@ -0,0 +1,73 @@
+package com.skypro.simplebanking.sql;
+
+import com.skypro.simplebanking.entity.User;
+import com.skypro.simplebanking.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest(properties = "app.sql-budget.max-statements.[/user/list]=0")
+@AutoConfigureMockMvc
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SqlBudgetFilterTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DirtiesContext
+    @WithMockUser(username = "testuser", roles = "USER")
+    void testEndpointOverBudgetFailsInTestMode() throws Exception {
+        User user = new User();
+        user.setUsername("user1");
+        user.setPassword("password1");
+        userRepository.save(user);
+
+        // Repository calls outside a request are not charged to any endpoint.
+        assertThrows(SqlBudgetExceededException.class, () -> mockMvc.perform(get("/user/list")));
+
+        DistributionSummary statements = meterRegistry.get("banking.sql.statements")
+                .tag("uri", "/user/list")
+                .summary();
+        assertEquals(1L, statements.count());
+        assertEquals(1.0, statements.totalAmount());
+        assertEquals(1.0, meterRegistry.get("banking.sql.budget.exceeded")
+                .tag("uri", "/user/list")
+                .counter()
+                .count());
+    }
+}